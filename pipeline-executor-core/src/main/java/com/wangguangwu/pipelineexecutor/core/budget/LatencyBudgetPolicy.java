@@ -0,0 +1,124 @@
+package com.wangguangwu.pipelineexecutor.core.budget;
+
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于历史延迟的时间预算策略（线程安全）
+ * <p>
+ * 为每个处理器维护 {@link LatencyHistogram}，以指定分位的历史耗时作为预测耗时。
+ * 执行器在启动处理器前比较预测耗时与剩余时间预算：
+ * <ul>
+ *   <li>预测可以完成：正常执行</li>
+ *   <li>预测无法完成且处理器可选（{@link PipelineHandler#isOptional()}）：跳过</li>
+ *   <li>预测无法完成且处理器必选：管道以 TIMEOUT 快速失败</li>
+ * </ul>
+ * 样本数不足 {@code minSamples} 的处理器不做预测，始终允许执行。
+ *
+ * @author wangguangwu
+ */
+public class LatencyBudgetPolicy {
+
+    /**
+     * 预测值刷新间隔（样本数，需为2的幂）
+     */
+    private static final int REFRESH_INTERVAL = 16;
+
+    private static final long DEFAULT_DECAY_THRESHOLD = 4096;
+
+    private final double percentile;
+
+    private final int minSamples;
+
+    private final long decayThreshold;
+
+    private final Map<String, HandlerStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 默认配置：p90，至少20个样本
+     */
+    public LatencyBudgetPolicy() {
+        this(0.9, 20, DEFAULT_DECAY_THRESHOLD);
+    }
+
+    /**
+     * @param percentile     预测使用的分位（0~1）
+     * @param minSamples     开始预测所需的最少样本数（≥1）
+     * @param decayThreshold 直方图衰减阈值（样本数，须大于 minSamples）
+     */
+    public LatencyBudgetPolicy(double percentile, int minSamples, long decayThreshold) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]");
+        }
+        if (minSamples < 1 || decayThreshold <= minSamples) {
+            throw new IllegalArgumentException("require 1 <= minSamples < decayThreshold");
+        }
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.decayThreshold = decayThreshold;
+    }
+
+    /**
+     * 记录处理器一次执行的耗时（包含重试）
+     *
+     * @param handler      处理器
+     * @param elapsedNanos 耗时（纳秒）
+     */
+    public void record(PipelineHandler handler, long elapsedNanos) {
+        String name = handler.getName();
+        HandlerStats handlerStats = stats.get(name);
+        if (handlerStats == null) {
+            handlerStats = stats.computeIfAbsent(name, key -> new HandlerStats(decayThreshold));
+        }
+        handlerStats.histogram.record(elapsedNanos);
+        int records = handlerStats.records.incrementAndGet();
+        // 样本不足时不做预测，也不必扫描直方图计算分位
+        if (handlerStats.histogram.getCount() < minSamples) {
+            return;
+        }
+        if ((records & (REFRESH_INTERVAL - 1)) == 0 || handlerStats.predictedNanos == 0) {
+            handlerStats.predictedNanos = handlerStats.histogram.valueAtPercentile(percentile);
+        }
+    }
+
+    /**
+     * 预测处理器耗时
+     *
+     * @param handler 处理器
+     * @return 预测耗时（纳秒），样本不足时返回0
+     */
+    public long predictNanos(PipelineHandler handler) {
+        HandlerStats handlerStats = stats.get(handler.getName());
+        return handlerStats == null ? 0L : handlerStats.predictedNanos;
+    }
+
+    /**
+     * 获取处理器的延迟直方图
+     *
+     * @param handlerName 处理器名称
+     * @return 直方图，未记录过时返回null
+     */
+    public LatencyHistogram getHistogram(String handlerName) {
+        HandlerStats handlerStats = stats.get(handlerName);
+        return handlerStats == null ? null : handlerStats.histogram;
+    }
+
+    /**
+     * 单个处理器的统计数据
+     */
+    private static final class HandlerStats {
+
+        private final LatencyHistogram histogram;
+
+        private final AtomicInteger records = new AtomicInteger();
+
+        private volatile long predictedNanos;
+
+        private HandlerStats(long decayThreshold) {
+            this.histogram = new LatencyHistogram(decayThreshold);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.wangguangwu.pipelineexecutor.core.budget;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁对数分桶延迟直方图（线程安全）
+ * <p>
+ * 每个2的幂区间再细分 2^subBucketBits 个子桶，相对误差不超过 2^-subBucketBits（默认4个子桶，25%）。
+ * 样本数达到衰减阈值后所有桶计数减半，使统计结果跟随近期延迟变化；
+ * 衰减与并发写入之间不加锁，计数为近似值。
+ *
+ * @author wangguangwu
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 默认子桶位数
+     */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 2;
+
+    private final int subBucketBits;
+
+    private final int subBuckets;
+
+    private final int bucketCount;
+
+    private final AtomicLongArray buckets;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicBoolean decaying = new AtomicBoolean();
+
+    /**
+     * 衰减阈值（样本数）
+     */
+    private final long decayThreshold;
+
+    /**
+     * @param decayThreshold 样本数达到该值后计数减半（>0）
+     */
+    public LatencyHistogram(long decayThreshold) {
+        this(decayThreshold, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param decayThreshold 样本数达到该值后计数减半（>0，{@link Long#MAX_VALUE} 表示不衰减）
+     * @param subBucketBits  每个2的幂区间的子桶位数（1~10）
+     */
+    public LatencyHistogram(long decayThreshold, int subBucketBits) {
+        if (decayThreshold <= 0) {
+            throw new IllegalArgumentException("decayThreshold must be > 0");
+        }
+        if (subBucketBits < 1 || subBucketBits > 10) {
+            throw new IllegalArgumentException("subBucketBits must be between 1 and 10");
+        }
+        this.decayThreshold = decayThreshold;
+        this.subBucketBits = subBucketBits;
+        this.subBuckets = 1 << subBucketBits;
+        this.bucketCount = (64 - subBucketBits) * subBuckets;
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒，负值按0处理）
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(indexOf(Math.max(0L, nanos)));
+        if (count.incrementAndGet() >= decayThreshold) {
+            decay();
+        }
+    }
+
+    /**
+     * 当前样本数（近似值）
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 获取指定分位的耗时上界
+     *
+     * @param percentile 分位（0~1）
+     * @return 耗时（纳秒），无样本时返回0
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(bucketCount - 1);
+    }
+
+    private void decay() {
+        if (!decaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long remaining = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                long value = buckets.get(i);
+                if (value != 0) {
+                    long halved = value >>> 1;
+                    buckets.addAndGet(i, halved - value);
+                    remaining += halved;
+                }
+            }
+            count.set(remaining);
+        } finally {
+            decaying.set(false);
+        }
+    }
+
+    private int indexOf(long value) {
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + sub;
+    }
+
+    private long upperBoundOf(int index) {
+        if (index < subBuckets) {
+            return index;
+        }
+        int exponent = index / subBuckets + subBucketBits - 1;
+        int sub = index % subBuckets;
+        int shift = exponent - subBucketBits;
+        long lower = (long) (subBuckets + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
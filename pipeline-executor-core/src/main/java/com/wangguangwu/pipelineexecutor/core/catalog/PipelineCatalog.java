@@ -0,0 +1,312 @@
+package com.wangguangwu.pipelineexecutor.core.catalog;
+
+import com.wangguangwu.pipelineexecutor.core.executor.ExecutionPlan;
+import com.wangguangwu.pipelineexecutor.spi.context.CompletePipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多管道目录（线程安全）
+ * <p>
+ * 所有管道变体共享同一个 {@link HandlerRegistry} 中的处理器实例，每个变体只是一个具名的处理器名称集合：
+ * <ul>
+ *   <li>变体按上下文元数据项选择（{@link CompletePipelineContext#getMetadata()}），未携带时使用默认变体</li>
+ *   <li>处理器集合相同的变体共享同一份执行计划，每个集合针对注册中心的每个快照只编译一次</li>
+ *   <li>执行时按变体名查表得到已编译的计划，不再逐个处理器判断是否属于当前变体</li>
+ * </ul>
+ * 计划按注册中心快照的引用判断是否过期，注册中心变化后各集合在下次使用时重新编译。
+ * 编译时校验变体的完整性：变体引用了快照中不存在的处理器名称，或选中的处理器
+ * {@link PipelineHandler#getDependsOn() 依赖}的处理器不在变体中时，抛出 {@link PipelineException}（状态 FAILED），
+ * 避免名称拼写错误或遗漏依赖时变体悄悄少执行处理器。编译失败同样按快照缓存，
+ * 同一快照下再次选中该变体时直接抛出不采集堆栈的同样异常，不会每次执行都重新筛选、校验。
+ * <p>
+ * 使用方式：{@code new DefaultPipelineExecutor(catalog, strategy, dispatcher, budgetPolicy)}。
+ * {@link PipelineHandler#isEnabled()} 仍作为处理器的全局开关在执行时生效。
+ *
+ * @author wangguangwu
+ */
+public class PipelineCatalog {
+
+    /**
+     * 默认的变体元数据项
+     */
+    public static final String DEFAULT_VARIANT_METADATA = "pipeline";
+
+    private final HandlerRegistry registry;
+
+    /**
+     * 选择变体的元数据项
+     */
+    private final String variantMetadata;
+
+    /**
+     * 变体名 → 处理器集合（写时复制，读路径无锁）
+     */
+    private volatile Map<String, HandlerSet> variants = Map.of();
+
+    private volatile String defaultVariant;
+
+    private final LongAdder compilations = new LongAdder();
+
+    /**
+     * 以 {@value #DEFAULT_VARIANT_METADATA} 元数据项选择变体
+     *
+     * @param registry 共享处理器的注册中心
+     */
+    public PipelineCatalog(@NonNull HandlerRegistry registry) {
+        this(registry, DEFAULT_VARIANT_METADATA);
+    }
+
+    /**
+     * @param registry        共享处理器的注册中心
+     * @param variantMetadata 选择变体的元数据项
+     */
+    public PipelineCatalog(@NonNull HandlerRegistry registry, @NonNull String variantMetadata) {
+        this.registry = registry;
+        this.variantMetadata = variantMetadata;
+    }
+
+    /**
+     * 共享处理器的注册中心
+     */
+    public HandlerRegistry getRegistry() {
+        return registry;
+    }
+
+    // ================= 定义变体 =================
+
+    /**
+     * 定义（或替换）变体
+     *
+     * @param name         变体名
+     * @param handlerNames 变体启用的处理器名称（执行顺序仍由 order 与依赖关系决定）
+     */
+    public synchronized void define(@NonNull String name, @NonNull Collection<String> handlerNames) {
+        Set<String> names = new LinkedHashSet<>(handlerNames);
+        Map<String, HandlerSet> updated = new HashMap<>(variants);
+        updated.put(name, intern(names, updated.values()));
+        variants = Map.copyOf(updated);
+    }
+
+    /**
+     * 基于已有变体定义（或替换）变体
+     *
+     * @param name     变体名
+     * @param base     基础变体名
+     * @param enabled  在基础变体上额外启用的处理器名称
+     * @param disabled 在基础变体上停用的处理器名称
+     * @throws IllegalArgumentException 基础变体不存在时抛出
+     */
+    public synchronized void defineVariant(@NonNull String name, @NonNull String base,
+                                           @NonNull Collection<String> enabled, @NonNull Collection<String> disabled) {
+        HandlerSet baseSet = variants.get(base);
+        if (baseSet == null) {
+            throw new IllegalArgumentException("Unknown base pipeline variant: " + base);
+        }
+        Set<String> names = new LinkedHashSet<>(baseSet.names);
+        names.addAll(enabled);
+        names.removeAll(disabled);
+        define(name, names);
+    }
+
+    /**
+     * 移除变体
+     *
+     * @param name 变体名
+     * @return 变体存在时返回true
+     */
+    public synchronized boolean remove(@NonNull String name) {
+        if (!variants.containsKey(name)) {
+            return false;
+        }
+        Map<String, HandlerSet> updated = new HashMap<>(variants);
+        updated.remove(name);
+        variants = Map.copyOf(updated);
+        return true;
+    }
+
+    /**
+     * 设置默认变体（上下文未携带变体元数据项时使用）
+     *
+     * @param name 变体名，null表示没有默认变体
+     */
+    public void setDefaultVariant(String name) {
+        this.defaultVariant = name;
+    }
+
+    // ================= 查询 =================
+
+    /**
+     * 已定义的变体名称
+     */
+    public Set<String> getVariantNames() {
+        return variants.keySet();
+    }
+
+    /**
+     * 变体启用的处理器名称
+     *
+     * @param name 变体名
+     * @return 处理器名称（不可修改），变体不存在时返回null
+     */
+    public Set<String> getHandlerNames(@NonNull String name) {
+        HandlerSet set = variants.get(name);
+        return set == null ? null : set.names;
+    }
+
+    /**
+     * 不同处理器集合的数量（即需要编译的执行计划数）
+     */
+    public int getPlanCount() {
+        Map<HandlerSet, Boolean> distinct = new IdentityHashMap<>();
+        variants.values().forEach(set -> distinct.put(set, Boolean.TRUE));
+        return distinct.size();
+    }
+
+    /**
+     * 累计编译次数（含校验失败的编译）
+     */
+    public long getCompileCount() {
+        return compilations.sum();
+    }
+
+    /**
+     * 上下文选择的变体名
+     *
+     * @param context 上下文
+     * @return 元数据项指定的变体名，未携带时返回默认变体（可能为null）
+     */
+    public String variantOf(@NonNull PipelineContext context) {
+        if (context instanceof CompletePipelineContext<?> complete) {
+            String value = complete.getMetadata().get(variantMetadata);
+            if (value != null) {
+                return value;
+            }
+        }
+        return defaultVariant;
+    }
+
+    /**
+     * 获取上下文所选变体在指定注册中心快照下的执行计划
+     *
+     * @param context  上下文
+     * @param handlers 注册中心快照（执行器本次执行固定的快照）
+     * @return 执行计划
+     * @throws PipelineException 变体不存在、引用了未注册的处理器、依赖不在变体中或存在循环依赖时抛出
+     */
+    public ExecutionPlan planFor(@NonNull PipelineContext context, @NonNull List<PipelineHandler> handlers)
+            throws PipelineException {
+        String name = variantOf(context);
+        HandlerSet set = name == null ? null : variants.get(name);
+        if (set == null) {
+            throw new PipelineException("Unknown pipeline variant: " + name, null, PipelineStatus.FAILED);
+        }
+        Compiled compiled = set.compiled;
+        if (compiled == null || compiled.snapshot != handlers) {
+            compiled = compile(name, set, handlers);
+        }
+        PipelineException failure = compiled.failure;
+        if (failure != null) {
+            // 每次抛出新实例，避免多个线程共享同一个异常对象
+            throw PipelineException.stackless(failure.getMessage(), failure.getHandlerName(),
+                    failure.getPipelineStatus());
+        }
+        return compiled.plan;
+    }
+
+    // ================= 内部实现 =================
+
+    /**
+     * 集合相同的变体复用已有的 {@link HandlerSet}（及其已编译的计划）
+     */
+    private static HandlerSet intern(Set<String> names, Collection<HandlerSet> existing) {
+        for (HandlerSet set : existing) {
+            if (set.names.equals(names)) {
+                return set;
+            }
+        }
+        return new HandlerSet(Set.copyOf(names));
+    }
+
+    /**
+     * 编译并缓存成功或失败的结果（并发编译同一集合时结果相同，后写入者覆盖）
+     *
+     * @param name 触发编译的变体名（仅用于错误信息，集合可能被多个变体共享）
+     */
+    private Compiled compile(String name, HandlerSet set, List<PipelineHandler> handlers) {
+        Compiled compiled;
+        try {
+            compiled = new Compiled(handlers, validateAndCompile(name, set, handlers), null);
+        } catch (PipelineException e) {
+            compiled = new Compiled(handlers, null, e);
+        }
+        set.compiled = compiled;
+        compilations.increment();
+        return compiled;
+    }
+
+    /**
+     * 从快照中按集合筛选处理器、校验后编译
+     */
+    private static ExecutionPlan validateAndCompile(String name, HandlerSet set, List<PipelineHandler> handlers)
+            throws PipelineException {
+        List<PipelineHandler> selected = new ArrayList<>(set.names.size());
+        Set<String> missing = new LinkedHashSet<>(set.names);
+        for (PipelineHandler handler : handlers) {
+            if (set.names.contains(handler.getName())) {
+                selected.add(handler);
+                missing.remove(handler.getName());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new PipelineException("Pipeline variant [" + name + "] references unregistered handlers: "
+                    + missing, null, PipelineStatus.FAILED);
+        }
+        for (PipelineHandler handler : selected) {
+            for (String dependency : handler.getDependsOn()) {
+                if (!set.names.contains(dependency)) {
+                    throw new PipelineException("Pipeline variant [" + name + "] includes handler ["
+                            + handler.getName() + "] but not its dependency [" + dependency + "]",
+                            handler.getName(), PipelineStatus.FAILED);
+                }
+            }
+        }
+        return ExecutionPlan.compile(selected);
+    }
+
+    /**
+     * 一组处理器名称及其最近编译的执行计划
+     */
+    private static final class HandlerSet {
+
+        private final Set<String> names;
+
+        private volatile Compiled compiled;
+
+        private HandlerSet(Set<String> names) {
+            this.names = names;
+        }
+    }
+
+    /**
+     * @param snapshot 编译时的注册中心快照（按引用比较）
+     * @param plan     执行计划，编译失败时为null
+     * @param failure  编译失败的原因，成功时为null
+     */
+    private record Compiled(List<PipelineHandler> snapshot, ExecutionPlan plan, PipelineException failure) {
+    }
+}
@@ -0,0 +1,499 @@
+package com.wangguangwu.pipelineexecutor.core.context;
+
+import com.wangguangwu.pipelineexecutor.core.payload.OffHeapPayload;
+import com.wangguangwu.pipelineexecutor.spi.context.CompletePipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.ExecutionControl;
+import lombok.NonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 默认管道上下文实现（线程安全）
+ * <p>
+ * 属性存储基于 {@link ConcurrentHashMap}，事务通过属性快照实现：
+ * 开启事务时保存当前属性副本，回滚时恢复副本。
+ * 延迟属性以内部持有者保存，首次读取时在持有者上加锁计算，快照与回滚共享同一持有者，已计算的结果不会重复计算；
+ * 关闭后读取尚未计算的延迟属性抛出 {@link IllegalStateException}。
+ * <p>
+ * 可关联父级 {@link ExecutionControl}（如拆分出的子管道上下文）：父级被中断或超时时本上下文同样视为中断或超时，
+ * 剩余时间取两者较小值。
+ * <p>
+ * 关闭时释放作为属性保存、且属于本上下文的 {@link OffHeapPayload}（见 {@link OffHeapPayload#transferTo}）。
+ *
+ * @param <R> 结果类型
+ * @author wangguangwu
+ */
+public class DefaultPipelineContext<R> implements CompletePipelineContext<R> {
+
+    /**
+     * 上下文唯一标识
+     */
+    private final String contextId;
+
+    /**
+     * 创建时间戳（毫秒）
+     */
+    private final long createTime;
+
+    /**
+     * 不可变元数据
+     */
+    private final Map<String, String> metadata;
+
+    /**
+     * 属性存储
+     */
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    /**
+     * 不触发延迟计算的只读属性视图
+     */
+    private final Map<String, Object> attributeView = new ComputedAttributeView();
+
+    /**
+     * 生命周期状态
+     */
+    private final AtomicReference<ContextState> state = new AtomicReference<>(ContextState.CREATED);
+
+    /**
+     * 事务快照（栈底为事务起点，其余为保存点）
+     */
+    private final Deque<Savepoint> savepoints = new ArrayDeque<>();
+
+    /**
+     * 父级执行控制（可为null）
+     */
+    private final ExecutionControl parent;
+
+    /**
+     * 中断标记
+     */
+    private volatile boolean interrupted;
+
+    /**
+     * 截止时间（System.nanoTime 基准，0 表示不限制）
+     */
+    private volatile long deadlineNanos;
+
+    /**
+     * 处理结果
+     */
+    private volatile R result;
+
+    public DefaultPipelineContext() {
+        this(UUID.randomUUID().toString(), Collections.emptyMap());
+    }
+
+    public DefaultPipelineContext(@NonNull String contextId) {
+        this(contextId, Collections.emptyMap());
+    }
+
+    public DefaultPipelineContext(@NonNull String contextId, Map<String, String> metadata) {
+        this(contextId, metadata, null);
+    }
+
+    /**
+     * @param parent 父级执行控制，中断与截止时间随父级传播（可为null）
+     */
+    public DefaultPipelineContext(@NonNull String contextId, Map<String, String> metadata, ExecutionControl parent) {
+        this.contextId = contextId;
+        this.parent = parent;
+        this.createTime = System.currentTimeMillis();
+        this.metadata = metadata == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(metadata));
+    }
+
+    // ================= PipelineContext =================
+
+    @Override
+    public String getContextId() {
+        return contextId;
+    }
+
+    @Override
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    @Override
+    public ContextState getState() {
+        return state.get();
+    }
+
+    @Override
+    public void activate() {
+        if (!state.compareAndSet(ContextState.CREATED, ContextState.ACTIVE)) {
+            throw new IllegalStateException("Context [" + contextId + "] cannot be activated from state " + state.get());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (state.getAndSet(ContextState.CLOSED) == ContextState.CLOSED) {
+            return;
+        }
+        synchronized (savepoints) {
+            savepoints.clear();
+        }
+        // 确定性释放本上下文拥有的堆外载荷；其他上下文的载荷由其所属上下文释放，
+        // 未作为属性保存的载荷由分配器的泄漏检测兜底
+        for (Object value : attributes.values()) {
+            releaseIfOwned(peek(value));
+        }
+    }
+
+    // ================= AttributeStore =================
+
+    @Override
+    public <T> T getAttribute(@NonNull String key, @NonNull Class<T> type) {
+        Object value = attributes.get(key);
+        return type.cast(value instanceof LazyAttribute lazy ? lazy.get(this, key) : value);
+    }
+
+    @Override
+    public void setAttribute(@NonNull String key, Object value) {
+        if (value == null) {
+            attributes.remove(key);
+        } else {
+            attributes.put(key, value);
+        }
+    }
+
+    @Override
+    public void setLazyAttribute(@NonNull String key, @NonNull Supplier<?> supplier) {
+        attributes.put(key, new LazyAttribute(supplier));
+    }
+
+    @Override
+    public boolean hasAttribute(@NonNull String key) {
+        return attributes.containsKey(key);
+    }
+
+    /**
+     * @return 被移除的值，尚未计算的延迟属性返回null（不触发计算）
+     */
+    @Override
+    public Object removeAttribute(@NonNull String key) {
+        return peek(attributes.remove(key));
+    }
+
+    @Override
+    public Map<String, Object> getAllAttributes() {
+        return attributeView;
+    }
+
+    // ================= TransactionManager =================
+
+    @Override
+    public void beginTransaction() {
+        synchronized (savepoints) {
+            if (!savepoints.isEmpty()) {
+                throw new IllegalStateException("Transaction already active in context [" + contextId + "]");
+            }
+            savepoints.push(new Savepoint(null, snapshot()));
+        }
+    }
+
+    @Override
+    public void commit() {
+        synchronized (savepoints) {
+            requireTransaction();
+            savepoints.clear();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        synchronized (savepoints) {
+            requireTransaction();
+            restore(savepoints.peekLast().attributes);
+            savepoints.clear();
+        }
+    }
+
+    @Override
+    public boolean isInTransaction() {
+        synchronized (savepoints) {
+            return !savepoints.isEmpty();
+        }
+    }
+
+    @Override
+    public String createSavepoint(@NonNull String name) {
+        synchronized (savepoints) {
+            requireTransaction();
+            String id = name + "-" + savepoints.size();
+            savepoints.push(new Savepoint(id, snapshot()));
+            return id;
+        }
+    }
+
+    @Override
+    public void rollbackToSavepoint(@NonNull String savepointId) {
+        synchronized (savepoints) {
+            requireTransaction();
+            while (!savepoints.isEmpty()) {
+                Savepoint top = savepoints.peek();
+                if (savepointId.equals(top.id)) {
+                    restore(top.attributes);
+                    return;
+                }
+                if (top.id == null) {
+                    break;
+                }
+                savepoints.pop();
+            }
+            throw new IllegalArgumentException("Unknown savepoint: " + savepointId);
+        }
+    }
+
+    // ================= ExecutionControl =================
+
+    @Override
+    public void requestInterrupt() {
+        this.interrupted = true;
+    }
+
+    @Override
+    public boolean isInterrupted() {
+        return interrupted || (parent != null && parent.isInterrupted());
+    }
+
+    @Override
+    public void setTimeout(long timeout, @NonNull TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be > 0");
+        }
+        this.deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    @Override
+    public boolean isTimeout() {
+        long deadline = deadlineNanos;
+        return (deadline != 0 && System.nanoTime() - deadline >= 0) || (parent != null && parent.isTimeout());
+    }
+
+    /**
+     * 获取剩余时间
+     *
+     * @return 剩余毫秒数（与父级剩余时间取较小值）；均未设置超时返回 {@link Long#MAX_VALUE}，已超时返回0
+     */
+    @Override
+    public long getRemainingTime() {
+        long deadline = deadlineNanos;
+        long remaining = deadline == 0
+                ? Long.MAX_VALUE
+                : Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        return parent == null ? remaining : Math.min(remaining, parent.getRemainingTime());
+    }
+
+    // ================= ResultHolder =================
+
+    @Override
+    public void setResult(R result) {
+        this.result = result;
+    }
+
+    @Override
+    public R getResult() {
+        return result;
+    }
+
+    @Override
+    public boolean hasResult() {
+        return result != null;
+    }
+
+    @Override
+    public void clearResult() {
+        this.result = null;
+    }
+
+    // ================= CompletePipelineContext =================
+
+    @Override
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultPipelineContext[" + contextId + ", " + state.get() + "]";
+    }
+
+    private void requireTransaction() {
+        if (savepoints.isEmpty()) {
+            throw new IllegalStateException("No active transaction in context [" + contextId + "]");
+        }
+    }
+
+    private Map<String, Object> snapshot() {
+        return new LinkedHashMap<>(attributes);
+    }
+
+    private void restore(Map<String, Object> snapshot) {
+        attributes.clear();
+        attributes.putAll(snapshot);
+    }
+
+    /**
+     * 释放属于本上下文的堆外载荷（其他值忽略）
+     */
+    private void releaseIfOwned(Object value) {
+        if (value instanceof OffHeapPayload payload && payload.isOwnedBy(this)) {
+            payload.release();
+        }
+    }
+
+    /**
+     * 取属性的当前值，延迟属性未计算时返回null（不触发计算）
+     */
+    private static Object peek(Object value) {
+        return value instanceof LazyAttribute lazy ? lazy.peek() : value;
+    }
+
+    /**
+     * 事务保存点
+     */
+    private record Savepoint(String id, Map<String, Object> attributes) {
+    }
+
+    /**
+     * 延迟属性持有者（计算成功后只保留结果）
+     * <p>
+     * 上下文关闭后拒绝计算（关闭时只能释放已计算的结果）；计算与关闭并发时由计算方释放结果中的载荷。
+     */
+    private static final class LazyAttribute {
+
+        private Supplier<?> supplier;
+
+        /**
+         * 正在计算的线程，用于发现计算函数读取自身导致的循环
+         */
+        private Thread computing;
+
+        private volatile boolean computed;
+
+        private volatile Object value;
+
+        private LazyAttribute(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        private Object get(DefaultPipelineContext<?> owner, String key) {
+            if (computed) {
+                return value;
+            }
+            synchronized (this) {
+                if (!computed) {
+                    if (computing == Thread.currentThread()) {
+                        throw new IllegalStateException("Circular computation of lazy attribute [" + key + "]");
+                    }
+                    if (owner.isClosed()) {
+                        throw new IllegalStateException("Context [" + owner.contextId + "] is closed, lazy attribute ["
+                                + key + "] can no longer be computed");
+                    }
+                    computing = Thread.currentThread();
+                    try {
+                        value = supplier.get();
+                        computed = true;
+                        supplier = null;
+                    } finally {
+                        computing = null;
+                    }
+                    if (owner.isClosed()) {
+                        // 计算期间上下文被关闭，关闭时未能看到本次结果，由此处补充释放
+                        owner.releaseIfOwned(value);
+                    }
+                }
+                return value;
+            }
+        }
+
+        private Object peek() {
+            return computed ? value : null;
+        }
+    }
+
+    /**
+     * 属性只读视图：跳过尚未计算（或计算结果为null）的延迟属性
+     */
+    private final class ComputedAttributeView extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return peek(attributes.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> raw = attributes.entrySet().iterator();
+                    return new Iterator<>() {
+
+                        private Entry<String, Object> next = advance();
+
+                        private Entry<String, Object> advance() {
+                            while (raw.hasNext()) {
+                                Entry<String, Object> entry = raw.next();
+                                Object value = peek(entry.getValue());
+                                if (value != null) {
+                                    return new SimpleImmutableEntry<>(entry.getKey(), value);
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next == null) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> current = next;
+                            next = advance();
+                            return current;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (Object value : attributes.values()) {
+                        if (peek(value) != null) {
+                            size++;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+}
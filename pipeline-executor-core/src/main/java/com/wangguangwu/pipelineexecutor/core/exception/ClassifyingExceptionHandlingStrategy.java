@@ -0,0 +1,98 @@
+package com.wangguangwu.pipelineexecutor.core.exception;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingResult;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按异常类型分类的异常处理策略
+ * <p>
+ * 规则按异常类型声明，匹配时沿异常的类继承链查找最近的规则，类继承链未命中时
+ * 再按声明顺序匹配接口类型规则，均未命中则返回默认结果。
+ * 每个异常类型的分类结果通过 {@link ClassValue} 缓存，稳态下的失败路径只需一次查表。
+ * <p>
+ * 失败多为预期分支时，可开启 {@code stacklessFailures}，框架为所有处理器创建的失败异常均不采集堆栈。
+ *
+ * @author wangguangwu
+ */
+public class ClassifyingExceptionHandlingStrategy implements ExceptionHandlingStrategy {
+
+    /**
+     * 分类规则（不可变）
+     */
+    private final Map<Class<? extends Throwable>, ExceptionHandlingResult> rules;
+
+    /**
+     * 未命中任何规则时的结果
+     */
+    private final ExceptionHandlingResult defaultResult;
+
+    /**
+     * 是否为所有处理器创建不采集堆栈的失败异常
+     */
+    private final boolean stacklessFailures;
+
+    /**
+     * 异常类型 → 分类结果缓存
+     */
+    private final ClassValue<ExceptionHandlingResult> classification = new ClassValue<>() {
+        @Override
+        protected ExceptionHandlingResult computeValue(Class<?> type) {
+            return classify(type);
+        }
+    };
+
+    /**
+     * @param rules         异常类型到处理结果的映射（非空，构造后复制，不受外部修改影响）
+     * @param defaultResult 未命中时的处理结果（非空）
+     */
+    public ClassifyingExceptionHandlingStrategy(@NonNull Map<Class<? extends Throwable>, ExceptionHandlingResult> rules,
+                                                @NonNull ExceptionHandlingResult defaultResult) {
+        this(rules, defaultResult, false);
+    }
+
+    /**
+     * @param rules             异常类型到处理结果的映射（非空，构造后复制，不受外部修改影响）
+     * @param defaultResult     未命中时的处理结果（非空）
+     * @param stacklessFailures true 时为所有处理器创建不采集堆栈的失败异常
+     */
+    public ClassifyingExceptionHandlingStrategy(@NonNull Map<Class<? extends Throwable>, ExceptionHandlingResult> rules,
+                                                @NonNull ExceptionHandlingResult defaultResult,
+                                                boolean stacklessFailures) {
+        this.rules = new LinkedHashMap<>(rules);
+        this.defaultResult = defaultResult;
+        this.stacklessFailures = stacklessFailures;
+    }
+
+    @Override
+    public ExceptionHandlingResult handleException(@NonNull PipelineContext context,
+                                                   @NonNull Exception ex,
+                                                   @NonNull PipelineHandler handler) {
+        return classification.get(ex.getClass());
+    }
+
+    @Override
+    public boolean isStacklessFailure(@NonNull PipelineHandler handler) {
+        return stacklessFailures;
+    }
+
+    private ExceptionHandlingResult classify(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            ExceptionHandlingResult result = rules.get(current);
+            if (result != null) {
+                return result;
+            }
+        }
+        for (Map.Entry<Class<? extends Throwable>, ExceptionHandlingResult> rule : rules.entrySet()) {
+            if (rule.getKey().isAssignableFrom(type)) {
+                return rule.getValue();
+            }
+        }
+        return defaultResult;
+    }
+}
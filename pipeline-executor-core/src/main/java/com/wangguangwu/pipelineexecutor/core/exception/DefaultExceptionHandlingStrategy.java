@@ -0,0 +1,22 @@
+package com.wangguangwu.pipelineexecutor.core.exception;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingResult;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import lombok.NonNull;
+
+/**
+ * 默认异常处理策略：任何异常均中断执行
+ *
+ * @author wangguangwu
+ */
+public class DefaultExceptionHandlingStrategy implements ExceptionHandlingStrategy {
+
+    @Override
+    public ExceptionHandlingResult handleException(@NonNull PipelineContext context,
+                                                   @NonNull Exception ex,
+                                                   @NonNull PipelineHandler handler) {
+        return ExceptionHandlingResult.FAIL_FAST;
+    }
+}
@@ -0,0 +1,1276 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.budget.LatencyBudgetPolicy;
+import com.wangguangwu.pipelineexecutor.core.catalog.PipelineCatalog;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.jfr.HandlerExecutionEvent;
+import com.wangguangwu.pipelineexecutor.core.jfr.HandlerRetryEvent;
+import com.wangguangwu.pipelineexecutor.core.jfr.HandlerTimeoutEvent;
+import com.wangguangwu.pipelineexecutor.core.jfr.PipelineEvents;
+import com.wangguangwu.pipelineexecutor.core.jfr.PipelineRunEvent;
+import com.wangguangwu.pipelineexecutor.core.jfr.QueueWaitEvent;
+import com.wangguangwu.pipelineexecutor.core.registry.PinnableHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.ExecutionControl;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.ResultHolder;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingResult;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineExecutor;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 默认管道执行器
+ * <p>
+ * 按 {@link HandlerRegistry#getHandlers()} 编译出的 {@link ExecutionPlan} 依次执行处理器，支持：
+ * <ul>
+ *   <li>处理器级重试（{@link PipelineHandler#getRetryPolicy()}）</li>
+ *   <li>处理器级超时（同步执行下为事后判定）与管道级截止时间</li>
+ *   <li>通过 {@link PipelineListener#onError} 的返回值或 {@link ExceptionHandlingStrategy} 决定异常后的走向</li>
+ *   <li>基于历史延迟的时间预算预判（{@link LatencyBudgetPolicy}，可选）</li>
+ *   <li>JFR 事件埋点（管道执行、处理器执行、重试、超时、排队等待）</li>
+ * </ul>
+ * JFR 事件仅在 {@code shouldCommit()} 为 true 时填充字段并提交，未开启录制时开销可忽略。
+ * <p>
+ * 同步执行的稳态路径不分配对象：执行计划与监听器均以数组保存并按下标遍历，
+ * 执行计划仅在注册中心快照变化时重新编译，无结果数据时返回共享的
+ * {@link DefaultPipelineResult#EMPTY_SUCCESS}。
+ * <p>
+ * 以 {@link PipelineCatalog} 构造时，处理器取自目录的共享注册中心，
+ * 每次执行按上下文选择的变体使用目录中缓存的执行计划。
+ * <p>
+ * 异步任务经 {@link PipelineDispatcher} 调度；调度器拒绝时不执行任何处理器，
+ * 触发 {@link PipelineListener#onRejected} 并以 {@link PipelineStatus#CANCELLED} 结果完成。
+ * <p>
+ * 异步执行遇到 {@link AsyncPipelineHandler} 时不阻塞线程：在其返回的阶段上注册续接，
+ * 阶段完成、超时与重试退避到期后都经 {@link PipelineDispatcher#dispatchContinuation} 续接，后续处理器不在阶段的完成线程或定时线程上执行；
+ * 超时与退避定时器在阶段结束或管道取消时撤销。续接被调度器拒绝时管道不再执行任何处理器代码，
+ * 在当前线程触发 {@link PipelineListener#onRejected} 与 afterPipeline 后以 {@link PipelineStatus#CANCELLED} 结果完成。
+ * <p>
+ * 异步执行返回的 future 被调用方取消或整体超时时，取消向运行中的管道传播：
+ * 上下文的 {@link ExecutionControl} 被标记为中断，正在执行的同步处理器所在线程被中断，
+ * 进行中的非阻塞处理器阶段被取消，等待中的重试不再发起；被打断的处理器以
+ * {@link PipelineStatus#CANCELLED} 状态的 {@link PipelineException} 调用 postHandle，
+ * 后续处理器不再执行，afterPipeline 照常触发。处理器忽略中断时，在其返回后停止。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class DefaultPipelineExecutor implements PipelineExecutor {
+
+    private static final PipelineListener[] NO_LISTENERS = new PipelineListener[0];
+
+    /**
+     * 非阻塞处理器超时与重试退避的定时器（单个守护线程，只负责到期投递，不执行续接）
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    private final HandlerRegistry registry;
+
+    /**
+     * 支持固定快照的注册中心（registry 不支持时为null）
+     */
+    private final PinnableHandlerRegistry pinnableRegistry;
+
+    /**
+     * 多管道目录（null表示按注册中心的全部处理器执行）
+     */
+    private final PipelineCatalog catalog;
+
+    private final ExceptionHandlingStrategy exceptionHandlingStrategy;
+
+    private final PipelineDispatcher dispatcher;
+
+    /**
+     * 时间预算策略（null表示不启用）
+     */
+    private final LatencyBudgetPolicy latencyBudgetPolicy;
+
+    /**
+     * 监听器（写时复制数组）
+     */
+    private volatile PipelineListener[] listeners = NO_LISTENERS;
+
+    /**
+     * 最近一次编译的执行计划
+     */
+    private volatile ExecutionPlan plan = ExecutionPlan.EMPTY;
+
+    public DefaultPipelineExecutor(@NonNull HandlerRegistry registry) {
+        this(registry, new DefaultExceptionHandlingStrategy(), ForkJoinPool.commonPool());
+    }
+
+    public DefaultPipelineExecutor(@NonNull HandlerRegistry registry,
+                                   @NonNull ExceptionHandlingStrategy exceptionHandlingStrategy,
+                                   @NonNull Executor asyncExecutor) {
+        this(registry, exceptionHandlingStrategy, asyncExecutor, null);
+    }
+
+    /**
+     * @param latencyBudgetPolicy 时间预算策略（可为null，表示不按历史延迟预判剩余时间）
+     */
+    public DefaultPipelineExecutor(@NonNull HandlerRegistry registry,
+                                   @NonNull ExceptionHandlingStrategy exceptionHandlingStrategy,
+                                   @NonNull Executor asyncExecutor,
+                                   LatencyBudgetPolicy latencyBudgetPolicy) {
+        this(registry, exceptionHandlingStrategy, new ExecutorDispatcher(asyncExecutor), latencyBudgetPolicy);
+    }
+
+    /**
+     * @param dispatcher          异步任务调度器
+     * @param latencyBudgetPolicy 时间预算策略（可为null）
+     */
+    public DefaultPipelineExecutor(@NonNull HandlerRegistry registry,
+                                   @NonNull ExceptionHandlingStrategy exceptionHandlingStrategy,
+                                   @NonNull PipelineDispatcher dispatcher,
+                                   LatencyBudgetPolicy latencyBudgetPolicy) {
+        this(registry, null, exceptionHandlingStrategy, dispatcher, latencyBudgetPolicy);
+    }
+
+    /**
+     * @param catalog             多管道目录（按上下文选择变体）
+     * @param dispatcher          异步任务调度器
+     * @param latencyBudgetPolicy 时间预算策略（可为null）
+     */
+    public DefaultPipelineExecutor(@NonNull PipelineCatalog catalog,
+                                   @NonNull ExceptionHandlingStrategy exceptionHandlingStrategy,
+                                   @NonNull PipelineDispatcher dispatcher,
+                                   LatencyBudgetPolicy latencyBudgetPolicy) {
+        this(catalog.getRegistry(), catalog, exceptionHandlingStrategy, dispatcher, latencyBudgetPolicy);
+    }
+
+    private DefaultPipelineExecutor(HandlerRegistry registry,
+                                    PipelineCatalog catalog,
+                                    ExceptionHandlingStrategy exceptionHandlingStrategy,
+                                    PipelineDispatcher dispatcher,
+                                    LatencyBudgetPolicy latencyBudgetPolicy) {
+        this.registry = registry;
+        this.pinnableRegistry = registry instanceof PinnableHandlerRegistry pinnable ? pinnable : null;
+        this.catalog = catalog;
+        this.exceptionHandlingStrategy = exceptionHandlingStrategy;
+        this.dispatcher = dispatcher;
+        this.latencyBudgetPolicy = latencyBudgetPolicy;
+    }
+
+    // ================= 同步执行 =================
+
+    @Override
+    public PipelineResult execute(@NonNull PipelineContext context) throws PipelineException {
+        return doExecute(context, 0L, false);
+    }
+
+    @Override
+    public PipelineResult execute(@NonNull PipelineContext context, long timeout, @NonNull TimeUnit unit)
+            throws PipelineException, TimeoutException {
+        long deadline = startDeadline(context, timeout, unit);
+        PipelineResult result = doExecute(context, deadline, false);
+        if (result instanceof DefaultPipelineResult r && r.getStatus() == PipelineStatus.TIMEOUT) {
+            throw new TimeoutException(r.getErrorMessage());
+        }
+        return result;
+    }
+
+    // ================= 异步执行 =================
+
+    @Override
+    public CompletableFuture<PipelineResult> executeAsync(@NonNull PipelineContext context) {
+        return submit(context, 0L);
+    }
+
+    @Override
+    public CompletableFuture<PipelineResult> executeAsync(@NonNull PipelineContext context, long timeout, @NonNull TimeUnit unit) {
+        long deadline = startDeadline(context, timeout, unit);
+        return submit(context, deadline).orTimeout(timeout, unit);
+    }
+
+    // ================= 执行控制 =================
+
+    @Override
+    public synchronized <T> void addListener(@NonNull PipelineListener listener) {
+        PipelineListener[] current = listeners;
+        PipelineListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    @Override
+    public synchronized boolean removeListener(PipelineListener listener) {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(listener)) {
+                PipelineListener[] updated = new PipelineListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ================= 内部实现 =================
+
+    private CompletableFuture<PipelineResult> submit(PipelineContext context, long deadline) {
+        CompletableFuture<PipelineResult> future = new CompletableFuture<>();
+        QueueWaitEvent waitEvent = PipelineEvents.beginQueueWait();
+        try {
+            dispatcher.dispatch(context, new PipelineDispatcher.Task() {
+                @Override
+                public void run() {
+                    PipelineEvents.commitQueueWait(waitEvent, context);
+                    if (future.isDone()) {
+                        // 排队期间已超时或被调用方取消：管道不会执行，按拒绝通知监听器
+                        fireRejected(context, "Pipeline cancelled before start");
+                        dispatcher.onRunComplete(context);
+                        return;
+                    }
+                    AsyncRun run = new AsyncRun(context, deadline, future);
+                    future.whenComplete((result, error) -> run.cancel());
+                    run.start();
+                }
+
+                @Override
+                public void reject(String reason) {
+                    // 已接收的任务被调度器放弃（如调度器关闭）
+                    rejectSubmit(context, future, reason);
+                    dispatcher.onRunComplete(context);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectSubmit(context, future, e.getMessage());
+        }
+        return future;
+    }
+
+    /**
+     * 拒绝不触达任何处理器，直接以 CANCELLED 结束
+     */
+    private void rejectSubmit(PipelineContext context, CompletableFuture<PipelineResult> future, String reason) {
+        fireRejected(context, reason);
+        future.complete(DefaultPipelineResult.failure(PipelineStatus.CANCELLED, reason, 0L));
+    }
+
+    private static long startDeadline(PipelineContext context, long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be > 0");
+        }
+        if (context instanceof ExecutionControl control) {
+            control.setTimeout(timeout, unit);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // 0 保留为“无截止时间”
+        return deadline == 0 ? 1 : deadline;
+    }
+
+    private PipelineResult doExecute(PipelineContext context, long deadline, boolean async) throws PipelineException {
+        PipelineRunEvent runEvent = PipelineEvents.beginRun();
+        long start = System.nanoTime();
+        PipelineStatus status = PipelineStatus.FAILED;
+        int executed = 0;
+        if (context.getState() == PipelineContext.ContextState.CREATED) {
+            context.activate();
+        }
+        List<PipelineHandler> handlers = pinnableRegistry != null ? pinnableRegistry.pin() : registry.getHandlers();
+        try {
+            fireBeforePipeline(context);
+            ExecutionPlan currentPlan = currentPlan(context, handlers);
+            String stopMessage = null;
+            for (int i = 0, size = currentPlan.size(); i < size; i++) {
+                PipelineHandler handler = currentPlan.get(i);
+                Admission admission = admit(context, handler, deadline);
+                if (admission == Admission.SKIP) {
+                    continue;
+                }
+                if (admission != Admission.RUN) {
+                    status = admission.stopStatus;
+                    stopMessage = admission.stopMessage(handler);
+                    break;
+                }
+                executed++;
+                if (executeHandler(context, handler, deadline) == HandlerOutcome.COMPLETE) {
+                    break;
+                }
+            }
+            if (stopMessage == null) {
+                status = PipelineStatus.SUCCESS;
+            }
+            return toResult(context, status, stopMessage, System.nanoTime() - start);
+        } catch (PipelineException e) {
+            status = e.getPipelineStatus() == null ? PipelineStatus.FAILED : e.getPipelineStatus();
+            throw e;
+        } finally {
+            if (pinnableRegistry != null) {
+                pinnableRegistry.unpin();
+            }
+            fireAfterPipeline(context, System.nanoTime() - start);
+            PipelineEvents.commitRun(runEvent, context, status, executed, async);
+        }
+    }
+
+    /**
+     * 获取与注册中心快照对应的执行计划，快照未变化时直接复用；配置了目录时使用所选变体的计划
+     */
+    private ExecutionPlan currentPlan(PipelineContext context, List<PipelineHandler> handlers)
+            throws PipelineException {
+        if (catalog != null) {
+            return catalog.planFor(context, handlers);
+        }
+        ExecutionPlan current = plan;
+        if (!current.isCompiledFrom(handlers)) {
+            current = ExecutionPlan.compile(handlers);
+            plan = current;
+        }
+        return current;
+    }
+
+    /**
+     * 执行处理器前的检查：中断与超时、启用状态、时间预算、preHandle、监听器
+     */
+    private Admission admit(PipelineContext context, PipelineHandler handler, long deadline) {
+        PipelineStatus interruption = checkInterruption(context, deadline);
+        if (interruption != null) {
+            return interruption == PipelineStatus.TIMEOUT ? Admission.TIMED_OUT : Admission.INTERRUPTED;
+        }
+        if (!handler.isEnabled()) {
+            return Admission.SKIP;
+        }
+        if (latencyBudgetPolicy != null && !fitsBudget(context, handler, deadline)) {
+            return handler.isOptional() ? Admission.SKIP : Admission.OVER_BUDGET;
+        }
+        if (!handler.preHandle(context)) {
+            return Admission.REJECTED_BY_PRE_HANDLE;
+        }
+        return fireHandlerStart(context, handler) ? Admission.RUN : Admission.SKIP;
+    }
+
+    private static PipelineResult toResult(PipelineContext context, PipelineStatus status,
+                                           String stopMessage, long elapsedNanos) {
+        if (stopMessage != null) {
+            return DefaultPipelineResult.failure(status, stopMessage, elapsedNanos);
+        }
+        Object data = resultOf(context);
+        return data == null ? DefaultPipelineResult.EMPTY_SUCCESS : DefaultPipelineResult.success(elapsedNanos, data);
+    }
+
+    /**
+     * 判断处理器的预测耗时能否在剩余时间内完成
+     */
+    private boolean fitsBudget(PipelineContext context, PipelineHandler handler, long deadline) {
+        long remaining = remainingNanos(context, deadline);
+        if (remaining == Long.MAX_VALUE) {
+            return true;
+        }
+        long predicted = latencyBudgetPolicy.predictNanos(handler);
+        if (predicted <= remaining) {
+            return true;
+        }
+        PipelineEvents.timeout(context, handler, HandlerTimeoutEvent.SCOPE_BUDGET,
+                TimeUnit.NANOSECONDS.toMillis(Math.max(0L, remaining)), predicted);
+        return false;
+    }
+
+    /**
+     * 剩余时间预算（纳秒），无截止时间时返回 {@link Long#MAX_VALUE}
+     */
+    private static long remainingNanos(PipelineContext context, long deadline) {
+        long remaining = deadline == 0 ? Long.MAX_VALUE : deadline - System.nanoTime();
+        if (context instanceof ExecutionControl control) {
+            long remainingMillis = control.getRemainingTime();
+            if (remainingMillis != Long.MAX_VALUE) {
+                remaining = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 执行单个处理器（含重试、超时判定与异常策略）
+     */
+    private HandlerOutcome executeHandler(PipelineContext context, PipelineHandler handler, long deadline)
+            throws PipelineException {
+        HandlerExecutionEvent event = PipelineEvents.beginHandler();
+        long handlerStart = System.nanoTime();
+        PipelineHandler.RetryPolicy retryPolicy = handler.getRetryPolicy();
+        int maxAttempts = maxAttempts(retryPolicy);
+        PipelineStatus status = PipelineStatus.FAILED;
+        Exception failure = null;
+        int attempt = 0;
+        try {
+            while (true) {
+                attempt++;
+                long attemptStart = System.nanoTime();
+                failure = invoke(context, handler, attemptStart);
+                long attemptElapsed = System.nanoTime() - attemptStart;
+                if (failure == null) {
+                    status = PipelineStatus.SUCCESS;
+                    onHandlerSuccess(context, handler, deadline, attemptStart, attemptElapsed);
+                    return HandlerOutcome.NEXT;
+                }
+                status = statusOf(failure);
+                if (!isCancelled(context)) {
+                    ExceptionHandlingResult decision =
+                            decide(context, handler, retryPolicy, attempt, maxAttempts, failure);
+                    if (!decision.shouldRetry() || attempt >= maxAttempts) {
+                        return conclude(context, handler, failure, decision, status);
+                    }
+                    if (backoff(context, handler, retryPolicy, attempt, failure)) {
+                        continue;
+                    }
+                }
+                PipelineException cancelled = abort(context, handler, failure);
+                status = PipelineStatus.CANCELLED;
+                failure = cancelled;
+                throw cancelled;
+            }
+        } finally {
+            finishHandler(event, context, handler, handlerStart, status, attempt, failure);
+        }
+    }
+
+    private void onHandlerSuccess(PipelineContext context, PipelineHandler handler, long deadline,
+                                  long attemptStart, long attemptElapsed) {
+        handler.postHandle(context, null);
+        fireHandlerComplete(context, handler, attemptElapsed);
+        recordPipelineOverrun(context, handler, deadline, attemptStart);
+    }
+
+    /**
+     * 通知监听器并决定失败后的走向（监听器的决定优先，其次重试，最后异常策略）
+     */
+    private ExceptionHandlingResult decide(PipelineContext context, PipelineHandler handler,
+                                           PipelineHandler.RetryPolicy retryPolicy, int attempt, int maxAttempts,
+                                           Exception failure) {
+        PipelineListener.ErrorStrategy verdict = fireError(context, handler, failure);
+        if (verdict == PipelineListener.ErrorStrategy.CONTINUE) {
+            return ExceptionHandlingResult.CONTINUE;
+        }
+        if (verdict == PipelineListener.ErrorStrategy.TERMINATE) {
+            return ExceptionHandlingResult.FAIL_FAST;
+        }
+        boolean retry = verdict == PipelineListener.ErrorStrategy.RETRY || isRetryable(retryPolicy, failure);
+        return attempt < maxAttempts && retry
+                ? ExceptionHandlingResult.RETRY
+                : exceptionHandlingStrategy.handleException(context, failure, handler);
+    }
+
+    /**
+     * 不再重试的失败：执行 postHandle 并按策略结果返回走向或抛出异常
+     */
+    private HandlerOutcome conclude(PipelineContext context, PipelineHandler handler, Exception failure,
+                                    ExceptionHandlingResult decision, PipelineStatus status)
+            throws PipelineException {
+        handler.postHandle(context, failure);
+        // 已被策略消化的失败属于预期分支，仅在 debug 级别记录，避免堆栈打印开销
+        if (decision.shouldContinue()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Handler [{}] failed, continue with next handler: {}", handler.getName(), failure.toString());
+            }
+            return HandlerOutcome.NEXT;
+        }
+        if (decision == ExceptionHandlingResult.COMPLETE_WITH_DEFAULT) {
+            if (log.isDebugEnabled()) {
+                log.debug("Handler [{}] failed, complete pipeline with default result: {}", handler.getName(), failure.toString());
+            }
+            return HandlerOutcome.COMPLETE;
+        }
+        throw toPipelineException(handler, failure, status);
+    }
+
+    private void finishHandler(HandlerExecutionEvent event, PipelineContext context, PipelineHandler handler,
+                               long handlerStart, PipelineStatus status, int attempts, Exception failure) {
+        if (latencyBudgetPolicy != null) {
+            latencyBudgetPolicy.record(handler, System.nanoTime() - handlerStart);
+        }
+        PipelineEvents.commitHandler(event, context, handler, status, attempts,
+                status == PipelineStatus.SUCCESS ? null : failure);
+    }
+
+    /**
+     * 执行一次 handle 调用
+     *
+     * @return 失败时的异常，成功返回null
+     */
+    private Exception invoke(PipelineContext context, PipelineHandler handler, long attemptStart) {
+        try {
+            handler.handle(context);
+        } catch (Exception e) {
+            return e;
+        }
+        long timeout = handler.getTimeout();
+        if (timeout > 0) {
+            long elapsed = System.nanoTime() - attemptStart;
+            if (elapsed > TimeUnit.MILLISECONDS.toNanos(timeout)) {
+                return handlerTimeout(context, handler, timeout, elapsed);
+            }
+        }
+        return null;
+    }
+
+    private TimeoutException handlerTimeout(PipelineContext context, PipelineHandler handler,
+                                            long timeout, long elapsedNanos) {
+        PipelineEvents.timeout(context, handler, HandlerTimeoutEvent.SCOPE_HANDLER, timeout, elapsedNanos);
+        String message = "Handler [" + handler.getName() + "] exceeded timeout of " + timeout + "ms";
+        return isStackless(handler) ? new StacklessTimeoutException(message) : new TimeoutException(message);
+    }
+
+    /**
+     * 处理器或异常策略任一开启时，框架创建的失败异常不采集堆栈
+     */
+    private boolean isStackless(PipelineHandler handler) {
+        return handler.isStacklessFailure() || exceptionHandlingStrategy.isStacklessFailure(handler);
+    }
+
+    private static int maxAttempts(PipelineHandler.RetryPolicy retryPolicy) {
+        return retryPolicy == null ? 1 : Math.max(1, retryPolicy.getMaxAttempts());
+    }
+
+    private static long backoffMillis(PipelineHandler.RetryPolicy retryPolicy) {
+        return retryPolicy == null ? 0 : Math.max(0, retryPolicy.getBackoffPeriod());
+    }
+
+    private static PipelineStatus statusOf(Exception failure) {
+        return failure instanceof TimeoutException ? PipelineStatus.TIMEOUT : PipelineStatus.FAILED;
+    }
+
+    /**
+     * 重试前退避
+     *
+     * @return false 表示退避期间管道被取消
+     */
+    private boolean backoff(PipelineContext context, PipelineHandler handler, PipelineHandler.RetryPolicy retryPolicy,
+                            int attempt, Exception failure) {
+        long backoff = backoffMillis(retryPolicy);
+        HandlerRetryEvent event = PipelineEvents.beginRetry();
+        try {
+            if (backoff > 0) {
+                Thread.sleep(backoff);
+            }
+            return !isCancelled(context);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            PipelineEvents.commitRetry(event, context, handler, attempt, failure, backoff);
+        }
+    }
+
+    /**
+     * 管道是否已被取消（上下文被标记中断或当前线程被中断）
+     */
+    private static boolean isCancelled(PipelineContext context) {
+        return context instanceof ExecutionControl control && control.isInterrupted()
+                || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * 因取消而放弃处理器：通知监听器并以 CANCELLED 异常执行 postHandle
+     *
+     * @param cause 处理器因取消而抛出的异常（可为null）
+     * @return 应抛出的取消异常
+     */
+    private PipelineException abort(PipelineContext context, PipelineHandler handler, Throwable cause) {
+        PipelineException cancelled = cause instanceof PipelineException pe
+                && pe.getPipelineStatus() == PipelineStatus.CANCELLED
+                ? pe
+                : new PipelineException("Handler [" + handler.getName() + "] cancelled", cause,
+                handler.getName(), PipelineStatus.CANCELLED);
+        fireError(context, handler, cancelled);
+        handler.postHandle(context, cancelled);
+        return cancelled;
+    }
+
+    private static boolean isRetryable(PipelineHandler.RetryPolicy retryPolicy, Exception failure) {
+        if (retryPolicy == null) {
+            return false;
+        }
+        Class<? extends Throwable>[] retryable = retryPolicy.retryableExceptions();
+        if (retryable == null || retryable.length == 0) {
+            return true;
+        }
+        for (Class<? extends Throwable> type : retryable) {
+            if (type.isInstance(failure)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PipelineStatus checkInterruption(PipelineContext context, long deadline) {
+        if (context instanceof ExecutionControl control) {
+            if (control.isInterrupted()) {
+                return PipelineStatus.CANCELLED;
+            }
+            if (control.isTimeout()) {
+                return PipelineStatus.TIMEOUT;
+            }
+        }
+        if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+            return PipelineStatus.TIMEOUT;
+        }
+        return Thread.currentThread().isInterrupted() ? PipelineStatus.CANCELLED : null;
+    }
+
+    private static void recordPipelineOverrun(PipelineContext context, PipelineHandler handler,
+                                              long deadline, long attemptStart) {
+        long now = System.nanoTime();
+        if (deadline != 0 && now - deadline >= 0) {
+            PipelineEvents.timeout(context, handler, HandlerTimeoutEvent.SCOPE_PIPELINE,
+                    Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - attemptStart)), now - attemptStart);
+        }
+    }
+
+    private static Object resultOf(PipelineContext context) {
+        return context instanceof ResultHolder<?> holder ? holder.getResult() : null;
+    }
+
+    private PipelineException toPipelineException(PipelineHandler handler, Exception failure, PipelineStatus status) {
+        if (failure instanceof PipelineException pe) {
+            return pe;
+        }
+        if (isStackless(handler)) {
+            return PipelineException.stackless(failure, handler.getName(), status);
+        }
+        return new PipelineException(failure.getMessage(), failure, handler.getName(), status);
+    }
+
+    // ================= 监听器回调 =================
+
+    private void fireBeforePipeline(PipelineContext context) throws PipelineException {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            PipelineListener listener = current[i];
+            listener.beforePipeline(context);
+        }
+    }
+
+    private void fireAfterPipeline(PipelineContext context, long elapsedNanos) {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            PipelineListener listener = current[i];
+            try {
+                listener.afterPipeline(context, elapsedNanos);
+            } catch (RuntimeException e) {
+                log.warn("Listener afterPipeline failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return false 表示监听器要求跳过当前处理器
+     */
+    private boolean fireHandlerStart(PipelineContext context, PipelineHandler handler) {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            PipelineListener listener = current[i];
+            try {
+                listener.onHandlerStart(context, handler);
+            } catch (PipelineException e) {
+                log.info("Handler [{}] skipped by listener: {}", handler.getName(), e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fireHandlerComplete(PipelineContext context, PipelineHandler handler, long elapsedNanos) {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            PipelineListener listener = current[i];
+            try {
+                listener.onHandlerComplete(context, handler, elapsedNanos);
+            } catch (RuntimeException e) {
+                log.warn("Listener onHandlerComplete failed", e);
+            }
+        }
+    }
+
+    private void fireRejected(PipelineContext context, String reason) {
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            try {
+                current[i].onRejected(context, reason);
+            } catch (RuntimeException e) {
+                log.warn("Listener onRejected failed", e);
+            }
+        }
+    }
+
+    /**
+     * 通知全部监听器
+     *
+     * @return 按注册顺序第一个非 DEFAULT 的决定，都不干预时返回 DEFAULT
+     */
+    private PipelineListener.ErrorStrategy fireError(PipelineContext context, PipelineHandler handler,
+                                                     Throwable error) {
+        PipelineListener.ErrorStrategy verdict = PipelineListener.ErrorStrategy.DEFAULT;
+        PipelineListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            PipelineListener listener = current[i];
+            try {
+                PipelineListener.ErrorStrategy strategy = listener.onError(context, handler, error);
+                if (verdict == PipelineListener.ErrorStrategy.DEFAULT && strategy != null) {
+                    verdict = strategy;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Listener onError failed", e);
+            }
+        }
+        return verdict;
+    }
+
+    // ================= 异步续接 =================
+
+    /**
+     * 一次异步管道执行
+     * <p>
+     * 同步处理器在当前线程上依次执行；遇到 {@link AsyncPipelineHandler} 时挂起，
+     * 由其完成回调调用 {@link #proceed()} 从下一个处理器继续。
+     * 执行可能跨越多个线程，因此使用 {@link PinnableHandlerRegistry#pinDetached()} 固定快照。
+     */
+    private final class AsyncRun {
+
+        private final PipelineContext context;
+
+        private final long deadline;
+
+        private final CompletableFuture<PipelineResult> future;
+
+        private final PipelineRunEvent runEvent = PipelineEvents.beginRun();
+
+        private final long start = System.nanoTime();
+
+        private PinnableHandlerRegistry.Pin pin;
+
+        private ExecutionPlan plan;
+
+        /**
+         * 下一个待执行处理器的下标
+         */
+        private int next;
+
+        private int executed;
+
+        /**
+         * 正在执行同步处理器的线程（以 this 为锁，取消时据此中断）
+         */
+        private Thread runner;
+
+        /**
+         * 最近一个非阻塞处理器调用（以 this 为锁）
+         */
+        private AsyncHandlerCall activeCall;
+
+        private boolean finished;
+
+        private volatile boolean cancelled;
+
+        private AsyncRun(PipelineContext context, long deadline, CompletableFuture<PipelineResult> future) {
+            this.context = context;
+            this.deadline = deadline;
+            this.future = future;
+        }
+
+        private void start() {
+            try {
+                if (context.getState() == PipelineContext.ContextState.CREATED) {
+                    context.activate();
+                }
+                List<PipelineHandler> handlers;
+                if (pinnableRegistry != null) {
+                    pin = pinnableRegistry.pinDetached();
+                    handlers = pin.getHandlers();
+                } else {
+                    handlers = registry.getHandlers();
+                }
+                fireBeforePipeline(context);
+                plan = currentPlan(context, handlers);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            proceed();
+        }
+
+        private void proceed() {
+            try {
+                while (next < plan.size()) {
+                    PipelineHandler handler = plan.get(next++);
+                    if (future.isDone()) {
+                        // 调用方已取消或整体超时，不再启动后续处理器
+                        finish(PipelineStatus.CANCELLED, "Pipeline cancelled before handler [" + handler.getName() + "]");
+                        return;
+                    }
+                    Admission admission = admit(context, handler, deadline);
+                    if (admission == Admission.SKIP) {
+                        continue;
+                    }
+                    if (admission != Admission.RUN) {
+                        finish(admission.stopStatus, admission.stopMessage(handler));
+                        return;
+                    }
+                    executed++;
+                    if (handler instanceof AsyncPipelineHandler asyncHandler) {
+                        AsyncHandlerCall call = new AsyncHandlerCall(this, asyncHandler);
+                        synchronized (this) {
+                            activeCall = call;
+                        }
+                        call.attempt();
+                        return;
+                    }
+                    if (executeSync(handler) == HandlerOutcome.COMPLETE) {
+                        break;
+                    }
+                }
+                finish(PipelineStatus.SUCCESS, null);
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * 在当前线程上执行同步处理器，执行期间登记线程以便取消时中断
+         */
+        private HandlerOutcome executeSync(PipelineHandler handler) throws PipelineException {
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                return executeHandler(context, handler, deadline);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (cancelled) {
+                        // 清除取消时投递的中断，避免泄漏给线程上的后续任务
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * 向运行中的管道传播取消（管道已结束时不做任何事）
+         */
+        private void cancel() {
+            AsyncHandlerCall call;
+            synchronized (this) {
+                if (finished || cancelled) {
+                    return;
+                }
+                cancelled = true;
+                if (context instanceof ExecutionControl control) {
+                    control.requestInterrupt();
+                }
+                if (runner != null) {
+                    runner.interrupt();
+                }
+                call = activeCall;
+            }
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        private void finish(PipelineStatus status, String stopMessage) {
+            PipelineResult result;
+            try {
+                result = toResult(context, status, stopMessage, System.nanoTime() - start);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            release(status);
+            future.complete(result);
+        }
+
+        private void fail(Throwable error) {
+            release(error instanceof PipelineException pe && pe.getPipelineStatus() != null
+                    ? pe.getPipelineStatus() : PipelineStatus.FAILED);
+            future.completeExceptionally(error);
+        }
+
+        /**
+         * 续接被调度器拒绝：不再执行处理器代码，以 CANCELLED 结果结束管道
+         */
+        private void reject(String reason) {
+            cancelled = true;
+            fireRejected(context, reason);
+            release(PipelineStatus.CANCELLED);
+            future.complete(DefaultPipelineResult.failure(PipelineStatus.CANCELLED, reason, System.nanoTime() - start));
+        }
+
+        private void release(PipelineStatus status) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+            if (pin != null) {
+                pin.release();
+            }
+            fireAfterPipeline(context, System.nanoTime() - start);
+            PipelineEvents.commitRun(runEvent, context, status, executed, true);
+            dispatcher.onRunComplete(context);
+        }
+    }
+
+    /**
+     * 单个非阻塞处理器的一次调用（含重试）
+     */
+    private final class AsyncHandlerCall {
+
+        private final AsyncRun run;
+
+        private final AsyncPipelineHandler handler;
+
+        private final HandlerExecutionEvent event = PipelineEvents.beginHandler();
+
+        private final long handlerStart = System.nanoTime();
+
+        private final PipelineHandler.RetryPolicy retryPolicy;
+
+        private final int maxAttempts;
+
+        private int attempt;
+
+        /**
+         * 当前尝试的结果（超时、取消与阶段完成三者竞争完成）
+         */
+        private volatile CompletableFuture<Void> call;
+
+        private volatile CompletionStage<Void> stage;
+
+        /**
+         * 退避等待中的重试：定时器到期与取消只有一方能领取
+         */
+        private final AtomicBoolean retryPending = new AtomicBoolean();
+
+        /**
+         * 等待中的重试定时器（取消时撤销）
+         */
+        private volatile ScheduledFuture<?> retryTimer;
+
+        private AsyncHandlerCall(AsyncRun run, AsyncPipelineHandler handler) {
+            this.run = run;
+            this.handler = handler;
+            this.retryPolicy = handler.getRetryPolicy();
+            this.maxAttempts = maxAttempts(retryPolicy);
+        }
+
+        private void attempt() {
+            attempt++;
+            long attemptStart = System.nanoTime();
+            CompletableFuture<Void> current = new CompletableFuture<>();
+            call = current;
+            stage = null;
+            if (run.cancelled) {
+                // 与 cancel() 先写后读的顺序配对，二者至少一方能发现对方
+                current.completeExceptionally(new CancellationException("Pipeline cancelled"));
+            } else {
+                try {
+                    CompletionStage<Void> pending = handler.handleAsync(run.context);
+                    stage = pending;
+                    pending.whenComplete((ignored, error) -> {
+                        if (error == null) {
+                            current.complete(null);
+                        } else {
+                            current.completeExceptionally(error);
+                        }
+                    });
+                } catch (Exception e) {
+                    current.completeExceptionally(e);
+                }
+            }
+            if (current.isDone()) {
+                // 阶段在 handleAsync 返回前已完成，仍在当前线程上继续
+                onAttemptComplete(attemptStart, failureOf(current));
+                return;
+            }
+            long timeout = handler.getTimeout();
+            ScheduledFuture<?> timer = timeout <= 0 ? null : TIMER.schedule(() -> {
+                if (!current.isDone()) {
+                    current.completeExceptionally(
+                            handlerTimeout(run.context, handler, timeout, System.nanoTime() - attemptStart));
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            current.whenComplete((ignored, error) -> {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                continueWith(() -> onAttemptComplete(attemptStart, error));
+            });
+        }
+
+        private void onAttemptComplete(long attemptStart, Throwable error) {
+            long attemptElapsed = System.nanoTime() - attemptStart;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause != null) {
+                // 超时或取消时阶段可能仍在进行
+                cancelStage(stage);
+            }
+            if (cause != null && run.cancelled) {
+                abandon(cause);
+                return;
+            }
+            if (cause != null && !(cause instanceof Exception)) {
+                finishHandler(event, run.context, handler, handlerStart, PipelineStatus.FAILED, attempt, null);
+                run.fail(cause);
+                return;
+            }
+            Exception failure = (Exception) cause;
+            PipelineStatus status = PipelineStatus.FAILED;
+            HandlerOutcome outcome;
+            try {
+                if (failure == null) {
+                    status = PipelineStatus.SUCCESS;
+                    onHandlerSuccess(run.context, handler, run.deadline, attemptStart, attemptElapsed);
+                    outcome = HandlerOutcome.NEXT;
+                } else {
+                    status = statusOf(failure);
+                    ExceptionHandlingResult decision =
+                            decide(run.context, handler, retryPolicy, attempt, maxAttempts, failure);
+                    if (decision.shouldRetry() && attempt < maxAttempts) {
+                        retry(failure);
+                        return;
+                    }
+                    outcome = conclude(run.context, handler, failure, decision, status);
+                }
+            } catch (Throwable e) {
+                finishHandler(event, run.context, handler, handlerStart, status, attempt, failure);
+                run.fail(e);
+                return;
+            }
+            finishHandler(event, run.context, handler, handlerStart, status, attempt, failure);
+            if (outcome == HandlerOutcome.COMPLETE) {
+                run.finish(PipelineStatus.SUCCESS, null);
+            } else {
+                run.proceed();
+            }
+        }
+
+        /**
+         * 退避期间不占用线程，到期后经调度器重新发起调用
+         */
+        private void retry(Exception failure) {
+            long backoff = backoffMillis(retryPolicy);
+            PipelineEvents.commitRetry(PipelineEvents.beginRetry(), run.context, handler, attempt, failure, backoff);
+            if (backoff <= 0) {
+                attempt();
+                return;
+            }
+            retryPending.set(true);
+            if (run.cancelled && retryPending.compareAndSet(true, false)) {
+                abandon(failure);
+                return;
+            }
+            retryTimer = TIMER.schedule(() -> {
+                if (retryPending.compareAndSet(true, false)) {
+                    continueWith(this::attempt);
+                }
+            }, backoff, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 取消当前调用：等待中的重试立即放弃，进行中的调用以取消结束
+         * <p>
+         * 只做标记与投递，postHandle、afterPipeline 等续接交给调度器，不占用发起取消的线程。
+         */
+        private void cancel() {
+            if (retryPending.compareAndSet(true, false)) {
+                ScheduledFuture<?> timer = retryTimer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                continueWith(() -> abandon(null));
+                return;
+            }
+            CompletableFuture<Void> current = call;
+            if (current != null) {
+                current.completeExceptionally(new CancellationException("Pipeline cancelled"));
+            }
+        }
+
+        /**
+         * 经调度器执行续接；被拒绝时不在当前线程（可能是定时线程或 IO 线程）上执行处理器代码，
+         * 记录处理器结果后以 CANCELLED 结束管道
+         */
+        private void continueWith(Runnable task) {
+            PipelineDispatcher.Task continuation = new PipelineDispatcher.Task() {
+                @Override
+                public void run() {
+                    task.run();
+                }
+
+                @Override
+                public void reject(String reason) {
+                    rejectContinuation(reason);
+                }
+            };
+            try {
+                dispatcher.dispatchContinuation(run.context, continuation);
+            } catch (RejectedExecutionException e) {
+                rejectContinuation(e.getMessage());
+            }
+        }
+
+        private void rejectContinuation(String cause) {
+            String reason = "Continuation after handler [" + handler.getName() + "] rejected: " + cause;
+            finishHandler(event, run.context, handler, handlerStart, PipelineStatus.CANCELLED, attempt, null);
+            run.reject(reason);
+        }
+
+        /**
+         * 因取消放弃处理器并结束管道
+         */
+        private void abandon(Throwable cause) {
+            PipelineException cancelled;
+            try {
+                cancelled = abort(run.context, handler, cause);
+            } catch (Throwable e) {
+                finishHandler(event, run.context, handler, handlerStart, PipelineStatus.CANCELLED, attempt, null);
+                run.fail(e);
+                return;
+            }
+            finishHandler(event, run.context, handler, handlerStart, PipelineStatus.CANCELLED, attempt, cancelled);
+            run.fail(cancelled);
+        }
+
+        private void cancelStage(CompletionStage<Void> pending) {
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.toCompletableFuture().cancel(false);
+            } catch (UnsupportedOperationException e) {
+                // 阶段不支持转换为 CompletableFuture 时无法取消，仅放弃其结果
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 阶段结束时撤销的定时任务立即移出队列，不再引用已结束的调用
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static Throwable failureOf(CompletableFuture<Void> done) {
+        try {
+            done.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 执行处理器前的检查结果
+     */
+    private enum Admission {
+        /**
+         * 执行处理器
+         */
+        RUN(null),
+
+        /**
+         * 跳过处理器（未启用、可选且预算不足、被监听器跳过）
+         */
+        SKIP(null),
+
+        /**
+         * 管道已被中断
+         */
+        INTERRUPTED(PipelineStatus.CANCELLED),
+
+        /**
+         * 管道已超时
+         */
+        TIMED_OUT(PipelineStatus.TIMEOUT),
+
+        /**
+         * 剩余时间预算不足以完成必选处理器
+         */
+        OVER_BUDGET(PipelineStatus.TIMEOUT),
+
+        /**
+         * preHandle 要求停止管道
+         */
+        REJECTED_BY_PRE_HANDLE(PipelineStatus.CANCELLED);
+
+        /**
+         * 停止管道时的最终状态
+         */
+        private final PipelineStatus stopStatus;
+
+        Admission(PipelineStatus stopStatus) {
+            this.stopStatus = stopStatus;
+        }
+
+        private String stopMessage(PipelineHandler handler) {
+            return switch (this) {
+                case INTERRUPTED, TIMED_OUT -> "Pipeline " + stopStatus + " before handler [" + handler.getName() + "]";
+                case OVER_BUDGET -> "Remaining budget insufficient for handler [" + handler.getName() + "]";
+                case REJECTED_BY_PRE_HANDLE -> "Pipeline stopped by preHandle of [" + handler.getName() + "]";
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * 不采集堆栈的超时异常
+     */
+    private static final class StacklessTimeoutException extends TimeoutException {
+
+        private static final long serialVersionUID = 1L;
+
+        StacklessTimeoutException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 单个处理器执行后的走向
+     */
+    private enum HandlerOutcome {
+        /**
+         * 继续执行下一个处理器
+         */
+        NEXT,
+
+        /**
+         * 以默认结果结束管道
+         */
+        COMPLETE
+    }
+}
@@ -0,0 +1,101 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import lombok.Getter;
+
+/**
+ * 默认管道执行结果（不可变，线程安全）
+ *
+ * @author wangguangwu
+ */
+public final class DefaultPipelineResult implements PipelineResult {
+
+    /**
+     * 无结果数据的成功结果（共享享元）
+     * <p>
+     * 不记录单次耗时，{@link #getElapsedNanos()} 固定返回 -1；
+     * 需要耗时请使用 {@code PipelineListener#afterPipeline} 或 JFR 事件。
+     */
+    public static final DefaultPipelineResult EMPTY_SUCCESS =
+            new DefaultPipelineResult(PipelineStatus.SUCCESS, null, -1L, null);
+
+    /**
+     * 管道最终状态（SUCCESS / FAILED / TIMEOUT / CANCELLED）
+     */
+    @Getter
+    private final PipelineStatus status;
+
+    private final String errorMessage;
+
+    private final long elapsedNanos;
+
+    private final Object data;
+
+    private DefaultPipelineResult(PipelineStatus status, String errorMessage, long elapsedNanos, Object data) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.elapsedNanos = elapsedNanos;
+        this.data = data;
+    }
+
+    /**
+     * 构建成功结果
+     *
+     * @param elapsedNanos 执行耗时（纳秒）
+     * @param data         结果数据（可为null）
+     */
+    public static DefaultPipelineResult success(long elapsedNanos, Object data) {
+        return new DefaultPipelineResult(PipelineStatus.SUCCESS, null, elapsedNanos, data);
+    }
+
+    /**
+     * 构建失败结果
+     *
+     * @param status       失败状态（FAILED / TIMEOUT / CANCELLED）
+     * @param errorMessage 错误消息
+     * @param elapsedNanos 执行耗时（纳秒）
+     */
+    public static DefaultPipelineResult failure(PipelineStatus status, String errorMessage, long elapsedNanos) {
+        return new DefaultPipelineResult(status, errorMessage, elapsedNanos, null);
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return status == PipelineStatus.SUCCESS;
+    }
+
+    @Override
+    public BasicStatus getErrorCode() {
+        return isSuccess() ? BasicStatus.SUCCESS : BasicStatus.FAILED;
+    }
+
+    @Override
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * 获取执行耗时（纳秒）
+     *
+     * @return 执行耗时；{@link #EMPTY_SUCCESS} 返回 -1
+     */
+    @Override
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public <T> T getData(Class<T> type) {
+        if (!isSuccess()) {
+            throw new IllegalStateException("Pipeline did not succeed: " + status);
+        }
+        return type.cast(data);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultPipelineResult[" + status + ", elapsedNanos=" + elapsedNanos
+                + (errorMessage == null ? "" : ", error=" + errorMessage) + "]";
+    }
+}
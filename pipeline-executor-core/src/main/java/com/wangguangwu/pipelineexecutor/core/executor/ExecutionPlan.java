@@ -0,0 +1,164 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 编译后的执行计划（不可变）
+ * <p>
+ * 将处理器快照按依赖关系（{@link PipelineHandler#getDependsOn()} / {@link PipelineHandler#getDependentBy()}）
+ * 做拓扑排序，无依赖约束时保持原有的 order 顺序。快照本身已满足全部依赖约束时（例如按编译期索引注册、
+ * order 与依赖一致的处理器）直接沿用，只做一次线性校验。结果保存为数组，执行时按下标遍历，
+ * 稳态下不产生迭代器等临时对象。
+ *
+ * @author wangguangwu
+ */
+public final class ExecutionPlan {
+
+    /**
+     * 空执行计划
+     */
+    public static final ExecutionPlan EMPTY = new ExecutionPlan(List.of(), new PipelineHandler[0]);
+
+    /**
+     * 编译来源（用于按引用判断快照是否变化）
+     */
+    private final List<PipelineHandler> source;
+
+    /**
+     * 拓扑排序后的处理器
+     */
+    private final PipelineHandler[] handlers;
+
+    private ExecutionPlan(List<PipelineHandler> source, PipelineHandler[] handlers) {
+        this.source = source;
+        this.handlers = handlers;
+    }
+
+    /**
+     * 编译执行计划
+     * <p>
+     * 依赖未注册的处理器名称会被忽略；存在循环依赖时抛出异常。
+     *
+     * @param handlers 按 order 排好序的处理器快照（非空）
+     * @return 执行计划
+     * @throws PipelineException 存在循环依赖时抛出
+     */
+    public static ExecutionPlan compile(@NonNull List<PipelineHandler> handlers) throws PipelineException {
+        int size = handlers.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+        Map<String, Integer> indexByName = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexByName.put(handlers.get(i).getName(), i);
+        }
+        if (isDependencyOrdered(handlers, indexByName)) {
+            // 已是合法拓扑序时，按下标优先的拓扑排序结果与原顺序相同
+            return new ExecutionPlan(handlers, handlers.toArray(new PipelineHandler[0]));
+        }
+        List<List<Integer>> successors = new ArrayList<>(size);
+        int[] inDegree = new int[size];
+        for (int i = 0; i < size; i++) {
+            successors.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            PipelineHandler handler = handlers.get(i);
+            for (String dependency : handler.getDependsOn()) {
+                Integer from = indexByName.get(dependency);
+                if (from != null && from != i) {
+                    successors.get(from).add(i);
+                    inDegree[i]++;
+                }
+            }
+            for (String dependent : handler.getDependentBy()) {
+                Integer to = indexByName.get(dependent);
+                if (to != null && to != i) {
+                    successors.get(i).add(to);
+                    inDegree[to]++;
+                }
+            }
+        }
+
+        // 入度为0的处理器按原始下标（即 order 顺序）出队，保证无依赖时顺序不变
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        PipelineHandler[] sorted = new PipelineHandler[size];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int current = ready.poll();
+            sorted[count++] = handlers.get(current);
+            for (int next : successors.get(current)) {
+                if (--inDegree[next] == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        if (count < size) {
+            String cyclic = null;
+            for (int i = 0; i < size; i++) {
+                if (inDegree[i] > 0) {
+                    cyclic = handlers.get(i).getName();
+                    break;
+                }
+            }
+            throw new PipelineException("Circular dependency detected among handlers", cyclic, PipelineStatus.FAILED);
+        }
+        return new ExecutionPlan(handlers, sorted);
+    }
+
+    /**
+     * 判断快照顺序是否已满足全部依赖约束（前置依赖都在前、后置依赖都在后）
+     */
+    private static boolean isDependencyOrdered(List<PipelineHandler> handlers, Map<String, Integer> indexByName) {
+        for (int i = 0; i < handlers.size(); i++) {
+            PipelineHandler handler = handlers.get(i);
+            for (String dependency : handler.getDependsOn()) {
+                Integer from = indexByName.get(dependency);
+                if (from != null && from > i) {
+                    return false;
+                }
+            }
+            for (String dependent : handler.getDependentBy()) {
+                Integer to = indexByName.get(dependent);
+                if (to != null && to < i) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否由指定快照编译而来（按引用比较）
+     */
+    public boolean isCompiledFrom(List<PipelineHandler> handlers) {
+        return source == handlers;
+    }
+
+    /**
+     * 处理器数量
+     */
+    public int size() {
+        return handlers.length;
+    }
+
+    /**
+     * 获取指定位置的处理器
+     */
+    public PipelineHandler get(int index) {
+        return handlers[index];
+    }
+}
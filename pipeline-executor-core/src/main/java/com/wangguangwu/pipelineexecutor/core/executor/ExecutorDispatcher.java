@@ -0,0 +1,25 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 基于 {@link Executor} 的调度器，直接提交任务，不读取上下文
+ *
+ * @author wangguangwu
+ */
+public final class ExecutorDispatcher implements PipelineDispatcher {
+
+    private final Executor executor;
+
+    public ExecutorDispatcher(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void dispatch(PipelineContext context, Runnable task) {
+        executor.execute(task);
+    }
+}
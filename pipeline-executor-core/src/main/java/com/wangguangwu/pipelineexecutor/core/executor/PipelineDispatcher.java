@@ -0,0 +1,111 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步管道调度器
+ * <p>
+ * 决定 {@code executeAsync} 提交的管道任务在何时、由哪个线程执行。
+ * 与 {@link java.util.concurrent.Executor} 不同，调度器可以读取上下文（如元数据中的优先级、租户），
+ * 据此实现排队、公平性或准入控制等策略。
+ * <p>
+ * 一次异步管道执行的调度过程：
+ * <ul>
+ *   <li>{@link #dispatch}：启动管道的任务</li>
+ *   <li>{@link #dispatchContinuation}：管道挂起后（非阻塞处理器阶段完成、超时、重试退避到期）的续接任务，可能有零到多次</li>
+ *   <li>{@link #onRunComplete}：经 {@link #dispatch} 接收的管道结束时恰好回调一次</li>
+ * </ul>
+ * 执行器提交的任务都实现 {@link Task}。调度器因关闭等原因放弃已接收的任务时，
+ * 应调用 {@link #reject(Runnable, String)} 而不是直接丢弃，否则对应的 future 永远不会完成。
+ *
+ * @author wangguangwu
+ */
+public interface PipelineDispatcher {
+
+    /**
+     * 调度一个管道任务
+     *
+     * @param context 管道上下文（非空，仅用于调度决策，不应在此修改）
+     * @param task    管道执行任务（非空）
+     * @throws RejectedExecutionException 调度器拒绝接收任务时抛出
+     */
+    void dispatch(PipelineContext context, Runnable task);
+
+    /**
+     * 调度已开始执行的管道的续接任务
+     * <p>
+     * 默认等同于 {@link #dispatch}；需要区分新管道与续接的调度器（如按键串行、准入控制）可覆盖。
+     *
+     * @param context 管道上下文（与启动管道时相同）
+     * @param task    续接任务（非空）
+     * @throws RejectedExecutionException 调度器拒绝接收任务时抛出，执行器随之以 CANCELLED 结束管道
+     */
+    default void dispatchContinuation(PipelineContext context, Runnable task) {
+        dispatch(context, task);
+    }
+
+    /**
+     * 经 {@link #dispatch} 接收的管道执行结束（包括未执行即放弃、被取消与续接被拒绝），默认无操作
+     *
+     * @param context 管道上下文
+     */
+    default void onRunComplete(PipelineContext context) {
+    }
+
+    /**
+     * 当前排队中的任务数
+     *
+     * @return 排队任务数，无法统计时返回-1
+     */
+    default int getQueuedCount() {
+        return -1;
+    }
+
+    /**
+     * 放弃已接收的任务：执行器提交的任务以 CANCELLED 结束对应的管道，其他任务被忽略
+     *
+     * @param task   已接收的任务
+     * @param reason 原因
+     */
+    static void reject(Runnable task, String reason) {
+        if (task instanceof Task pipelineTask) {
+            pipelineTask.reject(reason);
+        }
+    }
+
+    /**
+     * 包装任务（如附加计时），保留被包装任务的放弃能力
+     *
+     * @param task 被包装的任务
+     * @param body 实际执行的逻辑（通常在其中调用 {@code task.run()}）
+     * @return 包装后的任务
+     */
+    static Runnable wrap(Runnable task, Runnable body) {
+        return new Task() {
+            @Override
+            public void run() {
+                body.run();
+            }
+
+            @Override
+            public void reject(String reason) {
+                PipelineDispatcher.reject(task, reason);
+            }
+        };
+    }
+
+    /**
+     * 执行器提交的任务
+     */
+    interface Task extends Runnable {
+
+        /**
+         * 放弃任务，不执行任何处理器代码，以 CANCELLED 结束对应的管道
+         *
+         * @param reason 原因
+         */
+        void reject(String reason);
+    }
+}
@@ -0,0 +1,435 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineExecutor;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并重复并发执行的执行器装饰器（single-flight，线程安全）
+ * <p>
+ * 通过 {@link KeyExtractor} 从上下文得到去重键：
+ * <ul>
+ *   <li>同一键已有执行在进行中时，后到的调用不再执行管道，而是等待并共享首个执行（领头执行）的结果</li>
+ *   <li>开启结果缓存时，领头执行成功后的结果在有效期内直接返回给同键调用；失败结果不缓存</li>
+ *   <li>键为null的上下文直接交给被装饰的执行器</li>
+ * </ul>
+ * 跟随者的上下文不会被执行，也不会写入结果，调用方应只依赖返回的 {@link PipelineResult}。
+ * 异步调用（含领头调用）拿到的都是共享结果的独立副本，取消副本或副本超时只结束该调用自身的等待；
+ * 同键的所有调用都已放弃等待时，取消被装饰执行器上的执行（同步领头执行无法取消，会执行到结束）。
+ * 带超时的调用中，领头执行按领头调用的超时执行，跟随者只按自身超时等待。
+ * <p>
+ * 进行中的执行与缓存按键哈希分布在若干分段中，每个分段独立加锁，避免全局锁竞争。
+ *
+ * @author wangguangwu
+ */
+public class SingleFlightPipelineExecutor implements PipelineExecutor {
+
+    private final PipelineExecutor delegate;
+
+    private final KeyExtractor keyExtractor;
+
+    /**
+     * 成功结果的缓存时长（纳秒），0表示不缓存
+     */
+    private final long cacheTtlNanos;
+
+    private final Stripe[] stripes;
+
+    private final LongAdder executions = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * 以上下文ID为键、不缓存结果
+     *
+     * @param delegate 被装饰的执行器
+     */
+    public SingleFlightPipelineExecutor(@NonNull PipelineExecutor delegate) {
+        this(delegate, KeyExtractor.contextId(), 0L, TimeUnit.MILLISECONDS,
+                Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param delegate     被装饰的执行器
+     * @param keyExtractor 去重键提取函数
+     * @param cacheTtl     成功结果缓存时长（0表示不缓存）
+     * @param unit         时间单位
+     * @param stripeCount  分段数（>0，向上取整为2的幂）
+     */
+    public SingleFlightPipelineExecutor(@NonNull PipelineExecutor delegate, @NonNull KeyExtractor keyExtractor,
+                                        long cacheTtl, @NonNull TimeUnit unit, int stripeCount) {
+        if (cacheTtl < 0) {
+            throw new IllegalArgumentException("cacheTtl must be >= 0");
+        }
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be > 0");
+        }
+        this.delegate = delegate;
+        this.keyExtractor = keyExtractor;
+        this.cacheTtlNanos = unit.toNanos(cacheTtl);
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // ================= 同步执行 =================
+
+    @Override
+    public PipelineResult execute(@NonNull PipelineContext context) throws PipelineException {
+        String key = keyExtractor.keyOf(context);
+        if (key == null) {
+            return delegate.execute(context);
+        }
+        Join join = join(key);
+        if (!join.leader()) {
+            try {
+                return await(join.flight().result, 0L, null);
+            } catch (TimeoutException e) {
+                // 领头调用带超时而本调用不带超时
+                throw new PipelineException(e.getMessage(), e, null, PipelineStatus.TIMEOUT);
+            } finally {
+                leave(key, join.flight());
+            }
+        }
+        try {
+            PipelineResult result = delegate.execute(context);
+            land(key, join.flight(), result, null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            land(key, join.flight(), null, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public PipelineResult execute(@NonNull PipelineContext context, long timeout, @NonNull TimeUnit unit)
+            throws PipelineException, TimeoutException {
+        String key = keyExtractor.keyOf(context);
+        if (key == null) {
+            return delegate.execute(context, timeout, unit);
+        }
+        Join join = join(key);
+        if (!join.leader()) {
+            try {
+                return await(join.flight().result, timeout, unit);
+            } finally {
+                leave(key, join.flight());
+            }
+        }
+        try {
+            PipelineResult result = delegate.execute(context, timeout, unit);
+            land(key, join.flight(), result, null);
+            return result;
+        } catch (RuntimeException | Error | TimeoutException e) {
+            land(key, join.flight(), null, e);
+            throw e;
+        }
+    }
+
+    // ================= 异步执行 =================
+
+    @Override
+    public CompletableFuture<PipelineResult> executeAsync(@NonNull PipelineContext context) {
+        String key = keyExtractor.keyOf(context);
+        if (key == null) {
+            return delegate.executeAsync(context);
+        }
+        Join join = join(key);
+        if (join.leader()) {
+            launch(key, join.flight(), () -> delegate.executeAsync(context));
+        }
+        return follow(key, join.flight());
+    }
+
+    @Override
+    public CompletableFuture<PipelineResult> executeAsync(@NonNull PipelineContext context, long timeout,
+                                                          @NonNull TimeUnit unit) {
+        String key = keyExtractor.keyOf(context);
+        if (key == null) {
+            return delegate.executeAsync(context, timeout, unit);
+        }
+        Join join = join(key);
+        if (join.leader()) {
+            launch(key, join.flight(), () -> delegate.executeAsync(context, timeout, unit));
+        }
+        return follow(key, join.flight()).orTimeout(timeout, unit);
+    }
+
+    // ================= 执行控制 =================
+
+    @Override
+    public <T> void addListener(PipelineListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public boolean removeListener(PipelineListener listener) {
+        return delegate.removeListener(listener);
+    }
+
+    /**
+     * 实际执行（领头执行）次数
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * 合并到进行中执行的调用次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 命中结果缓存的调用次数
+     */
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * 进行中及缓存中的键数量（各分段之和，近似值）
+     */
+    public int getKeyCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.flights.size();
+            }
+        }
+        return count;
+    }
+
+    // ================= 内部实现 =================
+
+    /**
+     * 加入同键执行：已有进行中的执行或有效缓存时作为跟随者，否则登记为领头执行（均计为一个等待者）
+     */
+    private Join join(String key) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Flight flight = stripe.flights.get(key);
+            if (flight != null) {
+                if (!flight.result.isDone()) {
+                    coalesced.increment();
+                    flight.waiters++;
+                    return new Join(flight, false);
+                }
+                if (System.nanoTime() - flight.expiresAt < 0) {
+                    cacheHits.increment();
+                    flight.waiters++;
+                    return new Join(flight, false);
+                }
+            }
+            Flight created = new Flight();
+            created.waiters = 1;
+            stripe.flights.put(key, created);
+            executions.increment();
+            return new Join(created, true);
+        }
+    }
+
+    private void launch(String key, Flight flight, AsyncCall call) {
+        CompletableFuture<PipelineResult> future;
+        try {
+            future = call.start();
+        } catch (RuntimeException e) {
+            land(key, flight, null, e);
+            return;
+        }
+        flight.execution = future;
+        future.whenComplete((result, error) -> land(key, flight, result, error));
+    }
+
+    /**
+     * 为异步调用创建共享结果的副本，副本结束（含被取消、超时）时离开等待
+     */
+    private CompletableFuture<PipelineResult> follow(String key, Flight flight) {
+        CompletableFuture<PipelineResult> copy = flight.result.copy();
+        copy.whenComplete((result, error) -> leave(key, flight));
+        return copy;
+    }
+
+    /**
+     * 一个调用不再等待：最后一个等待者在执行结束前离开时，移除该执行并取消被装饰执行器上的执行
+     */
+    private void leave(String key, Flight flight) {
+        CompletableFuture<PipelineResult> abandoned;
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            if (--flight.waiters > 0 || flight.result.isDone() || flight.execution == null) {
+                return;
+            }
+            // 先移除再取消：之后的同键调用发起新的执行，而不是加入被取消的执行
+            stripe.flights.remove(key, flight);
+            abandoned = flight.execution;
+        }
+        abandoned.cancel(false);
+    }
+
+    /**
+     * 领头执行结束：成功结果按需缓存（有效期在共享结果完成前设置），其余情况立即移除
+     */
+    private void land(String key, Flight flight, PipelineResult result, Throwable error) {
+        if (error == null && result != null && result.isSuccess() && cacheTtlNanos > 0) {
+            flight.expiresAt = System.nanoTime() + cacheTtlNanos;
+            CompletableFuture.delayedExecutor(cacheTtlNanos, TimeUnit.NANOSECONDS, Runnable::run)
+                    .execute(() -> evict(key, flight));
+        } else {
+            evict(key, flight);
+        }
+        if (error == null) {
+            flight.result.complete(result);
+        } else {
+            flight.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        }
+    }
+
+    private void evict(String key, Flight flight) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.flights.remove(key, flight);
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * 跟随者同步等待共享结果
+     */
+    private static PipelineResult await(CompletableFuture<PipelineResult> shared, long timeout, TimeUnit unit)
+            throws TimeoutException {
+        try {
+            return unit == null ? shared.get() : shared.get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineException("Interrupted while waiting for coalesced execution", null,
+                    PipelineStatus.CANCELLED);
+        } catch (CancellationException e) {
+            throw new PipelineException("Coalesced execution was cancelled", null, PipelineStatus.CANCELLED);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof TimeoutException timeoutException) {
+                throw timeoutException;
+            }
+            throw new PipelineException(cause, null, PipelineStatus.FAILED);
+        }
+    }
+
+    /**
+     * 去重键提取函数
+     */
+    @FunctionalInterface
+    public interface KeyExtractor {
+
+        /**
+         * 提取去重键
+         *
+         * @param context 上下文
+         * @return 去重键，null 表示不参与合并
+         */
+        String keyOf(PipelineContext context);
+
+        /**
+         * 以上下文ID为键
+         */
+        static KeyExtractor contextId() {
+            return PipelineContext::getContextId;
+        }
+
+        /**
+         * 以指定属性值组合为键，任一属性缺失时不参与合并
+         *
+         * @param attributeNames 属性名（非空）
+         */
+        static KeyExtractor attributes(@NonNull String... attributeNames) {
+            if (attributeNames.length == 0) {
+                throw new IllegalArgumentException("attributeNames must not be empty");
+            }
+            String[] names = attributeNames.clone();
+            return context -> {
+                if (!(context instanceof AttributeStore store)) {
+                    return null;
+                }
+                StringBuilder key = new StringBuilder();
+                for (String name : names) {
+                    Object value = store.getAttribute(name, Object.class);
+                    if (value == null) {
+                        return null;
+                    }
+                    key.append(name).append('=').append(value).append('\u0000');
+                }
+                return key.toString();
+            };
+        }
+    }
+
+    @FunctionalInterface
+    private interface AsyncCall {
+        CompletableFuture<PipelineResult> start();
+    }
+
+    /**
+     * 一次领头执行
+     */
+    private static final class Flight {
+
+        /**
+         * 共享结果（只由领头执行完成，调用方拿到的都是其副本或同步等待结果）
+         */
+        private final CompletableFuture<PipelineResult> result = new CompletableFuture<>();
+
+        /**
+         * 被装饰执行器返回的 future（仅异步领头执行，用于全部等待者放弃时取消）
+         */
+        private volatile CompletableFuture<PipelineResult> execution;
+
+        /**
+         * 仍在等待结果的调用数（以所在分段为锁；同步领头调用不离开，其执行无法取消）
+         */
+        private int waiters;
+
+        /**
+         * 缓存失效时间（System.nanoTime），在 result 完成前写入
+         */
+        private volatile long expiresAt;
+    }
+
+    private record Join(Flight flight, boolean leader) {
+    }
+
+    /**
+     * 分段（以自身为锁）
+     */
+    private static final class Stripe {
+
+        private final Map<String, Flight> flights = new HashMap<>();
+    }
+}
@@ -0,0 +1,441 @@
+package com.wangguangwu.pipelineexecutor.core.handler;
+
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.spi.context.ExecutionControl;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineExecutor;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 拆分-汇聚（scatter-gather）复合处理器
+ * <p>
+ * 执行流程：
+ * <ul>
+ *   <li>通过 {@link Splitter} 把父上下文拆分为若干子上下文</li>
+ *   <li>在子执行器（通常基于独立的处理器注册中心）上并行执行子管道，同时执行的子管道数不超过并行度上限</li>
+ *   <li>全部完成后按拆分顺序交给 {@link Merger} 合并回父上下文，随后关闭子上下文，再完成处理器返回的阶段</li>
+ * </ul>
+ * 父上下文为 {@link ExecutionControl} 时，每个子管道以父级剩余时间为超时执行；
+ * 父级被中断后不再启动新的子管道，并对运行中的子上下文请求中断。
+ * 子上下文若以父上下文为父级创建（见 {@code DefaultPipelineContext} 的关联构造函数），中断与截止时间可实时传播。
+ * <p>
+ * 任一子管道异常结束时处理器以该异常失败，并中断其余子管道；处理器返回的阶段被取消（如父管道被取消）时同样中断并取消全部子管道。
+ * 作为 {@link AsyncPipelineHandler}，异步管道中等待子管道期间不占用线程。
+ * <p>
+ * 子上下文只在其管道确实结束后关闭：future 被取消或超时并不代表子管道已停止运行，
+ * 因此处理器向子执行器注册监听器，以 afterPipeline / onRejected 作为子管道结束的信号。
+ * 共用同一个子执行器的处理器共用一个监听器（每个执行器只注册一次），监听器只在子上下文关闭前引用所属的并行执行。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class ScatterGatherHandler implements AsyncPipelineHandler {
+
+    private final String name;
+
+    private final int order;
+
+    private final Splitter splitter;
+
+    private final PipelineExecutor childExecutor;
+
+    private final int maxParallelism;
+
+    /**
+     * 各子执行器上注册的监听器（弱引用执行器，执行器被回收后条目随之清除）
+     */
+    private static final Map<PipelineExecutor, ChildTracker> TRACKERS = new WeakHashMap<>();
+
+    private final Merger merger;
+
+    private final ChildTracker tracker;
+
+    /**
+     * @param name           处理器名称（非空）
+     * @param order          执行优先级
+     * @param splitter       拆分函数（非空）
+     * @param childRegistry  子管道处理器注册中心（非空）
+     * @param childExecutor  子管道执行线程池（非空）
+     * @param maxParallelism 同时执行的子管道数上限（>0）
+     * @param merger         合并函数（非空）
+     */
+    public ScatterGatherHandler(@NonNull String name, int order, @NonNull Splitter splitter,
+                                @NonNull HandlerRegistry childRegistry, @NonNull Executor childExecutor,
+                                int maxParallelism, @NonNull Merger merger) {
+        this(name, order, splitter,
+                new DefaultPipelineExecutor(childRegistry, new DefaultExceptionHandlingStrategy(), childExecutor),
+                maxParallelism, merger);
+    }
+
+    /**
+     * 首个使用 {@code childExecutor} 的处理器向其注册一个监听器，用于得知子管道何时真正结束
+     *
+     * @param name           处理器名称（非空）
+     * @param order          执行优先级
+     * @param splitter       拆分函数（非空）
+     * @param childExecutor  子管道执行器（非空，须在管道结束时回调 afterPipeline 或 onRejected）
+     * @param maxParallelism 同时执行的子管道数上限（>0）
+     * @param merger         合并函数（非空）
+     */
+    public ScatterGatherHandler(@NonNull String name, int order, @NonNull Splitter splitter,
+                                @NonNull PipelineExecutor childExecutor, int maxParallelism,
+                                @NonNull Merger merger) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("maxParallelism must be > 0");
+        }
+        this.name = name;
+        this.order = order;
+        this.splitter = splitter;
+        this.childExecutor = childExecutor;
+        this.maxParallelism = maxParallelism;
+        this.merger = merger;
+        this.tracker = trackerFor(childExecutor);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public CompletionStage<Void> handleAsync(PipelineContext context) {
+        List<? extends PipelineContext> children;
+        try {
+            children = splitter.split(context);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return new FanOut(context, children == null ? Collections.emptyList() : List.copyOf(children)).start();
+    }
+
+    /**
+     * 拆分函数
+     */
+    @FunctionalInterface
+    public interface Splitter {
+
+        /**
+         * 把父上下文拆分为子上下文
+         *
+         * @param parent 父上下文
+         * @return 子上下文列表（交由处理器执行并在合并后关闭）
+         * @throws Exception 拆分失败
+         */
+        List<? extends PipelineContext> split(PipelineContext parent) throws Exception;
+    }
+
+    /**
+     * 合并函数
+     */
+    @FunctionalInterface
+    public interface Merger {
+
+        /**
+         * 把子管道的执行结果合并回父上下文（在单个线程上调用，子上下文此时尚未关闭）
+         * <p>
+         * 合并返回后子上下文随即关闭，并释放其拥有的 {@link com.wangguangwu.pipelineexecutor.core.payload.OffHeapPayload}。
+         * 零拷贝地把子上下文的载荷交给父上下文时，须同时调用 {@code payload.transferTo(parent)} 转移所有权，
+         * 否则父上下文持有的是已释放的载荷。
+         *
+         * @param parent   父上下文
+         * @param children 子管道结果（与拆分顺序一致）
+         * @throws Exception 合并失败
+         */
+        void merge(PipelineContext parent, List<ChildResult> children) throws Exception;
+    }
+
+    /**
+     * 单个子管道的执行结果
+     *
+     * @param context 子上下文
+     * @param result  子管道结果（可能为失败、超时或取消状态）
+     */
+    public record ChildResult(PipelineContext context, PipelineResult result) {
+    }
+
+    /**
+     * 一次拆分后的并行执行
+     * <p>
+     * 每个子上下文在两个条件都满足后关闭：子管道已结束（{@link #RUN_ENDED}），且不再被合并使用（{@link #RELEASED}）。
+     */
+    private final class FanOut {
+
+        /**
+         * 子管道已结束（正常返回结果、子执行器回报结束，或从未启动）
+         */
+        private static final int RUN_ENDED = 1;
+
+        /**
+         * 子上下文不再被使用（已合并，或处理器已失败/被取消）
+         */
+        private static final int RELEASED = 2;
+
+        private static final int CLOSABLE = RUN_ENDED | RELEASED;
+
+        private final PipelineContext parent;
+
+        private final List<PipelineContext> children;
+
+        private final PipelineResult[] results;
+
+        /**
+         * 已启动子管道的 future（用于放弃时取消）
+         */
+        private final AtomicReferenceArray<CompletableFuture<PipelineResult>> running;
+
+        /**
+         * 各子上下文的关闭条件位
+         */
+        private final AtomicIntegerArray states;
+
+        /**
+         * 下一个待启动的子管道下标
+         */
+        private final AtomicInteger next = new AtomicInteger();
+
+        /**
+         * 尚未结束的子管道数
+         */
+        private final AtomicInteger pending;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private FanOut(PipelineContext parent, List<PipelineContext> children) {
+            this.parent = parent;
+            this.children = children;
+            this.results = new PipelineResult[children.size()];
+            this.running = new AtomicReferenceArray<>(children.size());
+            this.states = new AtomicIntegerArray(children.size());
+            this.pending = new AtomicInteger(children.size());
+        }
+
+        private CompletableFuture<Void> start() {
+            done.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    abandon();
+                }
+            });
+            if (children.isEmpty()) {
+                mergeAndComplete();
+                return done;
+            }
+            for (int i = 0, n = Math.min(maxParallelism, children.size()); i < n; i++) {
+                launchNext();
+            }
+            return done;
+        }
+
+        private void launchNext() {
+            int index = next.getAndIncrement();
+            if (index >= children.size()) {
+                return;
+            }
+            PipelineContext child = children.get(index);
+            if (done.isDone()) {
+                mark(index, CLOSABLE);
+                return;
+            }
+            tracker.inFlight.put(child, new ChildRef(this, index));
+            CompletableFuture<PipelineResult> future;
+            try {
+                future = execute(child);
+            } catch (Exception e) {
+                mark(index, CLOSABLE);
+                fail(e);
+                return;
+            }
+            running.set(index, future);
+            if (done.isDone()) {
+                // 与 abandon() 竞争：放弃发生在登记之前时由此处取消
+                future.cancel(false);
+            }
+            future.whenComplete((result, error) -> onChildComplete(index, result, error));
+        }
+
+        private CompletableFuture<PipelineResult> execute(PipelineContext child) throws PipelineException {
+            if (!(parent instanceof ExecutionControl control)) {
+                return childExecutor.executeAsync(child);
+            }
+            if (control.isInterrupted()) {
+                throw new PipelineException("Parent pipeline interrupted", name, PipelineStatus.CANCELLED);
+            }
+            long remaining = control.getRemainingTime();
+            if (remaining == Long.MAX_VALUE) {
+                return childExecutor.executeAsync(child);
+            }
+            if (remaining <= 0) {
+                throw new PipelineException("Parent pipeline deadline exceeded", name, PipelineStatus.TIMEOUT);
+            }
+            return childExecutor.executeAsync(child, remaining, TimeUnit.MILLISECONDS);
+        }
+
+        private void onChildComplete(int index, PipelineResult result, Throwable error) {
+            if (error != null) {
+                // 取消或超时时子管道可能仍在运行，等子执行器回报结束后再关闭
+                PipelineContext child = children.get(index);
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException && cause.getMessage() == null) {
+                    // executeAsync 整体超时产生的异常没有消息
+                    cause = new TimeoutException("Child pipeline [" + child.getContextId() + "] exceeded parent deadline");
+                }
+                fail(cause);
+                return;
+            }
+            mark(index, RUN_ENDED);
+            if (done.isDone()) {
+                // 已放弃：abandon() 负责 RELEASED
+                return;
+            }
+            results[index] = result;
+            if (pending.decrementAndGet() == 0) {
+                mergeAndComplete();
+            } else {
+                launchNext();
+            }
+        }
+
+        private void mergeAndComplete() {
+            List<ChildResult> merged = new ArrayList<>(children.size());
+            for (int i = 0; i < children.size(); i++) {
+                merged.add(new ChildResult(children.get(i), results[i]));
+            }
+            Exception failure = null;
+            try {
+                merger.merge(parent, merged);
+            } catch (Exception e) {
+                failure = e;
+            }
+            // 先关闭子上下文再完成阶段，父管道续接时子上下文均已关闭
+            for (int i = 0; i < children.size(); i++) {
+                mark(i, RELEASED);
+            }
+            if (failure == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(failure);
+            }
+        }
+
+        private void fail(Throwable error) {
+            done.completeExceptionally(error);
+        }
+
+        /**
+         * 失败或被取消后放弃其余子管道：领取所有未启动的子管道并关闭，
+         * 运行中的子管道请求中断并取消其 future（取消向子执行器传播），已结束的子上下文立即关闭，
+         * 仍在运行的在子执行器回报结束后关闭
+         */
+        private void abandon() {
+            for (int i = next.getAndSet(children.size()); i < children.size(); i++) {
+                mark(i, RUN_ENDED);
+            }
+            for (int i = 0; i < children.size(); i++) {
+                PipelineContext child = children.get(i);
+                if (child instanceof ExecutionControl control && !child.isClosed()) {
+                    control.requestInterrupt();
+                }
+                CompletableFuture<PipelineResult> future = running.get(i);
+                if (future != null) {
+                    future.cancel(false);
+                }
+                mark(i, RELEASED);
+            }
+        }
+
+        /**
+         * 设置子上下文的关闭条件位，两个条件首次同时满足时关闭
+         */
+        private void mark(int index, int bits) {
+            int previous = states.getAndUpdate(index, state -> state | bits);
+            if (previous != CLOSABLE && (previous | bits) == CLOSABLE) {
+                PipelineContext child = children.get(index);
+                tracker.inFlight.remove(child);
+                closeQuietly(child);
+            }
+        }
+    }
+
+    /**
+     * 子上下文所属的并行执行及其下标
+     */
+    private record ChildRef(FanOut fanOut, int index) {
+    }
+
+    /**
+     * 获取子执行器上的监听器，首次使用该执行器时注册
+     */
+    private static ChildTracker trackerFor(PipelineExecutor childExecutor) {
+        synchronized (TRACKERS) {
+            return TRACKERS.computeIfAbsent(childExecutor, executor -> {
+                ChildTracker tracker = new ChildTracker();
+                executor.addListener(tracker);
+                return tracker;
+            });
+        }
+    }
+
+    /**
+     * 注册到子执行器的监听器：子管道结束（或未执行即被拒绝）时回报所属的并行执行
+     */
+    private static final class ChildTracker implements PipelineListener {
+
+        /**
+         * 已提交给子执行器、尚未关闭的子上下文（按引用登记）
+         */
+        private final Map<PipelineContext, ChildRef> inFlight = new ConcurrentHashMap<>();
+
+        @Override
+        public void afterPipeline(PipelineContext context, long elapsedNanos) {
+            ended(context);
+        }
+
+        @Override
+        public void onRejected(PipelineContext context, String reason) {
+            ended(context);
+        }
+
+        private void ended(PipelineContext context) {
+            ChildRef ref = inFlight.get(context);
+            if (ref != null) {
+                ref.fanOut.mark(ref.index, FanOut.RUN_ENDED);
+            }
+        }
+    }
+
+    private static void closeQuietly(PipelineContext context) {
+        try {
+            context.close();
+        } catch (RuntimeException e) {
+            log.warn("Failed to close child context [{}]", context.getContextId(), e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：单个处理器的执行（包含全部重试）
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.HandlerExecution")
+@Label("Handler Execution")
+@Category({"Pipeline Executor"})
+@Description("单个处理器的执行（包含全部重试）")
+@StackTrace(false)
+public class HandlerExecutionEvent extends Event {
+
+    @Label("Context Id")
+    public String contextId;
+
+    @Label("Handler")
+    public String handlerName;
+
+    @Label("Status")
+    @Description("处理器执行状态（PipelineStatus）")
+    public String status;
+
+    @Label("Attempts")
+    @Description("实际执行次数（包含首次执行）")
+    public int attempts;
+
+    @Label("Exception")
+    @Description("最终失败的异常类型（成功时为空）")
+    public String exceptionType;
+}
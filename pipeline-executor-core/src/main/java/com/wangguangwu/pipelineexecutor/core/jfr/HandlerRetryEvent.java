@@ -0,0 +1,41 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR 事件：处理器重试
+ * <p>
+ * 事件持续时间为重试前的退避等待时间。
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.HandlerRetry")
+@Label("Handler Retry")
+@Category({"Pipeline Executor"})
+@Description("处理器失败后的一次重试（持续时间为退避等待）")
+@StackTrace(false)
+public class HandlerRetryEvent extends Event {
+
+    @Label("Context Id")
+    public String contextId;
+
+    @Label("Handler")
+    public String handlerName;
+
+    @Label("Failed Attempt")
+    @Description("失败的执行序号（从1开始）")
+    public int attempt;
+
+    @Label("Exception")
+    public String exceptionType;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoffMillis;
+}
@@ -0,0 +1,57 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR 事件：处理器或管道超时
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.Timeout")
+@Label("Pipeline Timeout")
+@Category({"Pipeline Executor"})
+@Description("处理器超过自身超时阈值，或管道超过截止时间")
+@StackTrace(false)
+public class HandlerTimeoutEvent extends Event {
+
+    /**
+     * 处理器级别超时（{@code PipelineHandler#getTimeout()}）
+     */
+    public static final String SCOPE_HANDLER = "HANDLER";
+
+    /**
+     * 管道级别超时（{@code execute(ctx, timeout, unit)} 的截止时间）
+     */
+    public static final String SCOPE_PIPELINE = "PIPELINE";
+
+    /**
+     * 预算不足（预测耗时超过剩余时间，处理器未启动）
+     */
+    public static final String SCOPE_BUDGET = "BUDGET";
+
+    @Label("Context Id")
+    public String contextId;
+
+    @Label("Handler")
+    public String handlerName;
+
+    @Label("Scope")
+    @Description("HANDLER、PIPELINE 或 BUDGET")
+    public String scope;
+
+    @Label("Timeout")
+    @Description("超时阈值（管道级与预算级为处理器开始前的剩余预算）")
+    @Timespan(Timespan.MILLISECONDS)
+    public long timeoutMillis;
+
+    @Label("Elapsed")
+    @Description("实际耗时（预算级为预测耗时）")
+    @Timespan(Timespan.NANOSECONDS)
+    public long elapsedNanos;
+}
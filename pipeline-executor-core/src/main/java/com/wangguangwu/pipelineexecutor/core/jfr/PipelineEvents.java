@@ -0,0 +1,155 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import jdk.jfr.EventType;
+
+/**
+ * JFR 事件埋点入口
+ * <p>
+ * 事件类型未开启（无录制或被配置关闭）时 {@code beginXxx} 返回 null，不创建事件对象，
+ * 对应的 {@code commit} 方法接受 null 并直接返回，保证关闭时执行路径零分配。
+ *
+ * @author wangguangwu
+ */
+public final class PipelineEvents {
+
+    private static final EventType RUN = EventType.getEventType(PipelineRunEvent.class);
+    private static final EventType HANDLER = EventType.getEventType(HandlerExecutionEvent.class);
+    private static final EventType RETRY = EventType.getEventType(HandlerRetryEvent.class);
+    private static final EventType TIMEOUT = EventType.getEventType(HandlerTimeoutEvent.class);
+    private static final EventType QUEUE_WAIT = EventType.getEventType(QueueWaitEvent.class);
+    private static final EventType POOL_RESIZE = EventType.getEventType(PoolResizeEvent.class);
+
+    private PipelineEvents() {
+    }
+
+    public static PipelineRunEvent beginRun() {
+        if (!RUN.isEnabled()) {
+            return null;
+        }
+        PipelineRunEvent event = new PipelineRunEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitRun(PipelineRunEvent event, PipelineContext context, PipelineStatus status,
+                                 int handlerCount, boolean async) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.contextId = context.getContextId();
+            event.status = status.name();
+            event.handlerCount = handlerCount;
+            event.async = async;
+            event.commit();
+        }
+    }
+
+    public static HandlerExecutionEvent beginHandler() {
+        if (!HANDLER.isEnabled()) {
+            return null;
+        }
+        HandlerExecutionEvent event = new HandlerExecutionEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitHandler(HandlerExecutionEvent event, PipelineContext context, PipelineHandler handler,
+                                     PipelineStatus status, int attempts, Throwable failure) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.contextId = context.getContextId();
+            event.handlerName = handler.getName();
+            event.status = status.name();
+            event.attempts = attempts;
+            event.exceptionType = failure == null ? null : failure.getClass().getName();
+            event.commit();
+        }
+    }
+
+    public static HandlerRetryEvent beginRetry() {
+        if (!RETRY.isEnabled()) {
+            return null;
+        }
+        HandlerRetryEvent event = new HandlerRetryEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitRetry(HandlerRetryEvent event, PipelineContext context, PipelineHandler handler,
+                                   int attempt, Throwable failure, long backoffMillis) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.contextId = context.getContextId();
+            event.handlerName = handler.getName();
+            event.attempt = attempt;
+            event.exceptionType = failure.getClass().getName();
+            event.backoffMillis = backoffMillis;
+            event.commit();
+        }
+    }
+
+    public static void timeout(PipelineContext context, PipelineHandler handler, String scope,
+                               long timeoutMillis, long elapsedNanos) {
+        if (!TIMEOUT.isEnabled()) {
+            return;
+        }
+        HandlerTimeoutEvent event = new HandlerTimeoutEvent();
+        if (event.shouldCommit()) {
+            event.contextId = context.getContextId();
+            event.handlerName = handler.getName();
+            event.scope = scope;
+            event.timeoutMillis = timeoutMillis;
+            event.elapsedNanos = elapsedNanos;
+            event.commit();
+        }
+    }
+
+    public static QueueWaitEvent beginQueueWait() {
+        if (!QUEUE_WAIT.isEnabled()) {
+            return null;
+        }
+        QueueWaitEvent event = new QueueWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void commitQueueWait(QueueWaitEvent event, PipelineContext context) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.contextId = context.getContextId();
+            event.commit();
+        }
+    }
+
+    public static void poolResize(int fromSize, int toSize, int targetSize, double blockingRatio,
+                                  long avgQueueWaitNanos, long tasks, String reason) {
+        if (!POOL_RESIZE.isEnabled()) {
+            return;
+        }
+        PoolResizeEvent event = new PoolResizeEvent();
+        if (event.shouldCommit()) {
+            event.fromSize = fromSize;
+            event.toSize = toSize;
+            event.targetSize = targetSize;
+            event.blockingRatio = blockingRatio;
+            event.avgQueueWaitNanos = avgQueueWaitNanos;
+            event.tasks = tasks;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：一次完整的管道执行
+ * <p>
+ * 事件持续时间即管道总耗时，可在 JMC 中与 GC、锁竞争事件对齐分析。
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.PipelineRun")
+@Label("Pipeline Run")
+@Category({"Pipeline Executor"})
+@Description("一次完整的管道执行")
+@StackTrace(false)
+public class PipelineRunEvent extends Event {
+
+    @Label("Context Id")
+    public String contextId;
+
+    @Label("Status")
+    @Description("管道最终状态（PipelineStatus）")
+    public String status;
+
+    @Label("Handler Count")
+    @Description("实际执行的处理器数量")
+    public int handlerCount;
+
+    @Label("Async")
+    public boolean async;
+}
@@ -0,0 +1,47 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR 事件：自适应工作线程池调整线程数
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.PoolResize")
+@Label("Pipeline Pool Resize")
+@Category({"Pipeline Executor"})
+@Description("自适应工作线程池根据阻塞比例与排队时长调整线程数")
+@StackTrace(false)
+public class PoolResizeEvent extends Event {
+
+    @Label("From")
+    public int fromSize;
+
+    @Label("To")
+    public int toSize;
+
+    @Label("Target")
+    @Description("按阻塞比例计算的目标线程数（调整前按上下限截断）")
+    public int targetSize;
+
+    @Label("Blocking Ratio")
+    @Description("观察窗口内任务等待时间与 CPU 时间之比（W/C）")
+    public double blockingRatio;
+
+    @Label("Average Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long avgQueueWaitNanos;
+
+    @Label("Tasks")
+    @Description("观察窗口内完成的任务数")
+    public long tasks;
+
+    @Label("Reason")
+    public String reason;
+}
@@ -0,0 +1,26 @@
+package com.wangguangwu.pipelineexecutor.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR 事件：异步任务排队等待
+ * <p>
+ * 事件持续时间为从 {@code executeAsync} 提交到工作线程开始执行的时间。
+ *
+ * @author wangguangwu
+ */
+@Name("com.wangguangwu.pipeline.QueueWait")
+@Label("Pipeline Queue Wait")
+@Category({"Pipeline Executor"})
+@Description("异步管道从提交到开始执行的排队时间")
+@StackTrace(false)
+public class QueueWaitEvent extends Event {
+
+    @Label("Context Id")
+    public String contextId;
+}
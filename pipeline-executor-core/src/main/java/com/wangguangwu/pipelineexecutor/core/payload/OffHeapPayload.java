@@ -0,0 +1,224 @@
+package com.wangguangwu.pipelineexecutor.core.payload;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.NonNull;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 堆外二进制载荷句柄
+ * <p>
+ * 作为上下文属性在处理器之间传递，代替大块 {@code byte[]}，避免大对象进入老年代：
+ * <ul>
+ *   <li>生产方通过 {@link #writableBuffer()} 写入数据后调用 {@link #setLength(int)}</li>
+ *   <li>消费方通过 {@link #readOnlyBuffer()} 获取只读视图，零拷贝读取</li>
+ *   <li>所属上下文关闭时由 {@code DefaultPipelineContext} 释放作为属性保存的载荷，也可提前调用 {@link #release()}</li>
+ * </ul>
+ * 载荷只属于分配时指定的上下文：同一载荷被保存到其他上下文（如拆分-汇聚中从子上下文交给父上下文）时，
+ * 其他上下文关闭不会释放它；需要延长生命周期时通过 {@link #transferTo(PipelineContext)} 把所有权转移给新的上下文。
+ * 释放后再访问句柄抛出 {@link IllegalStateException}；已取得的缓冲区视图同样不得在释放后使用，
+ * 其底层内存会被后续分配复用。
+ *
+ * @author wangguangwu
+ */
+public final class OffHeapPayload {
+
+    private final State state;
+
+    OffHeapPayload(State state) {
+        this.state = state;
+    }
+
+    /**
+     * 容量（字节）
+     */
+    public int capacity() {
+        return checkedChunk().capacity();
+    }
+
+    /**
+     * 已写入数据的长度（字节）
+     */
+    public int length() {
+        checkedChunk();
+        return state.length;
+    }
+
+    /**
+     * 获取覆盖整个容量的可写视图（position 为0）
+     */
+    public ByteBuffer writableBuffer() {
+        return checkedChunk().duplicate().clear();
+    }
+
+    /**
+     * 设置已写入数据的长度
+     *
+     * @param length 长度（0 ~ 容量）
+     */
+    public void setLength(int length) {
+        ByteBuffer chunk = checkedChunk();
+        if (length < 0 || length > chunk.capacity()) {
+            throw new IllegalArgumentException("length out of range: " + length);
+        }
+        state.length = length;
+    }
+
+    /**
+     * 获取已写入数据的只读视图（position 为0，limit 为长度），不复制数据
+     */
+    public ByteBuffer readOnlyBuffer() {
+        ByteBuffer chunk = checkedChunk();
+        return chunk.asReadOnlyBuffer().limit(state.length);
+    }
+
+    /**
+     * 复制数据到堆内数组（仅用于与要求 {@code byte[]} 的接口交互）
+     */
+    public byte[] toByteArray() {
+        ByteBuffer view = readOnlyBuffer();
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 是否属于指定上下文
+     *
+     * @param context 上下文
+     * @return 载荷未释放且所属上下文为 {@code context} 时返回true
+     */
+    public boolean isOwnedBy(PipelineContext context) {
+        return context != null && !state.released.get() && state.owner() == context;
+    }
+
+    /**
+     * 把所有权转移给另一个上下文：此后由新上下文关闭时释放，原上下文关闭时不再释放
+     *
+     * @param owner 新的所属上下文
+     */
+    public void transferTo(@NonNull PipelineContext owner) {
+        checkedChunk();
+        state.bind(owner);
+    }
+
+    /**
+     * 释放载荷（幂等）
+     */
+    public void release() {
+        state.explicit = true;
+        state.cleanable.clean();
+    }
+
+    /**
+     * 是否已释放
+     */
+    public boolean isReleased() {
+        return state.released.get();
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapPayload[length=" + state.length + ", capacity=" + state.chunk.capacity()
+                + (isReleased() ? ", released" : "") + "]";
+    }
+
+    private ByteBuffer checkedChunk() {
+        if (state.released.get()) {
+            throw new IllegalStateException("Off-heap payload has been released");
+        }
+        return state.chunk;
+    }
+
+    /**
+     * 载荷状态（不引用句柄，以便句柄被回收时由 {@link Cleaner} 执行）
+     */
+    static final class State implements Runnable {
+
+        private final SlabPayloadAllocator allocator;
+
+        final ByteBuffer chunk;
+
+        final int sizeClass;
+
+        final Throwable allocationSite;
+
+        /**
+         * 所属上下文（可转移，null表示不绑定上下文）
+         */
+        private volatile WeakReference<PipelineContext> owner;
+
+        private volatile String ownerId;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * 是否通过 {@link #release()} 显式释放（Cleaner 执行时据此区分泄漏）
+         */
+        private volatile boolean explicit;
+
+        private volatile int length;
+
+        Cleaner.Cleanable cleanable;
+
+        State(SlabPayloadAllocator allocator, ByteBuffer chunk, int sizeClass, PipelineContext owner,
+              Throwable allocationSite) {
+            this.allocator = allocator;
+            this.chunk = chunk;
+            this.sizeClass = sizeClass;
+            this.allocationSite = allocationSite;
+            if (owner != null) {
+                bind(owner);
+            }
+        }
+
+        void bind(PipelineContext context) {
+            this.ownerId = context.getContextId();
+            this.owner = new WeakReference<>(context);
+        }
+
+        PipelineContext owner() {
+            WeakReference<PipelineContext> ref = owner;
+            return ref == null ? null : ref.get();
+        }
+
+        /**
+         * Cleaner 回调：显式释放或句柄被 GC 回收时执行一次
+         */
+        @Override
+        public void run() {
+            reclaim(!explicit);
+        }
+
+        /**
+         * 所属上下文已关闭或已被回收
+         */
+        boolean isOrphaned() {
+            WeakReference<PipelineContext> ref = owner;
+            if (ref == null) {
+                return false;
+            }
+            PipelineContext context = ref.get();
+            return context == null || context.isClosed();
+        }
+
+        /**
+         * @return true 表示本次调用完成了回收
+         */
+        boolean reclaim(boolean leaked) {
+            if (!released.compareAndSet(false, true)) {
+                return false;
+            }
+            allocator.recycle(this, leaked);
+            return true;
+        }
+
+        String describeOwner() {
+            String id = ownerId;
+            return id == null ? "" : " (owner context [" + id + "])";
+        }
+    }
+}
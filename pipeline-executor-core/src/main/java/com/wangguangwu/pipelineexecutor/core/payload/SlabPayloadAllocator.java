@@ -0,0 +1,246 @@
+package com.wangguangwu.pipelineexecutor.core.payload;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 堆外载荷的 slab 分配器（线程安全）
+ * <p>
+ * 按2的幂划分尺寸等级，每个等级从若干直接内存 slab 中切分定长块并以空闲队列复用：
+ * <ul>
+ *   <li>申请时取不小于所需容量的最小等级，空闲队列为空时新建一个 slab 并整块切分（同一等级的新建串行进行）</li>
+ *   <li>超过最大块尺寸的申请单独分配直接内存，不入池</li>
+ *   <li>释放后块立即回到空闲队列，slab 本身不归还操作系统</li>
+ * </ul>
+ * 泄漏检测：
+ * <ul>
+ *   <li>{@link #detectLeaks()} 找出所属上下文已关闭（或已被回收）但仍未释放的载荷，报告并回收</li>
+ *   <li>载荷句柄未释放即被 GC 回收时，通过 {@link Cleaner} 报告并回收</li>
+ * </ul>
+ * 开启 {@code trackAllocationSites} 后报告中包含分配位置的堆栈，便于定位，但每次分配都会采集堆栈。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class SlabPayloadAllocator {
+
+    /**
+     * 默认最小块尺寸（4 KiB）
+     */
+    public static final int DEFAULT_MIN_CHUNK_SIZE = 4 * 1024;
+
+    /**
+     * 默认最大块尺寸（1 MiB）
+     */
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * 默认 slab 尺寸（4 MiB）
+     */
+    public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int minChunkShift;
+
+    private final int maxChunkSize;
+
+    private final int slabSize;
+
+    private final boolean trackAllocationSites;
+
+    /**
+     * 各尺寸等级的空闲块
+     */
+    private final List<Queue<ByteBuffer>> freeChunks;
+
+    /**
+     * 未释放的载荷
+     */
+    private final Set<OffHeapPayload.State> live = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final AtomicLong leakCount = new AtomicLong();
+
+    public SlabPayloadAllocator() {
+        this(DEFAULT_MIN_CHUNK_SIZE, DEFAULT_MAX_CHUNK_SIZE, DEFAULT_SLAB_SIZE, false);
+    }
+
+    /**
+     * @param minChunkSize         最小块尺寸（2的幂）
+     * @param maxChunkSize         最大块尺寸（2的幂，不小于 minChunkSize）
+     * @param slabSize             slab 尺寸（不小于 maxChunkSize 且为其整数倍）
+     * @param trackAllocationSites 是否记录分配位置堆栈
+     */
+    public SlabPayloadAllocator(int minChunkSize, int maxChunkSize, int slabSize, boolean trackAllocationSites) {
+        if (Integer.bitCount(minChunkSize) != 1 || Integer.bitCount(maxChunkSize) != 1 || minChunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunk sizes must be powers of two with min <= max");
+        }
+        if (slabSize < maxChunkSize || slabSize % maxChunkSize != 0) {
+            throw new IllegalArgumentException("slabSize must be a multiple of maxChunkSize");
+        }
+        this.minChunkShift = Integer.numberOfTrailingZeros(minChunkSize);
+        this.maxChunkSize = maxChunkSize;
+        this.slabSize = slabSize;
+        this.trackAllocationSites = trackAllocationSites;
+        int classes = Integer.numberOfTrailingZeros(maxChunkSize) - minChunkShift + 1;
+        List<Queue<ByteBuffer>> queues = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            queues.add(new ConcurrentLinkedQueue<>());
+        }
+        this.freeChunks = List.copyOf(queues);
+    }
+
+    /**
+     * 分配载荷
+     *
+     * @param owner    所属上下文（可为null，表示不绑定上下文，仅由 GC 检测泄漏）
+     * @param capacity 容量（字节，≥0）
+     * @return 长度为0的可写载荷
+     */
+    public OffHeapPayload allocate(PipelineContext owner, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        int sizeClass = sizeClassOf(capacity);
+        ByteBuffer chunk = sizeClass < 0 ? ByteBuffer.allocateDirect(capacity) : takeChunk(sizeClass);
+        usedBytes.addAndGet(chunk.capacity());
+        Throwable site = trackAllocationSites ? new Throwable("Payload allocation site") : null;
+        OffHeapPayload.State state = new OffHeapPayload.State(this, chunk, sizeClass, owner, site);
+        live.add(state);
+        OffHeapPayload payload = new OffHeapPayload(state);
+        state.cleanable = CLEANER.register(payload, state);
+        return payload;
+    }
+
+    /**
+     * 分配载荷并复制数据（写入后长度为数据长度）
+     *
+     * @param owner 所属上下文（可为null）
+     * @param data  数据（读取 position 到 limit 之间的字节，不改变其 position）
+     */
+    public OffHeapPayload copyOf(PipelineContext owner, @NonNull ByteBuffer data) {
+        OffHeapPayload payload = allocate(owner, data.remaining());
+        payload.writableBuffer().put(data.duplicate());
+        payload.setLength(data.remaining());
+        return payload;
+    }
+
+    /**
+     * 分配载荷并复制数据
+     *
+     * @param owner 所属上下文（可为null）
+     * @param data  数据
+     */
+    public OffHeapPayload copyOf(PipelineContext owner, @NonNull byte[] data) {
+        return copyOf(owner, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 检测并回收所属上下文已关闭或已被回收、但仍未释放的载荷
+     *
+     * @return 本次发现的泄漏数
+     */
+    public int detectLeaks() {
+        int leaks = 0;
+        for (OffHeapPayload.State state : live) {
+            if (state.isOrphaned() && state.reclaim(true)) {
+                leaks++;
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * 已向系统申请的 slab 字节数
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * 正在使用的块字节数（含不入池的大块）
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * 未释放的载荷数
+     */
+    public int getLiveCount() {
+        return live.size();
+    }
+
+    /**
+     * 累计检测到的泄漏数
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * 回收块（由载荷状态调用，每个块仅调用一次）
+     */
+    void recycle(OffHeapPayload.State state, boolean leaked) {
+        live.remove(state);
+        usedBytes.addAndGet(-state.chunk.capacity());
+        if (leaked) {
+            leakCount.incrementAndGet();
+            log.error("Off-heap payload of {} bytes leaked{}", state.chunk.capacity(), state.describeOwner(), state.allocationSite);
+        }
+        if (state.sizeClass >= 0) {
+            freeChunks.get(state.sizeClass).offer(state.chunk.clear());
+        }
+    }
+
+    private int sizeClassOf(int capacity) {
+        if (capacity > maxChunkSize) {
+            return -1;
+        }
+        int shift = capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return Math.max(0, shift - minChunkShift);
+    }
+
+    private ByteBuffer takeChunk(int sizeClass) {
+        Queue<ByteBuffer> free = freeChunks.get(sizeClass);
+        ByteBuffer chunk = free.poll();
+        while (chunk == null) {
+            // 以空闲队列为锁串行新建：并发的申请方等待首个新建的 slab，而不是各自再申请一块
+            synchronized (free) {
+                chunk = free.poll();
+                if (chunk == null) {
+                    carveSlab(sizeClass, free);
+                    chunk = free.poll();
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * 新建一个 slab 并按尺寸等级整块切分
+     */
+    private void carveSlab(int sizeClass, Queue<ByteBuffer> free) {
+        int chunkSize = 1 << (sizeClass + minChunkShift);
+        ByteBuffer slab = ByteBuffer.allocateDirect(slabSize);
+        reservedBytes.addAndGet(slabSize);
+        for (int offset = 0; offset + chunkSize <= slabSize; offset += chunkSize) {
+            free.offer(slab.slice(offset, chunkSize));
+        }
+    }
+}
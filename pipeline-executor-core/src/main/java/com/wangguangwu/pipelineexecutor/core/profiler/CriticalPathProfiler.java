@@ -0,0 +1,455 @@
+package com.wangguangwu.pipelineexecutor.core.profiler;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 关键路径分析器（线程安全）
+ * <p>
+ * 以监听器形式接入执行器，按 1/N 的概率抽样管道执行，记录每次处理器尝试的开始、结束时间：
+ * <ul>
+ *   <li>首次尝试从 {@code onHandlerStart} 开始；失败的尝试在 {@code onError} 时结束，下一次尝试随即开始（包含退避）</li>
+ *   <li>处理器的就绪时间为其依赖（{@link PipelineHandler#getDependsOn()} 与反向的 {@link PipelineHandler#getDependentBy()}）
+ *       中最晚的结束时间，无依赖时为管道开始时间；开始时间与就绪时间之差计为等待</li>
+ *   <li>从最晚结束的处理器出发，沿结束最晚的依赖回溯得到关键路径</li>
+ * </ul>
+ * 汇总每个处理器出现在关键路径上的次数与耗时，可通过 {@link #report()} 编程读取，
+ * 或通过 {@link #dumpText()} / {@link #dumpFolded()} 输出文本表格与火焰图折叠栈格式。
+ * 最近的抽样明细保存在固定容量的环形缓冲中。
+ * <p>
+ * 未被抽样的执行每个回调只做一次哈希表查找，不分配对象。
+ *
+ * @author wangguangwu
+ */
+public class CriticalPathProfiler implements PipelineListener {
+
+    private final int sampleEvery;
+
+    /**
+     * 正在记录的执行
+     */
+    private final Map<PipelineContext, Recording> recordings = new ConcurrentHashMap<>();
+
+    /**
+     * 最近的抽样明细（环形缓冲）
+     */
+    private final AtomicReferenceArray<RunProfile> recent;
+
+    private final AtomicLong recentCursor = new AtomicLong();
+
+    private final Map<String, HandlerStats> stats = new ConcurrentHashMap<>();
+
+    private final LongAdder sampledRuns = new LongAdder();
+
+    /**
+     * @param sampleEvery    抽样间隔（每N次执行抽样一次，1表示全部记录）
+     * @param recentCapacity 保留的最近抽样明细数（>0）
+     */
+    public CriticalPathProfiler(int sampleEvery, int recentCapacity) {
+        if (sampleEvery <= 0 || recentCapacity <= 0) {
+            throw new IllegalArgumentException("sampleEvery and recentCapacity must be > 0");
+        }
+        this.sampleEvery = sampleEvery;
+        this.recent = new AtomicReferenceArray<>(recentCapacity);
+    }
+
+    // ================= 监听器回调 =================
+
+    @Override
+    public void beforePipeline(PipelineContext context) {
+        if (sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0) {
+            recordings.put(context, new Recording(context.getContextId(), System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void onHandlerStart(PipelineContext context, PipelineHandler handler) {
+        Recording recording = recordings.get(context);
+        if (recording != null) {
+            recording.start(handler, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onHandlerComplete(PipelineContext context, PipelineHandler handler, long elapsedNanos) {
+        Recording recording = recordings.get(context);
+        if (recording != null) {
+            recording.end(handler, System.nanoTime(), true);
+        }
+    }
+
+    @Override
+    public ErrorStrategy onError(PipelineContext context, PipelineHandler handler, Throwable error) {
+        Recording recording = recordings.get(context);
+        if (recording != null) {
+            recording.end(handler, System.nanoTime(), false);
+        }
+        return PipelineListener.super.onError(context, handler, error);
+    }
+
+    @Override
+    public void afterPipeline(PipelineContext context, long elapsedNanos) {
+        Recording recording = recordings.remove(context);
+        if (recording != null) {
+            RunProfile profile = recording.finish(elapsedNanos);
+            aggregate(profile);
+            recent.set((int) (recentCursor.getAndIncrement() % recent.length()), profile);
+        }
+    }
+
+    // ================= 报告 =================
+
+    /**
+     * 按关键路径累计耗时降序的处理器报告
+     */
+    public List<HandlerReport> report() {
+        long runs = sampledRuns.sum();
+        List<HandlerReport> reports = new ArrayList<>(stats.size());
+        stats.forEach((name, s) -> reports.add(s.toReport(name, runs)));
+        reports.sort(Comparator.comparingLong(HandlerReport::criticalNanos).reversed());
+        return reports;
+    }
+
+    /**
+     * 最近的抽样明细（按记录先后排列）
+     */
+    public List<RunProfile> recentRuns() {
+        List<RunProfile> runs = new ArrayList<>(recent.length());
+        long end = recentCursor.get();
+        for (long i = Math.max(0, end - recent.length()); i < end; i++) {
+            RunProfile profile = recent.get((int) (i % recent.length()));
+            if (profile != null) {
+                runs.add(profile);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * 已抽样的执行次数
+     */
+    public long getSampledRuns() {
+        return sampledRuns.sum();
+    }
+
+    /**
+     * 文本表格报告
+     */
+    public String dumpText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("critical path profile (%d sampled runs)%n", sampledRuns.sum()));
+        sb.append(String.format("%-32s %8s %8s %12s %12s %12s %8s%n",
+                "handler", "samples", "onPath%", "pathMs", "avgMs", "avgWaitMs", "attempts"));
+        for (HandlerReport r : report()) {
+            sb.append(String.format("%-32s %8d %7.1f%% %12.3f %12.3f %12.3f %8d%n",
+                    r.name(), r.samples(), r.criticalRatio() * 100, toMillis(r.criticalNanos()),
+                    toMillis(r.avgDurationNanos()), toMillis(r.avgWaitNanos()), r.attempts()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 火焰图折叠栈格式（基于最近的抽样明细）
+     * <p>
+     * 每行形如 {@code A;B;C 1234}：栈为关键路径上从起点到该处理器的链，权重为该处理器的耗时（微秒）；
+     * 处理器开始前的等待以 {@code A;B;[wait C]} 单独成行。
+     */
+    public String dumpFolded() {
+        Map<String, Long> folded = new TreeMap<>();
+        for (RunProfile run : recentRuns()) {
+            StringBuilder stack = new StringBuilder();
+            for (PathNode node : run.criticalPath()) {
+                if (node.waitNanos() > 0) {
+                    String waitStack = (stack.length() == 0 ? "" : stack + ";") + "[wait " + node.name() + "]";
+                    folded.merge(waitStack, TimeUnit.NANOSECONDS.toMicros(node.waitNanos()), Long::sum);
+                }
+                if (stack.length() > 0) {
+                    stack.append(';');
+                }
+                stack.append(node.name());
+                folded.merge(stack.toString(), TimeUnit.NANOSECONDS.toMicros(node.durationNanos()), Long::sum);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        folded.forEach((stack, micros) -> {
+            if (micros > 0) {
+                sb.append(stack).append(' ').append(micros).append('\n');
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * 清空汇总与明细
+     */
+    public void reset() {
+        stats.clear();
+        sampledRuns.reset();
+        for (int i = 0; i < recent.length(); i++) {
+            recent.set(i, null);
+        }
+    }
+
+    private void aggregate(RunProfile profile) {
+        sampledRuns.increment();
+        Set<String> onPath = new HashSet<>();
+        for (PathNode node : profile.criticalPath()) {
+            onPath.add(node.name());
+        }
+        for (HandlerSpan span : profile.handlers()) {
+            HandlerStats s = stats.computeIfAbsent(span.name(), key -> new HandlerStats());
+            s.samples.increment();
+            s.attempts.add(span.attempts().size());
+            s.durationNanos.add(span.durationNanos());
+            s.waitNanos.add(span.waitNanos());
+            if (onPath.contains(span.name())) {
+                s.criticalCount.increment();
+                s.criticalNanos.add(span.durationNanos());
+            }
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // ================= 数据结构 =================
+
+    /**
+     * 单次处理器尝试
+     *
+     * @param startNanos 开始时间（相对管道开始，纳秒）
+     * @param endNanos   结束时间（相对管道开始，纳秒）
+     * @param success    是否成功
+     */
+    public record Attempt(long startNanos, long endNanos, boolean success) {
+    }
+
+    /**
+     * 单个处理器在一次执行中的时间线
+     *
+     * @param name         处理器名称
+     * @param readyNanos   就绪时间（相对管道开始，纳秒）
+     * @param attempts     各次尝试
+     * @param dependencies 本次执行中出现的依赖处理器
+     */
+    public record HandlerSpan(String name, long readyNanos, List<Attempt> attempts, Set<String> dependencies) {
+
+        public long startNanos() {
+            return attempts.get(0).startNanos();
+        }
+
+        public long endNanos() {
+            return attempts.get(attempts.size() - 1).endNanos();
+        }
+
+        public long durationNanos() {
+            return endNanos() - startNanos();
+        }
+
+        public long waitNanos() {
+            return Math.max(0L, startNanos() - readyNanos);
+        }
+    }
+
+    /**
+     * 关键路径上的节点
+     *
+     * @param name          处理器名称
+     * @param waitNanos     就绪后等待开始的时间（纳秒）
+     * @param durationNanos 执行耗时（含重试，纳秒）
+     */
+    public record PathNode(String name, long waitNanos, long durationNanos) {
+    }
+
+    /**
+     * 一次抽样执行的明细
+     *
+     * @param contextId    上下文ID
+     * @param elapsedNanos 管道总耗时（纳秒）
+     * @param handlers     处理器时间线（按开始顺序）
+     * @param criticalPath 关键路径（从起点到终点）
+     */
+    public record RunProfile(String contextId, long elapsedNanos, List<HandlerSpan> handlers,
+                             List<PathNode> criticalPath) {
+    }
+
+    /**
+     * 处理器汇总报告
+     *
+     * @param name             处理器名称
+     * @param samples          出现在抽样执行中的次数
+     * @param criticalCount    出现在关键路径上的次数
+     * @param criticalRatio    出现在关键路径上的执行占全部抽样执行的比例
+     * @param criticalNanos    在关键路径上累计的耗时（纳秒）
+     * @param avgDurationNanos 平均耗时（纳秒）
+     * @param avgWaitNanos     平均等待（纳秒）
+     * @param attempts         累计尝试次数
+     */
+    public record HandlerReport(String name, long samples, long criticalCount, double criticalRatio,
+                                long criticalNanos, long avgDurationNanos, long avgWaitNanos, long attempts) {
+    }
+
+    private static final class HandlerStats {
+
+        private final LongAdder samples = new LongAdder();
+
+        private final LongAdder attempts = new LongAdder();
+
+        private final LongAdder durationNanos = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private final LongAdder criticalCount = new LongAdder();
+
+        private final LongAdder criticalNanos = new LongAdder();
+
+        private HandlerReport toReport(String name, long runs) {
+            long n = samples.sum();
+            return new HandlerReport(name, n, criticalCount.sum(),
+                    runs == 0 ? 0 : (double) criticalCount.sum() / runs, criticalNanos.sum(),
+                    n == 0 ? 0 : durationNanos.sum() / n, n == 0 ? 0 : waitNanos.sum() / n, attempts.sum());
+        }
+    }
+
+    /**
+     * 一次执行的记录过程（同一执行的回调可能来自不同线程）
+     */
+    private static final class Recording {
+
+        private final String contextId;
+
+        private final long startNanos;
+
+        /**
+         * 处理器名称 → 记录（按开始顺序）
+         */
+        private final Map<String, OpenSpan> spans = new LinkedHashMap<>();
+
+        private Recording(String contextId, long startNanos) {
+            this.contextId = contextId;
+            this.startNanos = startNanos;
+        }
+
+        private synchronized void start(PipelineHandler handler, long now) {
+            OpenSpan span = new OpenSpan(handler);
+            span.attemptStart = now - startNanos;
+            spans.put(handler.getName(), span);
+        }
+
+        private synchronized void end(PipelineHandler handler, long now, boolean success) {
+            OpenSpan span = spans.get(handler.getName());
+            if (span == null) {
+                return;
+            }
+            long end = now - startNanos;
+            span.attempts.add(new Attempt(span.attemptStart, end, success));
+            // 失败后可能重试，下一次尝试从此刻开始（包含退避）
+            span.attemptStart = end;
+        }
+
+        private synchronized RunProfile finish(long elapsedNanos) {
+            Map<String, HandlerSpan> closed = new LinkedHashMap<>();
+            Map<String, Set<String>> predecessors = predecessors();
+            for (OpenSpan span : spans.values()) {
+                if (span.attempts.isEmpty()) {
+                    // 未结束的处理器（如被中断）以管道结束时间收尾
+                    span.attempts.add(new Attempt(span.attemptStart, Math.max(span.attemptStart, elapsedNanos), false));
+                }
+            }
+            for (OpenSpan span : spans.values()) {
+                long ready = 0;
+                for (String dependency : predecessors.get(span.name)) {
+                    OpenSpan dep = spans.get(dependency);
+                    ready = Math.max(ready, dep.attempts.get(dep.attempts.size() - 1).endNanos());
+                }
+                closed.put(span.name, new HandlerSpan(span.name, ready, List.copyOf(span.attempts),
+                        Set.copyOf(predecessors.get(span.name))));
+            }
+            return new RunProfile(contextId, elapsedNanos, List.copyOf(closed.values()), criticalPath(closed));
+        }
+
+        /**
+         * 本次执行中出现的依赖关系：dependsOn 与反向的 dependentBy
+         */
+        private Map<String, Set<String>> predecessors() {
+            Map<String, Set<String>> predecessors = new LinkedHashMap<>();
+            for (OpenSpan span : spans.values()) {
+                predecessors.put(span.name, new HashSet<>());
+            }
+            for (OpenSpan span : spans.values()) {
+                for (String dependency : span.dependsOn) {
+                    if (spans.containsKey(dependency) && !dependency.equals(span.name)) {
+                        predecessors.get(span.name).add(dependency);
+                    }
+                }
+                for (String dependent : span.dependentBy) {
+                    if (spans.containsKey(dependent) && !dependent.equals(span.name)) {
+                        predecessors.get(dependent).add(span.name);
+                    }
+                }
+            }
+            return predecessors;
+        }
+
+        private static List<PathNode> criticalPath(Map<String, HandlerSpan> spans) {
+            HandlerSpan tail = null;
+            for (HandlerSpan span : spans.values()) {
+                if (tail == null || span.endNanos() > tail.endNanos()) {
+                    tail = span;
+                }
+            }
+            Deque<PathNode> path = new ArrayDeque<>();
+            Set<String> visited = new HashSet<>();
+            while (tail != null && visited.add(tail.name())) {
+                path.addFirst(new PathNode(tail.name(), tail.waitNanos(), tail.durationNanos()));
+                HandlerSpan latest = null;
+                for (String dependency : tail.dependencies()) {
+                    HandlerSpan candidate = spans.get(dependency);
+                    if (latest == null || candidate.endNanos() > latest.endNanos()) {
+                        latest = candidate;
+                    }
+                }
+                tail = latest;
+            }
+            return List.copyOf(path);
+        }
+    }
+
+    private static final class OpenSpan {
+
+        private final String name;
+
+        private final Set<String> dependsOn;
+
+        private final Set<String> dependentBy;
+
+        private final List<Attempt> attempts = new ArrayList<>(1);
+
+        private long attemptStart;
+
+        private OpenSpan(PipelineHandler handler) {
+            this.name = handler.getName();
+            this.dependsOn = handler.getDependsOn() == null ? Set.of() : handler.getDependsOn();
+            this.dependentBy = handler.getDependentBy() == null ? Set.of() : handler.getDependentBy();
+        }
+    }
+}
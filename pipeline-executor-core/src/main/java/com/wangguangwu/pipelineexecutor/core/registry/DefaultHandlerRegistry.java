@@ -0,0 +1,94 @@
+package com.wangguangwu.pipelineexecutor.core.registry;
+
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 默认处理器注册中心（写时复制）
+ * <p>
+ * 写操作在锁内重建排序快照，读操作直接返回 volatile 快照，
+ * 正在执行的管道持有旧快照，不受增删影响。
+ *
+ * @author wangguangwu
+ */
+public class DefaultHandlerRegistry implements HandlerRegistry {
+
+    private static final Comparator<PipelineHandler> ORDER_COMPARATOR =
+            Comparator.comparingInt(PipelineHandler::getOrder);
+
+    /**
+     * 按注册顺序保存的处理器（仅在锁内访问）
+     */
+    private final Map<String, PipelineHandler> handlers = new LinkedHashMap<>();
+
+    /**
+     * 排序后的只读快照
+     */
+    private volatile List<PipelineHandler> snapshot = Collections.emptyList();
+
+    @Override
+    public synchronized void register(PipelineHandler handler) {
+        validate(handler);
+        handlers.put(handler.getName(), handler);
+        publish();
+    }
+
+    @Override
+    public synchronized void registerAll(Collection<PipelineHandler> handlers) {
+        if (handlers == null || handlers.isEmpty()) {
+            return;
+        }
+        handlers.forEach(DefaultHandlerRegistry::validate);
+        handlers.forEach(handler -> this.handlers.put(handler.getName(), handler));
+        publish();
+    }
+
+    @Override
+    public List<PipelineHandler> getHandlers() {
+        return snapshot;
+    }
+
+    @Override
+    public synchronized PipelineHandler getHandler(String name) {
+        return handlers.get(name);
+    }
+
+    @Override
+    public synchronized PipelineHandler removeHandler(String name) {
+        PipelineHandler removed = handlers.remove(name);
+        if (removed != null) {
+            publish();
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        handlers.clear();
+        publish();
+    }
+
+    private void publish() {
+        List<PipelineHandler> sorted = new ArrayList<>(handlers.values());
+        // List.sort 为稳定排序，相同 order 保持注册顺序
+        sorted.sort(ORDER_COMPARATOR);
+        snapshot = Collections.unmodifiableList(sorted);
+    }
+
+    private static void validate(PipelineHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler must not be null");
+        }
+        if (handler.getName() == null || handler.getName().isEmpty()) {
+            throw new IllegalArgumentException("handler name must not be empty: " + handler.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.wangguangwu.pipelineexecutor.core.registry;
+
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+
+import java.util.List;
+
+/**
+ * 支持执行期固定快照的注册中心
+ * <p>
+ * 执行器在一次执行开始时调用 {@link #pin()} 获取快照，结束时调用 {@link #unpin()}，
+ * 注册中心据此判断被移除的处理器何时不再被任何执行引用。
+ * 两个方法必须在同一线程内成对调用。
+ *
+ * @author wangguangwu
+ */
+public interface PinnableHandlerRegistry extends HandlerRegistry {
+
+    /**
+     * 固定当前快照
+     *
+     * @return 排序后的处理器快照（不可修改）
+     */
+    List<PipelineHandler> pin();
+
+    /**
+     * 释放当前线程固定的快照
+     */
+    void unpin();
+
+    /**
+     * 固定当前快照，返回可在任意线程释放的句柄
+     * <p>
+     * 用于执行过程中会切换线程的异步管道，句柄释放前快照中的处理器不会退役。
+     *
+     * @return 固定句柄
+     */
+    Pin pinDetached();
+
+    /**
+     * 与线程无关的快照固定句柄
+     */
+    interface Pin {
+
+        /**
+         * 固定的处理器快照（不可修改）
+         */
+        List<PipelineHandler> getHandlers();
+
+        /**
+         * 释放快照（幂等）
+         */
+        void release();
+    }
+}
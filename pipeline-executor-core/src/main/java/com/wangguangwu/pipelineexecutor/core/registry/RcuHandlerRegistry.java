@@ -0,0 +1,468 @@
+package com.wangguangwu.pipelineexecutor.core.registry;
+
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于纪元（epoch）的读-复制-更新注册中心
+ * <p>
+ * 读路径：{@link #pin()} 仅把当前纪元写入本线程独占的读者槽位并读取快照引用，
+ * 不做任何 CAS 或原子自增，读者之间不共享可写缓存行。
+ * <p>
+ * 写路径：写者在锁内复制并排序新快照，先发布快照再推进全局纪元，
+ * 被移除的处理器记录其退役纪元后进入待回收队列。
+ * 当所有读者槽位都空闲或已固定到不早于退役纪元的快照时，
+ * 说明没有执行还能看到该处理器，此时回调 {@link PipelineHandler#onRetire()}。
+ * <p>
+ * 跨线程续接的异步执行通过 {@link #pinDetached()} 使用独立槽位，由句柄在任意线程释放。
+ * <p>
+ * 槽位释放后回到空闲队列复用：独立槽位在句柄释放时归还，线程槽位在所属线程结束后归还。
+ * 只有没有空闲槽位时才新建，槽位总数不超过同时存活的读者线程数与未释放句柄数之和。
+ * <p>
+ * 回收在写操作、{@link #reclaim()} 以及存在待回收项时的 {@link #unpin()} / {@link Pin#release()} 中尝试进行，
+ * 回收使用 tryLock，不会阻塞读者。读路径触发的回收不在读者线程上执行 {@link PipelineHandler#onRetire()}，
+ * 而是交给退役执行器（默认 {@link ForkJoinPool#commonPool()}）；写操作与 {@link #reclaim()} 在调用线程上执行。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class RcuHandlerRegistry implements PinnableHandlerRegistry {
+
+    private static final Comparator<PipelineHandler> ORDER_COMPARATOR =
+            Comparator.comparingInt(PipelineHandler::getOrder);
+
+    /**
+     * 读者槽位空闲标记
+     */
+    private static final long IDLE = Long.MAX_VALUE;
+
+    /**
+     * 写者锁（保护 handlers 与快照发布）
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * 回收锁（保护 retired 队列的消费）
+     */
+    private final ReentrantLock reclaimLock = new ReentrantLock();
+
+    /**
+     * 按注册顺序保存的处理器（仅在 writeLock 内访问）
+     */
+    private final Map<String, PipelineHandler> handlers = new LinkedHashMap<>();
+
+    /**
+     * 槽位锁（保护槽位数组的扩容与线程槽位的归还）
+     */
+    private final Object slotLock = new Object();
+
+    /**
+     * 所有读者槽位（只增不减，写时复制）
+     */
+    private volatile ReaderSlot[] slots = new ReaderSlot[0];
+
+    /**
+     * 空闲槽位
+     */
+    private final Queue<ReaderSlot> freeSlots = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<ReaderSlot> localSlot = ThreadLocal.withInitial(this::acquireLocalSlot);
+
+    /**
+     * 执行读路径触发的 onRetire 回调
+     */
+    private final Executor retireExecutor;
+
+    /**
+     * 待回收的处理器（仅在 reclaimLock 内消费）
+     */
+    private final Queue<Retired> retired = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 当前快照
+     */
+    private volatile List<PipelineHandler> snapshot = Collections.emptyList();
+
+    /**
+     * 全局纪元（仅在 writeLock 内推进）
+     */
+    private volatile long epoch = 1;
+
+    /**
+     * 是否存在待回收项（读路径仅读取）
+     */
+    private volatile boolean pendingRetirement;
+
+    /**
+     * 读路径触发的 onRetire 回调交给 {@link ForkJoinPool#commonPool()} 执行
+     */
+    public RcuHandlerRegistry() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param retireExecutor 执行读路径触发的 onRetire 回调的执行器
+     */
+    public RcuHandlerRegistry(@NonNull Executor retireExecutor) {
+        this.retireExecutor = retireExecutor;
+    }
+
+    // ================= 读路径 =================
+
+    @Override
+    public List<PipelineHandler> pin() {
+        ReaderSlot slot = localSlot.get();
+        if (slot.depth++ == 0) {
+            slot.pinnedEpoch = epoch;
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void unpin() {
+        ReaderSlot slot = localSlot.get();
+        if (slot.depth == 0) {
+            throw new IllegalStateException("unpin() without matching pin()");
+        }
+        if (--slot.depth == 0) {
+            slot.pinnedEpoch = IDLE;
+            if (pendingRetirement) {
+                reclaimDeferred();
+            }
+        }
+    }
+
+    @Override
+    public Pin pinDetached() {
+        // 与 pin() 相同的顺序：先写纪元（槽位已登记），再读取快照
+        ReaderSlot slot = acquireSlot();
+        slot.pinnedEpoch = epoch;
+        return new DetachedPin(slot, snapshot);
+    }
+
+    @Override
+    public List<PipelineHandler> getHandlers() {
+        return snapshot;
+    }
+
+    @Override
+    public PipelineHandler getHandler(String name) {
+        List<PipelineHandler> current = snapshot;
+        for (int i = 0, size = current.size(); i < size; i++) {
+            PipelineHandler handler = current.get(i);
+            if (handler.getName().equals(name)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    // ================= 写路径 =================
+
+    @Override
+    public void register(PipelineHandler handler) {
+        validate(handler);
+        synchronized (writeLock) {
+            publish(Collections.singletonList(handlers.put(handler.getName(), handler)));
+        }
+        reclaim();
+    }
+
+    @Override
+    public void registerAll(Collection<PipelineHandler> handlers) {
+        if (handlers == null || handlers.isEmpty()) {
+            return;
+        }
+        handlers.forEach(RcuHandlerRegistry::validate);
+        synchronized (writeLock) {
+            List<PipelineHandler> replaced = new ArrayList<>();
+            for (PipelineHandler handler : handlers) {
+                replaced.add(this.handlers.put(handler.getName(), handler));
+            }
+            publish(replaced);
+        }
+        reclaim();
+    }
+
+    @Override
+    public PipelineHandler removeHandler(String name) {
+        PipelineHandler removed;
+        synchronized (writeLock) {
+            removed = handlers.remove(name);
+            if (removed == null) {
+                return null;
+            }
+            publish(Collections.singletonList(removed));
+        }
+        reclaim();
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            if (handlers.isEmpty()) {
+                return;
+            }
+            List<PipelineHandler> removed = new ArrayList<>(handlers.values());
+            handlers.clear();
+            publish(removed);
+        }
+        reclaim();
+    }
+
+    /**
+     * 尝试回收已无执行引用的处理器，在当前线程上回调 onRetire
+     *
+     * @return 本次回调 onRetire 的处理器数量
+     */
+    public int reclaim() {
+        Deque<PipelineHandler> ready = collectRetired();
+        retire(ready);
+        return ready.size();
+    }
+
+    /**
+     * 读者槽位数量（含空闲槽位）
+     */
+    public int getReaderSlotCount() {
+        return slots.length;
+    }
+
+    /**
+     * 待回收的处理器数量
+     */
+    public int getPendingRetirementCount() {
+        return retired.size();
+    }
+
+    /**
+     * 发布新快照并登记被替换/移除的处理器（调用方须持有 writeLock）
+     */
+    private void publish(List<PipelineHandler> removed) {
+        List<PipelineHandler> sorted = new ArrayList<>(handlers.values());
+        // List.sort 为稳定排序，相同 order 保持注册顺序
+        sorted.sort(ORDER_COMPARATOR);
+        snapshot = Collections.unmodifiableList(sorted);
+        // 先发布快照再推进纪元：固定到新纪元的读者一定能看到新快照
+        long retireEpoch = ++epoch;
+        for (PipelineHandler handler : removed) {
+            // 同一实例仍在新快照中（如重复注册）时不退役
+            if (handler != null && !containsInstance(sorted, handler)) {
+                retired.add(new Retired(handler, retireEpoch));
+                pendingRetirement = true;
+            }
+        }
+    }
+
+    /**
+     * 读路径触发的回收：onRetire 回调交给退役执行器，不占用读者线程
+     */
+    private void reclaimDeferred() {
+        Deque<PipelineHandler> ready = collectRetired();
+        if (ready.isEmpty()) {
+            return;
+        }
+        try {
+            retireExecutor.execute(() -> retire(ready));
+        } catch (RejectedExecutionException e) {
+            log.warn("Retire executor rejected {} onRetire callbacks, running them inline", ready.size(), e);
+            retire(ready);
+        }
+    }
+
+    /**
+     * 取出已无执行引用的退役项（未取得回收锁时返回空）
+     */
+    private Deque<PipelineHandler> collectRetired() {
+        Deque<PipelineHandler> ready = new ArrayDeque<>();
+        if (retired.isEmpty() || !reclaimLock.tryLock()) {
+            return ready;
+        }
+        try {
+            // 先读取纪元再扫描槽位：扫描开始后才登记的退役项纪元必然更大，留待下次回收
+            long limit = Math.min(epoch, oldestPinnedEpoch());
+            Retired head;
+            while ((head = retired.peek()) != null && head.epoch <= limit) {
+                retired.poll();
+                ready.add(head.handler);
+            }
+            pendingRetirement = !retired.isEmpty();
+        } finally {
+            reclaimLock.unlock();
+        }
+        return ready;
+    }
+
+    private static void retire(Deque<PipelineHandler> ready) {
+        for (PipelineHandler handler : ready) {
+            try {
+                handler.onRetire();
+            } catch (RuntimeException e) {
+                log.warn("onRetire of handler [{}] failed", handler.getName(), e);
+            }
+        }
+    }
+
+    private long oldestPinnedEpoch() {
+        long oldest = IDLE;
+        boolean deadOwners = false;
+        for (ReaderSlot slot : slots) {
+            Thread owner = slot.owner;
+            if (owner != null && !owner.isAlive()) {
+                // 线程已结束，其槽位不再固定任何快照
+                deadOwners = true;
+                continue;
+            }
+            oldest = Math.min(oldest, slot.pinnedEpoch);
+        }
+        if (deadOwners) {
+            recycleDeadOwnerSlots();
+        }
+        return oldest;
+    }
+
+    /**
+     * 取得空闲槽位，没有时先归还已结束线程的槽位，仍没有才新建
+     */
+    private ReaderSlot acquireSlot() {
+        ReaderSlot slot = freeSlots.poll();
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (slotLock) {
+            recycleDeadOwnerSlots();
+            slot = freeSlots.poll();
+            if (slot != null) {
+                return slot;
+            }
+            slot = new ReaderSlot();
+            ReaderSlot[] current = slots;
+            ReaderSlot[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = slot;
+            slots = grown;
+            return slot;
+        }
+    }
+
+    private ReaderSlot acquireLocalSlot() {
+        ReaderSlot slot = acquireSlot();
+        slot.owner = Thread.currentThread();
+        return slot;
+    }
+
+    /**
+     * 归还所属线程已结束的槽位
+     */
+    private void recycleDeadOwnerSlots() {
+        synchronized (slotLock) {
+            for (ReaderSlot slot : slots) {
+                Thread owner = slot.owner;
+                if (owner != null && !owner.isAlive()) {
+                    slot.owner = null;
+                    slot.depth = 0;
+                    slot.pinnedEpoch = IDLE;
+                    freeSlots.offer(slot);
+                }
+            }
+        }
+    }
+
+    private static boolean containsInstance(List<PipelineHandler> handlers, PipelineHandler handler) {
+        for (PipelineHandler candidate : handlers) {
+            if (candidate == handler) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void validate(PipelineHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler must not be null");
+        }
+        if (handler.getName() == null || handler.getName().isEmpty()) {
+            throw new IllegalArgumentException("handler name must not be empty: " + handler.getClass().getName());
+        }
+    }
+
+    /**
+     * 读者槽位（同一时刻只属于一个线程或一个独立句柄）
+     */
+    private static final class ReaderSlot {
+
+        /**
+         * 固定的纪元，空闲时为 {@link #IDLE}（由持有者写，回收线程读）
+         */
+        private volatile long pinnedEpoch = IDLE;
+
+        /**
+         * 重入深度（仅所属线程访问）
+         */
+        private int depth;
+
+        /**
+         * 线程槽位的所属线程（独立槽位与空闲槽位为null，线程结束后在 slotLock 内归还）
+         */
+        private volatile Thread owner;
+    }
+
+    /**
+     * 独立槽位的固定句柄
+     */
+    private final class DetachedPin implements Pin {
+
+        private final ReaderSlot slot;
+
+        private final List<PipelineHandler> handlers;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private DetachedPin(ReaderSlot slot, List<PipelineHandler> handlers) {
+            this.slot = slot;
+            this.handlers = handlers;
+        }
+
+        @Override
+        public List<PipelineHandler> getHandlers() {
+            return handlers;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            slot.pinnedEpoch = IDLE;
+            freeSlots.offer(slot);
+            if (pendingRetirement) {
+                reclaimDeferred();
+            }
+        }
+    }
+
+    /**
+     * 待回收项
+     */
+    private record Retired(PipelineHandler handler, long epoch) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 上下文属性编解码器
+ * <p>
+ * 录制时把管道开始前的属性编码写入录制文件，回放时解码后放回新建的上下文。
+ * 无法编码的属性可以直接跳过，回放时该属性缺失。
+ *
+ * @author wangguangwu
+ */
+public interface AttributeCodec {
+
+    /**
+     * 编码属性
+     *
+     * @param attributes 属性快照（只读）
+     * @return 编码结果
+     * @throws IOException 编码失败（该次执行不录制）
+     */
+    byte[] encode(Map<String, Object> attributes) throws IOException;
+
+    /**
+     * 解码属性
+     *
+     * @param data 编码结果
+     * @return 属性（可修改）
+     * @throws IOException 数据损坏
+     */
+    Map<String, Object> decode(byte[] data) throws IOException;
+}
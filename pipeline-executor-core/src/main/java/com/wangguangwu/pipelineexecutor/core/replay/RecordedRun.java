@@ -0,0 +1,19 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import java.util.Map;
+
+/**
+ * 一次录制的管道执行
+ *
+ * @param arrivalOffsetNanos 相对录制开始的到达时间（纳秒）
+ * @param contextId          原上下文ID
+ * @param metadata           元数据
+ * @param attributes         管道开始前的属性（已解码）
+ * @param handlerLatencies   各处理器耗时（纳秒，含重试，按执行顺序）
+ * @param elapsedNanos       管道总耗时（纳秒）
+ * @author wangguangwu
+ */
+public record RecordedRun(long arrivalOffsetNanos, String contextId, Map<String, String> metadata,
+                          Map<String, Object> attributes, Map<String, Long> handlerLatencies,
+                          long elapsedNanos) {
+}
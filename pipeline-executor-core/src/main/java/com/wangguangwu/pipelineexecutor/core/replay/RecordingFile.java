@@ -0,0 +1,119 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 录制文件格式
+ * <p>
+ * 文件头为魔数与版本号，随后是顺序追加的执行记录：
+ * <pre>
+ * long   到达时间偏移
+ * UTF    上下文ID
+ * int    元数据条数，随后为 UTF 键值对
+ * int    属性编码长度，随后为编码字节
+ * int    处理器条数，随后为 UTF 名称与 long 耗时
+ * long   管道总耗时
+ * </pre>
+ * 读取时容忍末尾不完整的记录（录制进程异常退出）。
+ *
+ * @author wangguangwu
+ */
+public final class RecordingFile {
+
+    static final int MAGIC = 0x50524543;
+
+    static final int VERSION = 1;
+
+    private RecordingFile() {
+    }
+
+    /**
+     * 读取录制文件
+     *
+     * @param file  文件路径
+     * @param codec 属性编解码器（须与录制时一致）
+     * @return 按录制顺序排列的执行记录
+     * @throws IOException 文件不存在、格式不符或数据损坏
+     */
+    public static List<RecordedRun> read(@NonNull Path file, @NonNull AttributeCodec codec) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a pipeline recording: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported recording version " + version + ": " + file);
+            }
+            List<RecordedRun> runs = new ArrayList<>();
+            while (true) {
+                long arrivalOffset;
+                try {
+                    arrivalOffset = in.readLong();
+                } catch (EOFException e) {
+                    return runs;
+                }
+                try {
+                    runs.add(readRun(in, codec, arrivalOffset));
+                } catch (EOFException e) {
+                    return runs;
+                }
+            }
+        }
+    }
+
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    static void writeRun(DataOutputStream out, long arrivalOffset, String contextId, Map<String, String> metadata,
+                         byte[] attributes, Map<String, Long> handlerLatencies, long elapsedNanos) throws IOException {
+        out.writeLong(arrivalOffset);
+        out.writeUTF(contextId);
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.writeInt(attributes.length);
+        out.write(attributes);
+        out.writeInt(handlerLatencies.size());
+        for (Map.Entry<String, Long> entry : handlerLatencies.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeLong(elapsedNanos);
+    }
+
+    private static RecordedRun readRun(DataInputStream in, AttributeCodec codec, long arrivalOffset) throws IOException {
+        String contextId = in.readUTF();
+        int metadataCount = in.readInt();
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (int i = 0; i < metadataCount; i++) {
+            metadata.put(in.readUTF(), in.readUTF());
+        }
+        byte[] encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        int handlerCount = in.readInt();
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        for (int i = 0; i < handlerCount; i++) {
+            latencies.put(in.readUTF(), in.readLong());
+        }
+        long elapsedNanos = in.readLong();
+        return new RecordedRun(arrivalOffset, contextId, metadata, codec.decode(encoded), latencies, elapsedNanos);
+    }
+}
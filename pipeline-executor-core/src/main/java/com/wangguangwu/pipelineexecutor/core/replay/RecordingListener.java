@@ -0,0 +1,269 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.CompletePipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 管道执行录制监听器（线程安全）
+ * <p>
+ * 以监听器形式接入执行器，按 1/N 的概率抽样管道执行并追加写入本地录制文件：
+ * <ul>
+ *   <li>{@code beforePipeline} 时记录到达时间、元数据，并通过 {@link AttributeCodec} 编码当前属性</li>
+ *   <li>处理器耗时从首次 {@code onHandlerStart} 计到最后一次 {@code onHandlerComplete} / {@code onError}，包含重试</li>
+ *   <li>{@code afterPipeline} 时先在锁外把记录完整序列化到内存，再在锁内一次写入</li>
+ * </ul>
+ * 失败只记录日志，不影响管道执行：序列化失败（如字符串过长）丢弃该条记录，文件不受影响；
+ * 写入文件失败时停止录制，文件末尾可能留下一条不完整的记录，读取时会被忽略。录制文件通过 {@link RecordingFile#read} 读取，
+ * 交给 {@link ReplayHarness} 回放。使用完毕后须调用 {@link #close()} 刷新缓冲。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class RecordingListener implements PipelineListener, Closeable {
+
+    private final AttributeCodec codec;
+
+    private final int sampleEvery;
+
+    private final long originNanos = System.nanoTime();
+
+    /**
+     * 正在录制的执行
+     */
+    private final Map<PipelineContext, Capture> captures = new ConcurrentHashMap<>();
+
+    /**
+     * 写入锁，同时保护 closed 标记
+     */
+    private final Object writeLock = new Object();
+
+    private final DataOutputStream out;
+
+    private boolean closed;
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param file        录制文件（已存在时覆盖）
+     * @param codec       属性编解码器
+     * @param sampleEvery 抽样间隔（每N次执行录制一次，1表示全部录制）
+     * @throws IOException 文件无法创建
+     */
+    public RecordingListener(@NonNull Path file, @NonNull AttributeCodec codec, int sampleEvery) throws IOException {
+        if (sampleEvery <= 0) {
+            throw new IllegalArgumentException("sampleEvery must be > 0");
+        }
+        this.codec = codec;
+        this.sampleEvery = sampleEvery;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        RecordingFile.writeHeader(out);
+    }
+
+    // ================= 监听器回调 =================
+
+    @Override
+    public void beforePipeline(PipelineContext context) {
+        if (sampleEvery != 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        long arrivalOffset = System.nanoTime() - originNanos;
+        Map<String, String> metadata = context instanceof CompletePipelineContext<?> complete
+                ? new LinkedHashMap<>(complete.getMetadata())
+                : Collections.emptyMap();
+        Map<String, Object> attributes = context instanceof AttributeStore store
+                ? new HashMap<>(store.getAllAttributes())
+                : Collections.emptyMap();
+        byte[] encoded;
+        try {
+            encoded = codec.encode(Collections.unmodifiableMap(attributes));
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+            log.warn("Failed to encode attributes of context [{}], not recorded", context.getContextId(), e);
+            return;
+        }
+        captures.put(context, new Capture(arrivalOffset, metadata, encoded));
+    }
+
+    @Override
+    public void onHandlerStart(PipelineContext context, PipelineHandler handler) {
+        Capture capture = captures.get(context);
+        if (capture != null) {
+            capture.start(handler.getName(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onHandlerComplete(PipelineContext context, PipelineHandler handler, long elapsedNanos) {
+        Capture capture = captures.get(context);
+        if (capture != null) {
+            capture.end(handler.getName(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public ErrorStrategy onError(PipelineContext context, PipelineHandler handler, Throwable error) {
+        Capture capture = captures.get(context);
+        if (capture != null) {
+            capture.end(handler.getName(), System.nanoTime());
+        }
+        return PipelineListener.super.onError(context, handler, error);
+    }
+
+    @Override
+    public void afterPipeline(PipelineContext context, long elapsedNanos) {
+        Capture capture = captures.remove(context);
+        if (capture == null) {
+            return;
+        }
+        byte[] record;
+        try {
+            record = capture.serialize(context.getContextId(), elapsedNanos);
+        } catch (IOException e) {
+            dropped.increment();
+            log.warn("Failed to serialize context [{}], not recorded", context.getContextId(), e);
+            return;
+        }
+        synchronized (writeLock) {
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+            try {
+                out.write(record);
+                recorded.increment();
+            } catch (IOException e) {
+                // 文件中可能已写入部分记录，之后的记录无法再对齐：停止录制
+                dropped.increment();
+                closed = true;
+                captures.clear();
+                log.warn("Failed to record context [{}], recording stopped", context.getContextId(), e);
+                closeQuietly();
+            }
+        }
+    }
+
+    // ================= 管理 =================
+
+    /**
+     * 刷新写入缓冲
+     *
+     * @throws IOException 写入失败
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            if (!closed) {
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * 停止录制并关闭文件（幂等），之后结束的执行不再录制
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            captures.clear();
+            out.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.debug("Failed to close recording after write failure", e);
+        }
+    }
+
+    /**
+     * 已录制的执行数
+     */
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * 因编码或写入失败、或录制已停止而丢弃的执行数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 单次执行的录制数据
+     */
+    private static final class Capture {
+
+        /**
+         * 序列化缓冲的初始容量中为属性以外的字段预留的字节数
+         */
+        private static final int RECORD_OVERHEAD = 256;
+
+        private final long arrivalOffset;
+
+        private final Map<String, String> metadata;
+
+        private final byte[] attributes;
+
+        /**
+         * 处理器首次开始时间
+         */
+        private final Map<String, Long> starts = new HashMap<>();
+
+        private final Map<String, Long> latencies = new LinkedHashMap<>();
+
+        private Capture(long arrivalOffset, Map<String, String> metadata, byte[] attributes) {
+            this.arrivalOffset = arrivalOffset;
+            this.metadata = metadata;
+            this.attributes = attributes;
+        }
+
+        private synchronized void start(String handler, long now) {
+            starts.putIfAbsent(handler, now);
+        }
+
+        private synchronized void end(String handler, long now) {
+            Long start = starts.get(handler);
+            if (start != null) {
+                latencies.put(handler, now - start);
+            }
+        }
+
+        /**
+         * 序列化为一条完整的记录
+         */
+        private synchronized byte[] serialize(String contextId, long elapsedNanos) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(RECORD_OVERHEAD + attributes.length);
+            RecordingFile.writeRun(new DataOutputStream(buffer), arrivalOffset, contextId, metadata, attributes,
+                    latencies, elapsedNanos);
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import com.wangguangwu.pipelineexecutor.core.budget.LatencyHistogram;
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineExecutor;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+import lombok.NonNull;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 录制回放压测工具
+ * <p>
+ * 按录制顺序循环使用录制的执行构造上下文（元数据、属性与原处理器耗时），对任意 {@link PipelineExecutor} 施加负载：
+ * <ul>
+ *   <li>开环（{@link #runOpenLoop}）：按固定速率通过 {@code executeAsync} 发送，不等待前一个请求完成；
+ *       延迟从计划发送时间起算，被测系统变慢导致的发送滞后计入延迟，避免协调遗漏</li>
+ *   <li>闭环（{@link #runClosedLoop}）：固定数量的工作线程各自同步执行；给定期望间隔时，
+ *       对超过间隔的样本按间隔递减补齐本应发出却被阻塞的请求</li>
+ * </ul>
+ * {@link #stubRegistry()} 生成与录制处理器同名的桩处理器，按上下文中的录制耗时阻塞，
+ * 可在没有下游依赖的环境中复现原管道的耗时分布，用于评估执行器、调度器本身。
+ * <p>
+ * 延迟直方图的相对误差不超过 1/128。
+ *
+ * @author wangguangwu
+ */
+public class ReplayHarness {
+
+    /**
+     * 回放上下文中保存录制处理器耗时的属性键（值为 {@code Map<String, Long>}）
+     */
+    public static final String LATENCIES_ATTRIBUTE = "replay.handlerLatencies";
+
+    private static final int HISTOGRAM_SUB_BUCKET_BITS = 7;
+
+    private final List<RecordedRun> runs;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * @param runs 录制的执行（非空）
+     */
+    public ReplayHarness(@NonNull List<RecordedRun> runs) {
+        if (runs.isEmpty()) {
+            throw new IllegalArgumentException("runs must not be empty");
+        }
+        this.runs = List.copyOf(runs);
+    }
+
+    /**
+     * 生成桩处理器注册中心
+     * <p>
+     * 每个录制过的处理器名称对应一个桩处理器，执行顺序为名称首次出现的顺序。
+     */
+    public HandlerRegistry stubRegistry() {
+        Set<String> names = new LinkedHashSet<>();
+        for (RecordedRun run : runs) {
+            names.addAll(run.handlerLatencies().keySet());
+        }
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        int order = 0;
+        for (String name : names) {
+            registry.register(new StubHandler(name, order++));
+        }
+        return registry;
+    }
+
+    /**
+     * 按录制记录构造回放上下文
+     *
+     * @param run 录制的执行
+     * @return 新上下文（ID 为原ID加回放序号）
+     */
+    public PipelineContext newContext(@NonNull RecordedRun run) {
+        DefaultPipelineContext<Object> context = new DefaultPipelineContext<>(
+                run.contextId() + "-replay-" + sequence.incrementAndGet(), run.metadata());
+        run.attributes().forEach(context::setAttribute);
+        context.setAttribute(LATENCIES_ATTRIBUTE, run.handlerLatencies());
+        return context;
+    }
+
+    /**
+     * 开环回放
+     *
+     * @param executor      被测执行器
+     * @param ratePerSecond 发送速率（次/秒，>0）
+     * @param requests      请求数（>0）
+     * @return 报告（等待全部请求完成后返回）
+     * @throws InterruptedException 等待期间被中断
+     */
+    public ReplayReport runOpenLoop(@NonNull PipelineExecutor executor, double ratePerSecond, int requests)
+            throws InterruptedException {
+        if (ratePerSecond <= 0 || requests <= 0) {
+            throw new IllegalArgumentException("ratePerSecond and requests must be > 0");
+        }
+        double intervalNanos = 1e9 / ratePerSecond;
+        Recorder corrected = new Recorder();
+        Recorder uncorrected = new Recorder();
+        LongAdder errors = new LongAdder();
+        CountDownLatch completed = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+                // 中断后 parkNanos 立即返回，不检查会空转到预定时间
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            PipelineContext context = newContext(runs.get(i % runs.size()));
+            long sent = System.nanoTime();
+            CompletableFuture<PipelineResult> future;
+            try {
+                future = executor.executeAsync(context);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((result, error) -> {
+                // 记录或关闭上下文失败也要计数，否则 await 永远不返回
+                try {
+                    long now = System.nanoTime();
+                    corrected.record(now - intended);
+                    uncorrected.record(now - sent);
+                    if (error != null || !result.isSuccess()) {
+                        errors.increment();
+                    }
+                    context.close();
+                } finally {
+                    completed.countDown();
+                }
+            });
+        }
+        completed.await();
+        long elapsed = System.nanoTime() - start;
+        return report(String.format("open-loop @ %.1f req/s", ratePerSecond), requests, errors.sum(), elapsed,
+                corrected, uncorrected);
+    }
+
+    /**
+     * 闭环回放
+     *
+     * @param executor              被测执行器
+     * @param concurrency           工作线程数（>0）
+     * @param requests              请求数（>0）
+     * @param expectedIntervalNanos 单个工作线程的期望发送间隔（纳秒，≤0 表示不校正）
+     * @return 报告
+     * @throws InterruptedException 等待期间被中断（工作线程随之停止）
+     */
+    public ReplayReport runClosedLoop(@NonNull PipelineExecutor executor, int concurrency, int requests,
+                                      long expectedIntervalNanos) throws InterruptedException {
+        if (concurrency <= 0 || requests <= 0) {
+            throw new IllegalArgumentException("concurrency and requests must be > 0");
+        }
+        Recorder corrected = new Recorder();
+        Recorder uncorrected = new Recorder();
+        LongAdder errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+        Thread[] workers = new Thread[concurrency];
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers[w] = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < requests && !Thread.currentThread().isInterrupted();
+                     i = next.getAndIncrement()) {
+                    try (PipelineContext context = newContext(runs.get(i % runs.size()))) {
+                        long sent = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = executor.execute(context).isSuccess();
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        long latency = System.nanoTime() - sent;
+                        if (!success) {
+                            errors.increment();
+                        }
+                        uncorrected.record(latency);
+                        corrected.recordWithExpectedInterval(latency, expectedIntervalNanos);
+                    }
+                }
+            }, "pipeline-replay-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        long completed = Math.min(next.get(), requests);
+        return report("closed-loop x" + concurrency, completed, errors.sum(), elapsed, corrected, uncorrected);
+    }
+
+    private static ReplayReport report(String mode, long requests, long errors, long elapsedNanos,
+                                       Recorder corrected, Recorder uncorrected) {
+        double throughput = elapsedNanos <= 0 ? 0 : requests / (elapsedNanos / 1e9);
+        return new ReplayReport(mode, requests, errors, elapsedNanos, throughput,
+                corrected.toLatency(), uncorrected.toLatency());
+    }
+
+    /**
+     * 延迟记录（不衰减的细粒度直方图加精确最大值）
+     */
+    private static final class Recorder {
+
+        private final LatencyHistogram histogram = new LatencyHistogram(Long.MAX_VALUE, HISTOGRAM_SUB_BUCKET_BITS);
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        private void record(long nanos) {
+            histogram.record(nanos);
+            max.accumulate(nanos);
+        }
+
+        /**
+         * 记录样本，并为超过期望间隔的部分补齐 latency - interval、latency - 2*interval … 的样本
+         */
+        private void recordWithExpectedInterval(long nanos, long expectedIntervalNanos) {
+            record(nanos);
+            if (expectedIntervalNanos <= 0) {
+                return;
+            }
+            for (long missing = nanos - expectedIntervalNanos; missing >= expectedIntervalNanos;
+                 missing -= expectedIntervalNanos) {
+                histogram.record(missing);
+            }
+        }
+
+        private ReplayReport.Latency toLatency() {
+            return ReplayReport.Latency.of(histogram, max.get());
+        }
+    }
+
+    /**
+     * 按录制耗时阻塞的桩处理器
+     */
+    private static final class StubHandler implements PipelineHandler {
+
+        private final String name;
+
+        private final int order;
+
+        private StubHandler(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void handle(PipelineContext context) throws PipelineException {
+            if (!(context instanceof AttributeStore store)) {
+                return;
+            }
+            Map<?, ?> latencies = store.getAttribute(LATENCIES_ATTRIBUTE, Map.class);
+            Object latency = latencies == null ? null : latencies.get(name);
+            if (!(latency instanceof Long nanos)) {
+                return;
+            }
+            long deadline = System.nanoTime() + nanos;
+            for (long remaining = nanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) {
+                    // 执行被取消（如超时）：中断后 parkNanos 立即返回，继续等待会空转
+                    throw new PipelineException("Replay stub interrupted", name, PipelineStatus.CANCELLED);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import com.wangguangwu.pipelineexecutor.core.budget.LatencyHistogram;
+
+/**
+ * 回放压测报告
+ *
+ * @param mode                压测模式描述
+ * @param requests            请求数
+ * @param errors              失败数（执行异常或结果非成功）
+ * @param elapsedNanos        总耗时（纳秒）
+ * @param throughputPerSecond 吞吐（次/秒）
+ * @param corrected           校正协调遗漏后的延迟（开环从计划发送时间起算；闭环按期望间隔补齐被遗漏的样本）
+ * @param uncorrected         未校正的服务延迟（从实际发送时间起算）
+ * @author wangguangwu
+ */
+public record ReplayReport(String mode, long requests, long errors, long elapsedNanos, double throughputPerSecond,
+                           Latency corrected, Latency uncorrected) {
+
+    /**
+     * 文本报告
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d requests, %d errors, %.1f ms, %.1f req/s%n",
+                mode, requests, errors, elapsedNanos / 1e6, throughputPerSecond));
+        sb.append(String.format("%-12s %10s %10s %10s %10s %10s %10s%n",
+                "latency(ms)", "samples", "p50", "p90", "p99", "p99.9", "max"));
+        corrected.appendTo(sb, "corrected");
+        uncorrected.appendTo(sb, "uncorrected");
+        return sb.toString();
+    }
+
+    /**
+     * 延迟分位数（纳秒，分位值为直方图桶上界）
+     *
+     * @param samples 样本数（校正后包含补齐的样本）
+     * @param p50     50分位
+     * @param p90     90分位
+     * @param p99     99分位
+     * @param p999    99.9分位
+     * @param max     最大值（精确值）
+     */
+    public record Latency(long samples, long p50, long p90, long p99, long p999, long max) {
+
+        static Latency of(LatencyHistogram histogram, long max) {
+            return new Latency(histogram.getCount(), histogram.valueAtPercentile(0.5),
+                    histogram.valueAtPercentile(0.9), histogram.valueAtPercentile(0.99),
+                    histogram.valueAtPercentile(0.999), max);
+        }
+
+        private void appendTo(StringBuilder sb, String label) {
+            sb.append(String.format("%-12s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    label, samples, p50 / 1e6, p90 / 1e6, p99 / 1e6, p999 / 1e6, max / 1e6));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 带类型标记的默认属性编解码器
+ * <p>
+ * 支持 {@link String}、{@link Integer}、{@link Long}、{@link Double}、{@link Boolean} 与 {@code byte[]}，
+ * 其余类型的属性跳过不录制。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class TaggedAttributeCodec implements AttributeCodec {
+
+    private static final byte TAG_STRING = 1;
+
+    private static final byte TAG_INT = 2;
+
+    private static final byte TAG_LONG = 3;
+
+    private static final byte TAG_DOUBLE = 4;
+
+    private static final byte TAG_BOOLEAN = 5;
+
+    private static final byte TAG_BYTES = 6;
+
+    @Override
+    public byte[] encode(Map<String, Object> attributes) throws IOException {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(entries);
+        int count = 0;
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            if (writeEntry(out, entry.getKey(), entry.getValue())) {
+                count++;
+            } else {
+                log.debug("Skip attribute [{}] of unsupported type {}", entry.getKey(),
+                        entry.getValue() == null ? null : entry.getValue().getClass().getName());
+            }
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream(entries.size() + 4);
+        DataOutputStream header = new DataOutputStream(result);
+        header.writeInt(count);
+        entries.writeTo(result);
+        return result.toByteArray();
+    }
+
+    @Override
+    public Map<String, Object> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int count = in.readInt();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            byte tag = in.readByte();
+            Object value = switch (tag) {
+                case TAG_STRING -> new String(readBytes(in), StandardCharsets.UTF_8);
+                case TAG_INT -> in.readInt();
+                case TAG_LONG -> in.readLong();
+                case TAG_DOUBLE -> in.readDouble();
+                case TAG_BOOLEAN -> in.readBoolean();
+                case TAG_BYTES -> readBytes(in);
+                default -> throw new IOException("Unknown attribute tag " + tag + " for [" + key + "]");
+            };
+            attributes.put(key, value);
+        }
+        return attributes;
+    }
+
+    private static boolean writeEntry(DataOutputStream out, String key, Object value) throws IOException {
+        if (value instanceof String s) {
+            writeHeader(out, key, TAG_STRING);
+            writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer i) {
+            writeHeader(out, key, TAG_INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            writeHeader(out, key, TAG_LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            writeHeader(out, key, TAG_DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            writeHeader(out, key, TAG_BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof byte[] bytes) {
+            writeHeader(out, key, TAG_BYTES);
+            writeBytes(out, bytes);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeHeader(DataOutputStream out, String key, byte tag) throws IOException {
+        out.writeUTF(key);
+        out.writeByte(tag);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
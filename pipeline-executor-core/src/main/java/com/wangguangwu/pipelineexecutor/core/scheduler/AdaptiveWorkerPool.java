@@ -0,0 +1,604 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.executor.PipelineDispatcher;
+import com.wangguangwu.pipelineexecutor.core.jfr.PipelineEvents;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按实测阻塞比例自动调整线程数的工作线程池（线程安全）
+ * <p>
+ * 作为 {@link PipelineDispatcher} 执行异步管道任务，记录每个任务的排队时长与工作线程执行任务的墙钟时间。
+ * 独立的评估线程（单个守护线程）按观察窗口定时评估，工作线程全部阻塞、没有任务完成时同样能够评估：
+ * <ul>
+ *   <li>墙钟时间包含窗口内仍在执行的任务已运行的部分，CPU 时间取各工作线程在窗口内的 CPU 时间增量（{@link ThreadMXBean}）</li>
+ *   <li>阻塞比例 W/C =（墙钟时间 − CPU 时间）/ CPU 时间</li>
+ *   <li>目标线程数 = CPU 核数 × 目标利用率 ×（1 + W/C），按上下限截断</li>
+ *   <li>目标大于当前线程数、存在排队（平均排队时长超过阈值或队列非空），且进程 CPU 利用率低于目标利用率时扩容</li>
+ *   <li>目标小于当前线程数时缩容</li>
+ * </ul>
+ * 线程处于可运行状态但未分到 CPU 的时间同样计入 W，CPU 饱和时阻塞比例随线程数上升而虚高；
+ * 扩容前检查进程 CPU 利用率（{@link com.sun.management.OperatingSystemMXBean#getProcessCpuTime()}），
+ * 避免在 CPU 已饱和时持续扩容直到上限。平台不提供进程 CPU 时间时不做该检查。
+ * 滞回：目标与当前线程数之差不小于当前线程数 × hysteresis（至少1），且连续两个窗口方向一致才调整。
+ * 每次调整记录一条 {@link Resize}（含阻塞比例、排队时长与原因），同时输出日志与 JFR 事件。
+ * <p>
+ * 同时注册为执行器监听器（{@code executor.addListener(pool)}）时，额外按处理器统计 CPU 与墙钟时间，
+ * 通过 {@link #getHandlerLoads()} 查看哪些处理器贡献了阻塞；只统计首次尝试在同一线程上完成的处理器 CPU 时间。
+ * 平台不支持线程 CPU 计时时阻塞比例按0处理，线程数收敛到 CPU 核数 × 目标利用率。
+ * 不再使用时调用 {@link #shutdown()} 停止评估线程。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class AdaptiveWorkerPool implements PipelineDispatcher, PipelineListener {
+
+    public static final long DEFAULT_EVALUATION_INTERVAL_MILLIS = 1000;
+
+    public static final double DEFAULT_TARGET_UTILIZATION = 0.9;
+
+    public static final double DEFAULT_HYSTERESIS = 0.2;
+
+    /**
+     * 平均排队时长超过该值视为存在积压
+     */
+    private static final long QUEUE_WAIT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * 方向一致才调整所需的连续窗口数
+     */
+    private static final int CONFIRM_WINDOWS = 2;
+
+    private static final int HISTORY_CAPACITY = 32;
+
+    /**
+     * 工作线程空闲
+     */
+    private static final long IDLE = 0L;
+
+    private final int cpus = Runtime.getRuntime().availableProcessors();
+
+    private final int minThreads;
+
+    private final int maxThreads;
+
+    private final long intervalNanos;
+
+    private final double targetUtilization;
+
+    private final double hysteresis;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 评估线程（单个守护线程，按观察窗口定时评估）
+     */
+    private final ScheduledThreadPoolExecutor evaluator;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final boolean cpuTimeSupported;
+
+    /**
+     * 提供进程 CPU 时间的系统 MXBean，平台不支持时为null
+     */
+    private final com.sun.management.OperatingSystemMXBean processBean = processBean();
+
+    /**
+     * 存活的工作线程
+     */
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+
+    // ================= 当前窗口 =================
+
+    /**
+     * 窗口内完成的任务数
+     */
+    private final LongAdder windowTasks = new LongAdder();
+
+    /**
+     * 窗口内开始执行的任务数（排队时长按开始执行时记录）
+     */
+    private final LongAdder windowStarted = new LongAdder();
+
+    private final LongAdder windowWallNanos = new LongAdder();
+
+    private final LongAdder windowQueueWaitNanos = new LongAdder();
+
+    // ================= 评估状态（仅由评估线程修改） =================
+
+    private int pendingDirection;
+
+    private int pendingWindows;
+
+    private long lastEvaluationNanos;
+
+    private long lastProcessCpuNanos;
+
+    private volatile int size;
+
+    private volatile double lastBlockingRatio;
+
+    private volatile double lastProcessCpuUtilization = Double.NaN;
+
+    private volatile long lastAvgQueueWaitNanos;
+
+    private volatile int lastTargetSize;
+
+    private final Deque<Resize> history = new ArrayDeque<>();
+
+    private final LongAdder resizes = new LongAdder();
+
+    // ================= 处理器统计 =================
+
+    private final Map<PipelineContext, HandlerSample> handlerSamples = new ConcurrentHashMap<>();
+
+    private final Map<String, HandlerStats> handlerStats = new ConcurrentHashMap<>();
+
+    /**
+     * 默认参数：队列无界，窗口1秒，目标利用率0.9，滞回0.2
+     *
+     * @param minThreads 最小线程数（>0）
+     * @param maxThreads 最大线程数（≥minThreads）
+     */
+    public AdaptiveWorkerPool(int minThreads, int maxThreads) {
+        this(minThreads, maxThreads, Integer.MAX_VALUE, DEFAULT_EVALUATION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS,
+                DEFAULT_TARGET_UTILIZATION, DEFAULT_HYSTERESIS);
+    }
+
+    /**
+     * @param minThreads         最小线程数（>0）
+     * @param maxThreads         最大线程数（≥minThreads）
+     * @param queueCapacity      队列容量（>0，满时拒绝）
+     * @param evaluationInterval 观察窗口（>0）
+     * @param unit               时间单位
+     * @param targetUtilization  目标 CPU 利用率（0~1]
+     * @param hysteresis         调整阈值占当前线程数的比例（≥0）
+     */
+    public AdaptiveWorkerPool(int minThreads, int maxThreads, int queueCapacity, long evaluationInterval,
+                              @NonNull TimeUnit unit, double targetUtilization, double hysteresis) {
+        if (minThreads <= 0 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("require 0 < minThreads <= maxThreads");
+        }
+        if (queueCapacity <= 0 || evaluationInterval <= 0) {
+            throw new IllegalArgumentException("queueCapacity and evaluationInterval must be > 0");
+        }
+        if (targetUtilization <= 0 || targetUtilization > 1 || hysteresis < 0) {
+            throw new IllegalArgumentException("require 0 < targetUtilization <= 1 and hysteresis >= 0");
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.intervalNanos = unit.toNanos(evaluationInterval);
+        this.targetUtilization = targetUtilization;
+        this.hysteresis = hysteresis;
+        this.cpuTimeSupported = enableCpuTime(threadBean);
+        this.size = clamp(cpus);
+        this.lastTargetSize = size;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> new Worker(runnable, "pipeline-adaptive-" + threadIndex.getAndIncrement()));
+        this.lastEvaluationNanos = System.nanoTime();
+        this.lastProcessCpuNanos = processCpuTime();
+        this.evaluator = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-adaptive-evaluator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evaluator.scheduleAtFixedRate(this::evaluateSafely, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ================= 调度 =================
+
+    @Override
+    public void dispatch(PipelineContext context, Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> {
+            Worker worker = (Worker) Thread.currentThread();
+            long start = System.nanoTime();
+            windowStarted.increment();
+            windowQueueWaitNanos.add(start - enqueuedAt);
+            worker.busySince.set(start);
+            try {
+                task.run();
+            } finally {
+                // 评估线程可能已把开始时间推进到窗口边界，只计入尚未计入的部分
+                windowWallNanos.add(System.nanoTime() - worker.busySince.getAndSet(IDLE));
+                windowTasks.increment();
+            }
+        });
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 停止接收新任务并停止评估，已接收的任务继续执行
+     */
+    public void shutdown() {
+        evaluator.shutdownNow();
+        executor.shutdown();
+    }
+
+    // ================= 处理器统计（监听器回调） =================
+
+    @Override
+    public void onHandlerStart(PipelineContext context, PipelineHandler handler) {
+        handlerSamples.put(context, new HandlerSample(handler.getName(), Thread.currentThread(),
+                System.nanoTime(), cpuTime()));
+    }
+
+    @Override
+    public void onHandlerComplete(PipelineContext context, PipelineHandler handler, long elapsedNanos) {
+        recordHandler(context);
+    }
+
+    @Override
+    public ErrorStrategy onError(PipelineContext context, PipelineHandler handler, Throwable error) {
+        recordHandler(context);
+        return PipelineListener.super.onError(context, handler, error);
+    }
+
+    @Override
+    public void afterPipeline(PipelineContext context, long elapsedNanos) {
+        handlerSamples.remove(context);
+    }
+
+    // ================= 指标 =================
+
+    /**
+     * 当前线程数设定
+     */
+    public int getPoolSize() {
+        return size;
+    }
+
+    /**
+     * 正在执行任务的线程数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 最近一个窗口的阻塞比例（W/C）
+     */
+    public double getLastBlockingRatio() {
+        return lastBlockingRatio;
+    }
+
+    /**
+     * 最近一个窗口的进程 CPU 利用率（0~1，占全部 CPU 核），平台不支持时返回 NaN
+     */
+    public double getLastProcessCpuUtilization() {
+        return lastProcessCpuUtilization;
+    }
+
+    /**
+     * 最近一个窗口的平均排队时长（纳秒）
+     */
+    public long getLastAvgQueueWaitNanos() {
+        return lastAvgQueueWaitNanos;
+    }
+
+    /**
+     * 最近一个窗口计算的目标线程数
+     */
+    public int getLastTargetSize() {
+        return lastTargetSize;
+    }
+
+    /**
+     * 累计调整次数
+     */
+    public long getResizeCount() {
+        return resizes.sum();
+    }
+
+    /**
+     * 最近的调整记录（按时间先后，最多保留32条）
+     */
+    public List<Resize> getResizeHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /**
+     * 各处理器的负载统计（按名称排序）
+     */
+    public Map<String, HandlerLoad> getHandlerLoads() {
+        Map<String, HandlerLoad> loads = new TreeMap<>();
+        handlerStats.forEach((name, stats) -> loads.put(name, stats.toLoad()));
+        return loads;
+    }
+
+    // ================= 内部实现 =================
+
+    /**
+     * 评估线程的入口：异常只记录日志，不终止后续评估
+     */
+    private void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (RuntimeException e) {
+            log.warn("Adaptive pool evaluation failed", e);
+        }
+    }
+
+    /**
+     * 评估一个窗口（仅由评估线程执行）
+     */
+    private void evaluate() {
+        long now = System.nanoTime();
+        long cpu = 0L;
+        for (Worker worker : workers) {
+            // 仍在执行的任务：计入到窗口边界为止的墙钟时间，其余部分留给任务结束或下一个窗口
+            long since = worker.busySince.get();
+            if (since != IDLE && worker.busySince.compareAndSet(since, now)) {
+                windowWallNanos.add(now - since);
+            }
+            cpu += worker.cpuDelta();
+        }
+        long tasks = windowTasks.sumThenReset();
+        long started = windowStarted.sumThenReset();
+        long wall = windowWallNanos.sumThenReset();
+        long queueWait = windowQueueWaitNanos.sumThenReset();
+        long processCpu = processCpuTime();
+        double utilization = processCpu < 0 || lastProcessCpuNanos < 0 ? Double.NaN
+                : (double) (processCpu - lastProcessCpuNanos) / ((double) (now - lastEvaluationNanos) * cpus);
+        lastEvaluationNanos = now;
+        lastProcessCpuNanos = processCpu;
+        lastProcessCpuUtilization = utilization;
+        if (wall == 0) {
+            // 窗口内工作线程完全空闲
+            pendingDirection = 0;
+            pendingWindows = 0;
+            return;
+        }
+        double blocking = cpuTimeSupported ? Math.max(0d, (double) (wall - cpu) / Math.max(cpu, 1L)) : 0d;
+        long avgQueueWait = started == 0 ? 0L : queueWait / started;
+        int target = clamp((int) Math.min(Integer.MAX_VALUE, Math.ceil(cpus * targetUtilization * (1 + blocking))));
+        lastBlockingRatio = blocking;
+        lastAvgQueueWaitNanos = avgQueueWait;
+        lastTargetSize = target;
+
+        int current = size;
+        boolean backlog = avgQueueWait > QUEUE_WAIT_THRESHOLD_NANOS || !executor.getQueue().isEmpty();
+        int direction = Integer.compare(target, current);
+        if (direction > 0 && !backlog) {
+            direction = 0;
+        }
+        if (direction > 0 && utilization >= targetUtilization) {
+            // CPU 已饱和：W 中包含等待调度的时间，扩容只会加剧争抢
+            direction = 0;
+        }
+        if (Math.abs(target - current) < Math.max(1, (int) Math.round(current * hysteresis))) {
+            direction = 0;
+        }
+        if (direction == 0) {
+            pendingDirection = 0;
+            pendingWindows = 0;
+            return;
+        }
+        pendingWindows = direction == pendingDirection ? pendingWindows + 1 : 1;
+        pendingDirection = direction;
+        if (pendingWindows < CONFIRM_WINDOWS) {
+            return;
+        }
+        pendingDirection = 0;
+        pendingWindows = 0;
+        String reason = String.format("%s: blocking ratio %.2f on %d cpus gives target %d, avg queue wait %.3fms,"
+                        + " process cpu %.0f%%", direction > 0 ? "grow" : "shrink", blocking, cpus, target,
+                avgQueueWait / 1e6, utilization * 100);
+        resize(current, target, new Resize(System.currentTimeMillis(), current, target, target, blocking,
+                avgQueueWait, tasks, reason));
+    }
+
+    private void resize(int from, int to, Resize record) {
+        // 先放宽再收紧，保证任意时刻 core <= max
+        if (to > from) {
+            executor.setMaximumPoolSize(to);
+            executor.setCorePoolSize(to);
+        } else {
+            executor.setCorePoolSize(to);
+            executor.setMaximumPoolSize(to);
+        }
+        size = to;
+        resizes.increment();
+        synchronized (history) {
+            if (history.size() == HISTORY_CAPACITY) {
+                history.removeFirst();
+            }
+            history.addLast(record);
+        }
+        log.info("Adaptive pool resized {} -> {} ({})", from, to, record.reason());
+        PipelineEvents.poolResize(from, to, record.targetSize(), record.blockingRatio(),
+                record.avgQueueWaitNanos(), record.tasks(), record.reason());
+    }
+
+    private void recordHandler(PipelineContext context) {
+        HandlerSample sample = handlerSamples.remove(context);
+        if (sample == null) {
+            return;
+        }
+        long wall = System.nanoTime() - sample.wallStart();
+        long cpu = cpuTimeSupported && sample.thread() == Thread.currentThread() ? cpuTime() - sample.cpuStart() : -1L;
+        handlerStats.computeIfAbsent(sample.handlerName(), name -> new HandlerStats()).record(wall, cpu);
+    }
+
+    private long cpuTime() {
+        return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0L;
+    }
+
+    private long processCpuTime() {
+        return processBean == null ? -1L : processBean.getProcessCpuTime();
+    }
+
+    private static com.sun.management.OperatingSystemMXBean processBean() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean processBean
+                && processBean.getProcessCpuTime() >= 0) {
+            return processBean;
+        }
+        log.warn("Process CPU time not supported, adaptive pool grows without checking CPU saturation");
+        return null;
+    }
+
+    private int clamp(int threads) {
+        return Math.max(minThreads, Math.min(maxThreads, threads));
+    }
+
+    private static boolean enableCpuTime(ThreadMXBean bean) {
+        try {
+            if (!bean.isThreadCpuTimeSupported()) {
+                log.warn("Thread CPU time not supported, adaptive pool assumes CPU-bound tasks");
+                return false;
+            }
+            if (!bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            log.warn("Thread CPU time unavailable, adaptive pool assumes CPU-bound tasks", e);
+            return false;
+        }
+    }
+
+    /**
+     * 一次线程数调整
+     *
+     * @param timestampMillis   调整时间
+     * @param fromSize          调整前线程数
+     * @param toSize            调整后线程数
+     * @param targetSize        按阻塞比例计算的目标线程数（已截断）
+     * @param blockingRatio     窗口内阻塞比例（W/C）
+     * @param avgQueueWaitNanos 窗口内平均排队时长（纳秒）
+     * @param tasks             窗口内完成的任务数
+     * @param reason            调整原因
+     */
+    public record Resize(long timestampMillis, int fromSize, int toSize, int targetSize, double blockingRatio,
+                         long avgQueueWaitNanos, long tasks, String reason) {
+    }
+
+    /**
+     * 处理器负载统计
+     *
+     * @param samples    样本数
+     * @param wallNanos  累计墙钟时间（纳秒）
+     * @param cpuSamples 有 CPU 时间的样本数
+     * @param cpuNanos   这些样本的累计 CPU 时间（纳秒）
+     */
+    public record HandlerLoad(long samples, long wallNanos, long cpuSamples, long cpuNanos) {
+
+        /**
+         * 阻塞比例（W/C），无 CPU 样本时返回 NaN
+         */
+        public double blockingRatio() {
+            if (cpuSamples == 0) {
+                return Double.NaN;
+            }
+            double avgWall = (double) wallNanos / samples;
+            double avgCpu = Math.max(1d, (double) cpuNanos / cpuSamples);
+            return Math.max(0d, (avgWall - avgCpu) / avgCpu);
+        }
+    }
+
+    /**
+     * 工作线程，记录当前任务的开始时间与上次评估时的 CPU 时间
+     */
+    private final class Worker extends Thread {
+
+        /**
+         * 当前任务开始（或上次评估计入）的时间，空闲时为 {@link #IDLE}
+         */
+        private final AtomicLong busySince = new AtomicLong(IDLE);
+
+        /**
+         * 上次评估时的线程 CPU 时间（仅评估线程访问）
+         */
+        private long lastCpuNanos;
+
+        private Worker(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+            workers.add(this);
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                workers.remove(this);
+            }
+        }
+
+        /**
+         * 自上次评估以来的 CPU 时间（不支持或线程已结束时返回0）
+         */
+        private long cpuDelta() {
+            if (!cpuTimeSupported) {
+                return 0L;
+            }
+            long total = threadBean.getThreadCpuTime(getId());
+            if (total < 0) {
+                return 0L;
+            }
+            long delta = total - lastCpuNanos;
+            lastCpuNanos = total;
+            return delta;
+        }
+    }
+
+    private record HandlerSample(String handlerName, Thread thread, long wallStart, long cpuStart) {
+    }
+
+    private static final class HandlerStats {
+
+        private final LongAdder samples = new LongAdder();
+
+        private final LongAdder wallNanos = new LongAdder();
+
+        private final LongAdder cpuSamples = new LongAdder();
+
+        private final LongAdder cpuNanos = new LongAdder();
+
+        private void record(long wall, long cpu) {
+            samples.increment();
+            wallNanos.add(wall);
+            if (cpu >= 0) {
+                cpuSamples.increment();
+                cpuNanos.add(cpu);
+            }
+        }
+
+        private HandlerLoad toLoad() {
+            return new HandlerLoad(samples.sum(), wallNanos.sum(), cpuSamples.sum(), cpuNanos.sum());
+        }
+    }
+}
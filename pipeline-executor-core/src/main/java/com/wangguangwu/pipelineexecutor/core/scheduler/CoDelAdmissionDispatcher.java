@@ -0,0 +1,251 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.executor.PipelineDispatcher;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.NonNull;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于排队时延的准入控制（CoDel 控制律）
+ * <p>
+ * 装饰另一个 {@link PipelineDispatcher}，在任务开始执行时测量其排队时长（sojourn time）：
+ * <ul>
+ *   <li>排队时长持续高于目标值达一个观察窗口：进入拒绝状态</li>
+ *   <li>拒绝状态下并非拒绝所有新任务，而是按 CoDel 控制律间隔拒绝：第 n 次拒绝后，
+ *       下一次拒绝不早于 {@code interval / √n}，持续积压时拒绝逐渐变密，直到排队时长回落</li>
+ *   <li>任意一次排队时长低于目标值：退出拒绝状态；短时间内再次进入时沿用之前的拒绝频率</li>
+ * </ul>
+ * 只要排队时长曾回到目标值以下就不进入拒绝状态，因此短时突发（队列很快排空）不会触发拒绝。
+ * 未到拒绝时刻的提交只读取 volatile 字段；拒绝抛出不采集堆栈的异常，不会触达任何处理器。
+ * 准入只作用于新管道：已开始执行的管道的续接任务总是放行（仍计入排队时长），避免浪费已完成的工作。
+ *
+ * @author wangguangwu
+ */
+public class CoDelAdmissionDispatcher implements PipelineDispatcher {
+
+    private static final String OVERLOADED_MESSAGE = "Rejected by admission control: queue delay above target";
+
+    /**
+     * 退出拒绝状态后在该倍数的观察窗口内再次进入时，沿用之前的拒绝计数
+     */
+    private static final int COUNT_MEMORY_INTERVALS = 16;
+
+    private final PipelineDispatcher delegate;
+
+    private final long targetNanos;
+
+    private final long intervalNanos;
+
+    private final LongAdder admitted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 排队时长持续高于目标值时，允许进入拒绝状态的时刻（0表示当前低于目标值）
+     */
+    private volatile long firstAboveNanos;
+
+    /**
+     * 是否处于拒绝状态
+     */
+    private volatile boolean dropping;
+
+    /**
+     * 拒绝状态下下一次拒绝的时刻
+     */
+    private volatile long dropNextNanos;
+
+    /**
+     * 当前拒绝状态内的拒绝次数（控制律的 n，仅在锁内修改）
+     */
+    private int count;
+
+    private volatile long lastDequeueNanos;
+
+    /**
+     * 最近一次测量的排队时长
+     */
+    private volatile long lastDelayNanos;
+
+    /**
+     * 默认参数：目标5ms，窗口100ms
+     *
+     * @param delegate 实际执行任务的调度器
+     */
+    public CoDelAdmissionDispatcher(@NonNull PipelineDispatcher delegate) {
+        this(delegate, 5, 100, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param delegate 实际执行任务的调度器
+     * @param target   可接受的排队时长（>0）
+     * @param interval 观察窗口（须大于 target）
+     * @param unit     时间单位
+     */
+    public CoDelAdmissionDispatcher(@NonNull PipelineDispatcher delegate, long target, long interval,
+                                    @NonNull TimeUnit unit) {
+        if (target <= 0 || interval <= target) {
+            throw new IllegalArgumentException("require 0 < target < interval");
+        }
+        this.delegate = delegate;
+        this.targetNanos = unit.toNanos(target);
+        this.intervalNanos = unit.toNanos(interval);
+        this.lastDequeueNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dispatch(PipelineContext context, Runnable task) {
+        if (dropping && shouldReject(System.nanoTime())) {
+            rejected.increment();
+            throw new AdmissionRejectedException(OVERLOADED_MESSAGE);
+        }
+        delegate.dispatch(context, measured(task));
+        admitted.increment();
+    }
+
+    @Override
+    public void dispatchContinuation(PipelineContext context, Runnable task) {
+        delegate.dispatchContinuation(context, measured(task));
+    }
+
+    @Override
+    public void onRunComplete(PipelineContext context) {
+        delegate.onRunComplete(context);
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return delegate.getQueuedCount();
+    }
+
+    /**
+     * 是否处于拒绝状态（按控制律间隔拒绝新任务）
+     */
+    public boolean isOverloaded() {
+        return dropping;
+    }
+
+    /**
+     * 最近一次测量的排队时长（纳秒）
+     */
+    public long getLastDelayNanos() {
+        return lastDelayNanos;
+    }
+
+    /**
+     * 已接收的任务数（被委托调度器拒绝的不计入）
+     */
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * 已拒绝的任务数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 包装任务，在开始执行时记录排队时长
+     */
+    private Runnable measured(Runnable task) {
+        long enqueuedAt = System.nanoTime();
+        return PipelineDispatcher.wrap(task, () -> {
+            onDequeue(System.nanoTime(), enqueuedAt);
+            task.run();
+        });
+    }
+
+    private void onDequeue(long now, long enqueuedAt) {
+        long sojourn = now - enqueuedAt;
+        lastDelayNanos = sojourn;
+        lastDequeueNanos = now;
+        if (sojourn < targetNanos) {
+            if (firstAboveNanos != 0 || dropping) {
+                synchronized (this) {
+                    firstAboveNanos = 0;
+                    dropping = false;
+                }
+            }
+            return;
+        }
+        long firstAbove = firstAboveNanos;
+        if (firstAbove == 0) {
+            synchronized (this) {
+                if (firstAboveNanos == 0) {
+                    firstAboveNanos = now + intervalNanos;
+                }
+            }
+        } else if (!dropping && now - firstAbove >= 0) {
+            synchronized (this) {
+                if (!dropping && firstAboveNanos != 0) {
+                    enterDropping(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * 进入拒绝状态，下一次提交即被拒绝（锁内调用）
+     */
+    private void enterDropping(long now) {
+        boolean recent = now - dropNextNanos < COUNT_MEMORY_INTERVALS * intervalNanos;
+        count = count > 2 && recent ? count - 2 : 1;
+        dropNextNanos = now;
+        dropping = true;
+    }
+
+    /**
+     * 拒绝状态下判断本次提交是否到达拒绝时刻，到达时按控制律推进下一次拒绝时刻
+     */
+    private boolean shouldReject(long now) {
+        if (now - dropNextNanos < 0) {
+            return false;
+        }
+        synchronized (this) {
+            if (!dropping || now - dropNextNanos < 0) {
+                return false;
+            }
+            if (now - lastDequeueNanos >= intervalNanos && delegate.getQueuedCount() <= 0) {
+                // 超过一个窗口没有任务出队且没有积压：无法测量排队时长，视为空闲
+                dropping = false;
+                firstAboveNanos = 0;
+                return false;
+            }
+            dropNextNanos = controlLaw(now, count);
+            count++;
+            return true;
+        }
+    }
+
+    /**
+     * CoDel 控制律：第 n 次拒绝后间隔 interval / √n
+     */
+    private long controlLaw(long now, int n) {
+        return now + (long) (intervalNanos / Math.sqrt(n));
+    }
+
+    /**
+     * 准入拒绝异常（不采集堆栈）
+     * <p>
+     * 每次拒绝创建新实例：{@link RejectedExecutionException} 没有可关闭 suppression 的构造函数，
+     * 共享实例上的 {@code addSuppressed} 会在请求之间累积。
+     */
+    private static final class AdmissionRejectedException extends RejectedExecutionException {
+
+        private static final long serialVersionUID = 1L;
+
+        private AdmissionRejectedException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.executor.PipelineDispatcher;
+import com.wangguangwu.pipelineexecutor.spi.context.CompletePipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 优先级 + 租户公平调度器
+ * <p>
+ * 从 {@link CompletePipelineContext#getMetadata()} 读取优先级与租户标识：
+ * <ul>
+ *   <li>优先级之间严格优先：只要高优先级有排队任务，就不会调度低优先级任务</li>
+ *   <li>同一优先级内按租户做赤字轮转（Deficit Round Robin），每轮每个租户最多调度其权重数量的任务</li>
+ * </ul>
+ * 提交路径无锁：任务进入租户自己的无锁队列，租户首次有积压时加入活跃环。
+ * 工作线程仅在挑选下一个任务时持有一把短临界区的锁。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class FairPipelineScheduler implements PipelineDispatcher {
+
+    /**
+     * 默认优先级元数据键（取值为整数，0为最高优先级）
+     */
+    public static final String DEFAULT_PRIORITY_KEY = "pipeline.priority";
+
+    /**
+     * 默认租户元数据键
+     */
+    public static final String DEFAULT_TENANT_KEY = "pipeline.tenant";
+
+    /**
+     * 未携带租户标识时使用的租户
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    private final String priorityKey;
+
+    private final String tenantKey;
+
+    private final int defaultPriority;
+
+    private final Map<String, Integer> tenantWeights;
+
+    private final PriorityLevel[] levels;
+
+    /**
+     * 排队任务数（许可数即可调度任务数）
+     */
+    private final Semaphore available = new Semaphore(0);
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * 挑选任务时的短临界区
+     */
+    private final ReentrantLock selectLock = new ReentrantLock();
+
+    private final Thread[] workers;
+
+    private volatile boolean shutdown;
+
+    /**
+     * 使用默认元数据键、默认优先级为最低级、所有租户权重为1
+     *
+     * @param workerCount    工作线程数（>0）
+     * @param priorityLevels 优先级数量（>0）
+     */
+    public FairPipelineScheduler(int workerCount, int priorityLevels) {
+        this(workerCount, priorityLevels, DEFAULT_PRIORITY_KEY, DEFAULT_TENANT_KEY,
+                priorityLevels - 1, Collections.emptyMap());
+    }
+
+    /**
+     * @param workerCount     工作线程数（>0）
+     * @param priorityLevels  优先级数量（>0）
+     * @param priorityKey     优先级元数据键（非空）
+     * @param tenantKey       租户元数据键（非空）
+     * @param defaultPriority 未携带或无法解析优先级时使用的优先级
+     * @param tenantWeights   租户权重（未配置的租户权重为1，权重须>0）
+     */
+    public FairPipelineScheduler(int workerCount, int priorityLevels,
+                                 @NonNull String priorityKey, @NonNull String tenantKey,
+                                 int defaultPriority, @NonNull Map<String, Integer> tenantWeights) {
+        if (workerCount <= 0 || priorityLevels <= 0) {
+            throw new IllegalArgumentException("workerCount and priorityLevels must be > 0");
+        }
+        if (defaultPriority < 0 || defaultPriority >= priorityLevels) {
+            throw new IllegalArgumentException("defaultPriority out of range: " + defaultPriority);
+        }
+        tenantWeights.forEach((tenant, weight) -> {
+            if (weight == null || weight <= 0) {
+                throw new IllegalArgumentException("weight of tenant [" + tenant + "] must be > 0");
+            }
+        });
+        this.priorityKey = priorityKey;
+        this.tenantKey = tenantKey;
+        this.defaultPriority = defaultPriority;
+        this.tenantWeights = new HashMap<>(tenantWeights);
+        this.levels = new PriorityLevel[priorityLevels];
+        for (int i = 0; i < priorityLevels; i++) {
+            levels[i] = new PriorityLevel();
+        }
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "pipeline-fair-" + i);
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    @Override
+    public void dispatch(PipelineContext context, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        Map<String, String> metadata = context instanceof CompletePipelineContext<?> complete
+                ? complete.getMetadata() : Collections.emptyMap();
+        PriorityLevel level = levels[priorityOf(metadata.get(priorityKey))];
+        String tenant = metadata.getOrDefault(tenantKey, DEFAULT_TENANT);
+        TenantQueue queue = level.tenants.get(tenant);
+        if (queue == null) {
+            queue = level.tenants.computeIfAbsent(tenant, key -> new TenantQueue(tenantWeights.getOrDefault(key, 1)));
+        }
+        queue.tasks.offer(task);
+        if (queue.active.compareAndSet(false, true)) {
+            level.activeRing.offer(queue);
+        }
+        queued.incrementAndGet();
+        available.release();
+        if (shutdown) {
+            // 与 shutdown() 并发时任务可能在排空之后入队
+            rejectQueued();
+        }
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * 停止调度，工作线程在当前任务结束后退出
+     * <p>
+     * 未调度的任务通过 {@link PipelineDispatcher#reject} 放弃，对应的管道以 CANCELLED 结束。
+     * 正在执行的任务不受影响：工作线程不会被中断（执行器会把中断视为取消），
+     * 空闲的工作线程通过额外的许可唤醒后退出。
+     */
+    public void shutdown() {
+        shutdown = true;
+        rejectQueued();
+        available.release(workers.length);
+    }
+
+    private int priorityOf(String value) {
+        if (value == null) {
+            return defaultPriority;
+        }
+        try {
+            int priority = Integer.parseInt(value.trim());
+            return Math.max(0, Math.min(levels.length - 1, priority));
+        } catch (NumberFormatException e) {
+            return defaultPriority;
+        }
+    }
+
+    private void workLoop() {
+        while (!shutdown) {
+            try {
+                available.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Runnable task;
+            while ((task = next()) == null) {
+                if (shutdown) {
+                    // 许可对应的任务已被 shutdown() 放弃，或是 shutdown() 用于唤醒的额外许可
+                    return;
+                }
+                // 许可已保证存在任务，短暂自旋等待提交线程完成活跃环入队
+                Thread.onSpinWait();
+            }
+            queued.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("Pipeline task failed in fair scheduler", e);
+            }
+        }
+    }
+
+    /**
+     * 放弃所有排队中的任务
+     */
+    private void rejectQueued() {
+        for (PriorityLevel level : levels) {
+            for (TenantQueue tenant : level.tenants.values()) {
+                Runnable task;
+                while ((task = tenant.tasks.poll()) != null) {
+                    queued.decrementAndGet();
+                    PipelineDispatcher.reject(task, "Scheduler has been shut down");
+                }
+            }
+        }
+    }
+
+    /**
+     * 按严格优先级挑选下一个任务
+     */
+    private Runnable next() {
+        selectLock.lock();
+        try {
+            for (PriorityLevel level : levels) {
+                Runnable task = level.poll();
+                if (task != null) {
+                    return task;
+                }
+            }
+            return null;
+        } finally {
+            selectLock.unlock();
+        }
+    }
+
+    /**
+     * 单个优先级内的赤字轮转结构
+     */
+    private static final class PriorityLevel {
+
+        private final Map<String, TenantQueue> tenants = new ConcurrentHashMap<>();
+
+        /**
+         * 有积压任务的租户
+         */
+        private final ConcurrentLinkedQueue<TenantQueue> activeRing = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 当前轮次正在服务的租户（仅在 selectLock 内访问）
+         */
+        private TenantQueue current;
+
+        private Runnable poll() {
+            while (true) {
+                TenantQueue tenant = current;
+                if (tenant == null) {
+                    tenant = activeRing.poll();
+                    if (tenant == null) {
+                        return null;
+                    }
+                    tenant.deficit += tenant.weight;
+                    current = tenant;
+                }
+                if (tenant.deficit > 0) {
+                    Runnable task = tenant.tasks.poll();
+                    if (task != null) {
+                        tenant.deficit--;
+                        return task;
+                    }
+                }
+                current = null;
+                if (tenant.tasks.isEmpty()) {
+                    // 队列清空后重置赤字并退出活跃环；再次检查以免与并发提交竞争丢失任务
+                    tenant.deficit = 0;
+                    tenant.active.set(false);
+                    if (!tenant.tasks.isEmpty() && tenant.active.compareAndSet(false, true)) {
+                        activeRing.offer(tenant);
+                    }
+                } else {
+                    activeRing.offer(tenant);
+                }
+            }
+        }
+    }
+
+    /**
+     * 租户任务队列
+     */
+    private static final class TenantQueue {
+
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean active = new AtomicBoolean();
+
+        private final int weight;
+
+        /**
+         * 当前轮次剩余额度（仅在 selectLock 内访问）
+         */
+        private int deficit;
+
+        private TenantQueue(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.executor.PipelineDispatcher;
+import com.wangguangwu.pipelineexecutor.spi.context.CompletePipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键亲和的执行通道调度器
+ * <p>
+ * 把亲和键（上下文ID或指定的元数据项）哈希到固定数量的单线程通道上，
+ * 保证同一个键的管道按提交顺序执行且互不重叠，处理器内无需再按键加锁。
+ * <ul>
+ *   <li>每个活跃键有一个自己的任务队列，同一时刻最多出现在一个通道队列中或正在被一个通道执行</li>
+ *   <li>通道每次只执行键的一个任务，键仍有积压时重新排到通道队尾，通道内各键轮流执行</li>
+ *   <li>空闲通道可以从其他通道队尾窃取排队中的键；正在执行的键不在任何队列中，不会被窃取</li>
+ * </ul>
+ * 因此窃取不会破坏同键的顺序与互斥，只会把等待中的键搬到空闲线程上。
+ * <p>
+ * 键在管道执行结束（{@link #onRunComplete}）前一直被该管道占用：管道在非阻塞处理器、异步重试退避或处理器超时处挂起时，
+ * 同键的后续管道继续排队，挂起管道的续接（{@link #dispatchContinuation}）排在这些管道之前。
+ * 因此管道内不应以同一个键同步等待另一个经本调度器执行的管道（如以相同键元数据拆分的子管道），否则会互相等待。
+ *
+ * @author wangguangwu
+ */
+@Slf4j
+public class KeyAffinityDispatcher implements PipelineDispatcher {
+
+    /**
+     * 默认空闲通道的窃取间隔（毫秒）
+     */
+    public static final long DEFAULT_STEAL_INTERVAL_MILLIS = 5;
+
+    /**
+     * 亲和键元数据项，为null时使用上下文ID
+     */
+    private final String keyMetadata;
+
+    /**
+     * 单个通道允许积压的任务数上限
+     */
+    private final int laneCapacity;
+
+    private final long stealIntervalMillis;
+
+    private final Lane[] lanes;
+
+    /**
+     * 活跃键（有排队或执行中任务的键）
+     */
+    private final ConcurrentHashMap<String, KeyQueue> activeKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong stolenCount = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    /**
+     * 以上下文ID为亲和键、通道容量不限
+     *
+     * @param laneCount 通道数（>0）
+     */
+    public KeyAffinityDispatcher(int laneCount) {
+        this(laneCount, null, Integer.MAX_VALUE, DEFAULT_STEAL_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param laneCount           通道数（>0）
+     * @param keyMetadata         亲和键元数据项，为null或上下文未携带该项时使用上下文ID
+     * @param laneCapacity        单个通道允许积压的任务数（>0），超出时拒绝
+     * @param stealIntervalMillis 空闲通道尝试窃取的间隔（毫秒，>0）
+     */
+    public KeyAffinityDispatcher(int laneCount, String keyMetadata, int laneCapacity, long stealIntervalMillis) {
+        if (laneCount <= 0 || laneCapacity <= 0 || stealIntervalMillis <= 0) {
+            throw new IllegalArgumentException("laneCount, laneCapacity and stealIntervalMillis must be > 0");
+        }
+        this.keyMetadata = keyMetadata;
+        this.laneCapacity = laneCapacity;
+        this.stealIntervalMillis = stealIntervalMillis;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i);
+        }
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    @Override
+    public void dispatch(PipelineContext context, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Dispatcher has been shut down");
+        }
+        String key = keyOf(context);
+        Lane home = lanes[laneIndex(key)];
+        if (home.depth.incrementAndGet() > laneCapacity) {
+            home.depth.decrementAndGet();
+            throw new RejectedExecutionException("Lane " + home.index + " is full");
+        }
+        while (true) {
+            KeyQueue keyQueue = activeKeys.computeIfAbsent(key, k -> new KeyQueue(k, home));
+            boolean schedule;
+            synchronized (keyQueue) {
+                if (keyQueue.retired) {
+                    // 该键刚执行完并已移出活跃表，重新创建
+                    continue;
+                }
+                keyQueue.tasks.add(new Entry(context, task));
+                // 键被挂起中的管道占用时，等该管道结束再调度
+                schedule = !keyQueue.scheduled && keyQueue.holder == null;
+                keyQueue.scheduled |= schedule;
+            }
+            if (schedule) {
+                home.queue.offer(keyQueue);
+            }
+            break;
+        }
+        if (shutdown) {
+            // 与 shutdown() 并发时任务可能在排空之后入队
+            rejectQueued();
+        }
+    }
+
+    @Override
+    public void dispatchContinuation(PipelineContext context, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Dispatcher has been shut down");
+        }
+        KeyQueue keyQueue = activeKeys.get(keyOf(context));
+        if (keyQueue == null || !addContinuation(keyQueue, context, task)) {
+            // 不是经本调度器启动的管道，按新任务排队
+            dispatch(context, task);
+            return;
+        }
+        if (shutdown) {
+            rejectQueued();
+        }
+    }
+
+    @Override
+    public void onRunComplete(PipelineContext context) {
+        KeyQueue keyQueue = activeKeys.get(keyOf(context));
+        if (keyQueue == null) {
+            return;
+        }
+        boolean schedule = false;
+        synchronized (keyQueue) {
+            if (keyQueue.holder != context) {
+                return;
+            }
+            keyQueue.holder = null;
+            if (!keyQueue.scheduled) {
+                // 挂起的管道在其他线程上结束，键交给下一个管道或退役；正在通道上执行时由 runOnce 处理
+                schedule = !keyQueue.tasks.isEmpty();
+                keyQueue.scheduled = schedule;
+                if (!schedule) {
+                    retire(keyQueue);
+                }
+            }
+        }
+        if (schedule) {
+            keyQueue.home.queue.offer(keyQueue);
+        }
+    }
+
+    @Override
+    public int getQueuedCount() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * 通道数
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 指定通道的积压任务数（哈希到该通道、尚未开始执行的任务）
+     *
+     * @param lane 通道序号
+     */
+    public int getLaneQueueDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    /**
+     * 当前活跃键数量
+     */
+    public int getActiveKeyCount() {
+        return activeKeys.size();
+    }
+
+    /**
+     * 累计被窃取执行的任务数
+     */
+    public long getStolenCount() {
+        return stolenCount.get();
+    }
+
+    /**
+     * 停止调度，通道线程在当前任务结束后退出（空闲通道在一个窃取间隔内退出）
+     * <p>
+     * 不中断通道线程，正在执行的处理器不会收到中断；
+     * 未执行的任务与续接通过 {@link PipelineDispatcher#reject} 放弃，对应的管道以 CANCELLED 结束。
+     */
+    public void shutdown() {
+        shutdown = true;
+        rejectQueued();
+    }
+
+    private String keyOf(PipelineContext context) {
+        if (keyMetadata != null && context instanceof CompletePipelineContext<?> complete) {
+            String value = complete.getMetadata().get(keyMetadata);
+            if (value != null) {
+                return value;
+            }
+        }
+        return context.getContextId();
+    }
+
+    private int laneIndex(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * 执行键的下一个任务（挂起管道的续接优先），键仍有可执行的任务时重新排入原通道
+     */
+    private void runOnce(Lane lane, KeyQueue keyQueue) {
+        Runnable task;
+        boolean continuation;
+        synchronized (keyQueue) {
+            task = keyQueue.continuations.poll();
+            continuation = task != null;
+            if (!continuation) {
+                Entry entry = keyQueue.tasks.poll();
+                if (entry != null) {
+                    task = entry.task();
+                    // 执行器提交的管道在 onRunComplete 前一直占用键；其他任务执行完即释放
+                    keyQueue.holder = task instanceof PipelineDispatcher.Task ? entry.context() : null;
+                }
+            }
+        }
+        if (task == null) {
+            // 任务已被 shutdown() 放弃
+            return;
+        }
+        if (!continuation) {
+            keyQueue.home.depth.decrementAndGet();
+        }
+        if (lane != keyQueue.home) {
+            stolenCount.incrementAndGet();
+        }
+        try {
+            task.run();
+        } catch (Throwable e) {
+            log.error("Pipeline task failed in lane {}", lane.index, e);
+        }
+        boolean reschedule;
+        synchronized (keyQueue) {
+            reschedule = !keyQueue.continuations.isEmpty()
+                    || keyQueue.holder == null && !keyQueue.tasks.isEmpty();
+            if (!reschedule) {
+                keyQueue.scheduled = false;
+                if (keyQueue.holder == null) {
+                    retire(keyQueue);
+                }
+            }
+        }
+        if (reschedule) {
+            // 窃取来的键放回原通道，避免长期占用窃取方
+            keyQueue.home.queue.offer(keyQueue);
+        }
+    }
+
+    /**
+     * 把续接加入占用键的管道，键当前未被调度时排入原通道
+     *
+     * @return false 表示键已退役或不被该管道占用
+     */
+    private boolean addContinuation(KeyQueue keyQueue, PipelineContext context, Runnable task) {
+        boolean schedule;
+        synchronized (keyQueue) {
+            if (keyQueue.retired || keyQueue.holder != context) {
+                return false;
+            }
+            keyQueue.continuations.add(task);
+            schedule = !keyQueue.scheduled;
+            keyQueue.scheduled = true;
+        }
+        if (schedule) {
+            keyQueue.home.queue.offer(keyQueue);
+        }
+        return true;
+    }
+
+    /**
+     * 键不再有任务：移出活跃表（调用方持有 keyQueue 监视器）
+     */
+    private void retire(KeyQueue keyQueue) {
+        keyQueue.retired = true;
+        activeKeys.remove(keyQueue.key, keyQueue);
+    }
+
+    /**
+     * 放弃所有排队中的任务与续接
+     */
+    private void rejectQueued() {
+        for (KeyQueue keyQueue : activeKeys.values()) {
+            List<Runnable> dropped = new ArrayList<>();
+            synchronized (keyQueue) {
+                dropped.addAll(keyQueue.continuations);
+                keyQueue.continuations.clear();
+                for (Entry entry; (entry = keyQueue.tasks.poll()) != null; ) {
+                    keyQueue.home.depth.decrementAndGet();
+                    dropped.add(entry.task());
+                }
+            }
+            for (Runnable task : dropped) {
+                PipelineDispatcher.reject(task, "Dispatcher has been shut down");
+            }
+        }
+    }
+
+    private KeyQueue steal(Lane thief) {
+        for (int i = 1; i < lanes.length; i++) {
+            Lane victim = lanes[(thief.index + i) % lanes.length];
+            KeyQueue keyQueue = victim.queue.pollLast();
+            if (keyQueue != null) {
+                return keyQueue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单线程执行通道
+     */
+    private final class Lane {
+
+        private final int index;
+
+        /**
+         * 待执行的键（每个键同一时刻最多出现一次）
+         */
+        private final LinkedBlockingDeque<KeyQueue> queue = new LinkedBlockingDeque<>();
+
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private final Thread thread;
+
+        private Lane(int index) {
+            this.index = index;
+            this.thread = new Thread(this::loop, "pipeline-lane-" + index);
+            thread.setDaemon(true);
+        }
+
+        private void loop() {
+            while (!shutdown) {
+                KeyQueue keyQueue = queue.pollFirst();
+                if (keyQueue == null && lanes.length > 1) {
+                    keyQueue = steal(this);
+                }
+                if (keyQueue == null) {
+                    try {
+                        keyQueue = queue.pollFirst(stealIntervalMillis, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (keyQueue == null) {
+                        continue;
+                    }
+                }
+                runOnce(this, keyQueue);
+            }
+        }
+    }
+
+    private record Entry(PipelineContext context, Runnable task) {
+    }
+
+    /**
+     * 单个键的任务队列
+     */
+    private static final class KeyQueue {
+
+        private final String key;
+
+        private final Lane home;
+
+        /**
+         * 排队中的新管道（在 KeyQueue 监视器内访问）
+         */
+        private final Queue<Entry> tasks = new ArrayDeque<>();
+
+        /**
+         * 占用键的管道的续接（在 KeyQueue 监视器内访问）
+         */
+        private final Queue<Runnable> continuations = new ArrayDeque<>();
+
+        /**
+         * 占用键的管道的上下文，null 表示键空闲
+         */
+        private PipelineContext holder;
+
+        /**
+         * 是否已在某个通道队列中或正在执行
+         */
+        private boolean scheduled;
+
+        /**
+         * 已移出活跃表，不再接收任务
+         */
+        private boolean retired;
+
+        private KeyQueue(String key, Lane home) {
+            this.key = key;
+            this.home = home;
+        }
+    }
+}
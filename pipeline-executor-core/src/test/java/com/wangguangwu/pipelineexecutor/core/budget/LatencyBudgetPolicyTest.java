@@ -0,0 +1,156 @@
+package com.wangguangwu.pipelineexecutor.core.budget;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间预算策略测试
+ * <p>
+ * 覆盖样本不足时不预测、分位预测与直方图衰减，以及执行器据此跳过可选处理器、
+ * 对必选处理器以 TIMEOUT 快速失败、无截止时间时照常执行。
+ *
+ * @author wangguangwu
+ */
+class LatencyBudgetPolicyTest {
+
+    private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final LatencyBudgetPolicy policy = new LatencyBudgetPolicy(0.9, MIN_SAMPLES, 4096);
+
+    private final AtomicInteger slowRuns = new AtomicInteger();
+
+    private final AtomicInteger tailRuns = new AtomicInteger();
+
+    @Test
+    void noPredictionBeforeMinSamples() {
+        PipelineHandler handler = new CountingHandler("slow", 0, false, slowRuns);
+        for (int i = 0; i < MIN_SAMPLES - 1; i++) {
+            policy.record(handler, SLOW_NANOS);
+        }
+        assertEquals(0, policy.predictNanos(handler));
+
+        policy.record(handler, SLOW_NANOS);
+        long predicted = policy.predictNanos(handler);
+        assertTrue(predicted >= SLOW_NANOS && predicted <= SLOW_NANOS * 5 / 4, "predicted " + predicted);
+    }
+
+    @Test
+    void histogramTracksPercentileAndDecays() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        for (int i = 0; i < 900; i++) {
+            histogram.record(1_000);
+        }
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000_000);
+        }
+        long p50 = histogram.valueAtPercentile(0.5);
+        long p99 = histogram.valueAtPercentile(0.99);
+        assertTrue(p50 >= 1_000 && p50 <= 1_250, "p50 " + p50);
+        assertTrue(p99 >= 1_000_000 && p99 <= 1_250_000, "p99 " + p99);
+
+        // 第1000个样本触发衰减，各桶计数减半（向下取整：901/2 + 99/2），分位保持不变
+        histogram.record(1_000);
+        assertEquals(499, histogram.getCount());
+        assertEquals(p99, histogram.valueAtPercentile(0.99));
+    }
+
+    @Test
+    void optionalHandlerOverBudgetIsSkipped() throws Exception {
+        DefaultPipelineExecutor executor = executorWith(true);
+
+        PipelineResult result = executor.execute(contextWithBudget());
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, slowRuns.get());
+        assertEquals(1, tailRuns.get());
+    }
+
+    @Test
+    void requiredHandlerOverBudgetFailsFast() throws Exception {
+        DefaultPipelineExecutor executor = executorWith(false);
+
+        long start = System.nanoTime();
+        PipelineResult result = executor.execute(contextWithBudget());
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("[slow]"), result.getErrorMessage());
+        assertEquals(0, slowRuns.get());
+        assertEquals(0, tailRuns.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "did not fail fast");
+    }
+
+    @Test
+    void noDeadlineRunsEverything() throws Exception {
+        DefaultPipelineExecutor executor = executorWith(false);
+
+        PipelineResult result = executor.execute(new DefaultPipelineContext<>("unbounded-1"));
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, slowRuns.get());
+        assertEquals(1, tailRuns.get());
+    }
+
+    /**
+     * 注册“slow”与“tail”两个处理器，并让策略认为 slow 需要10秒
+     */
+    private DefaultPipelineExecutor executorWith(boolean slowIsOptional) {
+        PipelineHandler slow = new CountingHandler("slow", 0, slowIsOptional, slowRuns);
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(slow);
+        registry.register(new CountingHandler("tail", 1, false, tailRuns));
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            policy.record(slow, SLOW_NANOS);
+        }
+        return new DefaultPipelineExecutor(registry, new DefaultExceptionHandlingStrategy(),
+                ForkJoinPool.commonPool(), policy);
+    }
+
+    private static PipelineContext contextWithBudget() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("budget-1");
+        context.setTimeout(500, TimeUnit.MILLISECONDS);
+        return context;
+    }
+
+    /**
+     * 只计数的处理器
+     */
+    private record CountingHandler(String name, int order, boolean optional, AtomicInteger runs)
+            implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public boolean isOptional() {
+            return optional;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            runs.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.wangguangwu.pipelineexecutor.core.catalog;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.ExecutionPlan;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 管道目录变体校验测试
+ * <p>
+ * 变体引用未注册的处理器名称、或缺少选中处理器的依赖时，编译失败并指明变体名；
+ * 失败按注册中心快照缓存，注册中心变化后重新编译。
+ *
+ * @author wangguangwu
+ */
+class PipelineCatalogTest {
+
+    private final DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+
+    private final PipelineCatalog catalog = new PipelineCatalog(registry);
+
+    PipelineCatalogTest() {
+        registry.register(new NoopHandler("validate", 0, Set.of()));
+        registry.register(new NoopHandler("persist", 1, Set.of("validate")));
+        registry.register(new NoopHandler("notify", 2, Set.of()));
+    }
+
+    @Test
+    void completeVariantCompiles() throws Exception {
+        catalog.define("full", List.of("validate", "persist"));
+
+        ExecutionPlan plan = catalog.planFor(contextFor("full"), registry.getHandlers());
+
+        assertEquals(2, plan.size());
+        assertEquals(1, catalog.getCompileCount());
+    }
+
+    @Test
+    void unregisteredHandlerNameFails() {
+        catalog.define("typo", List.of("validate", "persits"));
+
+        PipelineException error = assertThrows(PipelineException.class,
+                () -> catalog.planFor(contextFor("typo"), registry.getHandlers()));
+
+        assertEquals(PipelineStatus.FAILED, error.getPipelineStatus());
+        assertTrue(error.getMessage().contains("[typo]"), error.getMessage());
+        assertTrue(error.getMessage().contains("persits"), error.getMessage());
+    }
+
+    @Test
+    void failedCompileIsCachedPerSnapshot() throws Exception {
+        catalog.define("late", List.of("validate", "audit"));
+        List<PipelineHandler> snapshot = registry.getHandlers();
+
+        for (int i = 0; i < 3; i++) {
+            PipelineException error = assertThrows(PipelineException.class,
+                    () -> catalog.planFor(contextFor("late"), snapshot));
+            assertTrue(error.getMessage().contains("audit"), error.getMessage());
+        }
+        assertEquals(1, catalog.getCompileCount());
+
+        // 注册缺失的处理器后快照变化，重新编译成功
+        registry.register(new NoopHandler("audit", 3, Set.of()));
+        ExecutionPlan plan = catalog.planFor(contextFor("late"), registry.getHandlers());
+
+        assertEquals(2, plan.size());
+        assertEquals(2, catalog.getCompileCount());
+    }
+
+    @Test
+    void excludedDependencyFails() {
+        catalog.define("partial", List.of("persist", "notify"));
+
+        PipelineException error = assertThrows(PipelineException.class,
+                () -> catalog.planFor(contextFor("partial"), registry.getHandlers()));
+
+        assertEquals(PipelineStatus.FAILED, error.getPipelineStatus());
+        assertTrue(error.getMessage().contains("[partial]"), error.getMessage());
+        assertTrue(error.getMessage().contains("[validate]"), error.getMessage());
+    }
+
+    private static PipelineContext contextFor(String variant) {
+        return new DefaultPipelineContext<>("catalog-test",
+                Map.of(PipelineCatalog.DEFAULT_VARIANT_METADATA, variant));
+    }
+
+    /**
+     * 空处理器
+     */
+    private record NoopHandler(String name, int order, Set<String> dependsOn) implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public Set<String> getDependsOn() {
+            return dependsOn;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            // 不做任何处理，仅用于构建变体
+        }
+    }
+}
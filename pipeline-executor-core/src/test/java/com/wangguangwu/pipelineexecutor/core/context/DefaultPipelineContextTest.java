@@ -0,0 +1,166 @@
+package com.wangguangwu.pipelineexecutor.core.context;
+
+import com.wangguangwu.pipelineexecutor.core.payload.OffHeapPayload;
+import com.wangguangwu.pipelineexecutor.core.payload.SlabPayloadAllocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 默认上下文的延迟属性测试
+ * <p>
+ * 覆盖多线程同时读取时计算函数只执行一次、只读视图与移除不触发计算、计算失败后可重新计算、
+ * 计算函数读取自身时报告循环，以及上下文关闭后拒绝计算、计算期间被关闭时由计算方释放结果中的载荷。
+ *
+ * @author wangguangwu
+ */
+class DefaultPipelineContextTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final int THREADS = 16;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void lazyAttributeComputedOnceUnderContention() throws Exception {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-1");
+        AtomicInteger computations = new AtomicInteger();
+        context.setLazyAttribute("profile", () -> {
+            computations.incrementAndGet();
+            sleep(20);
+            return new Object();
+        });
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Object>> reads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            reads.add(pool.submit(() -> {
+                start.await();
+                return context.getAttribute("profile", Object.class);
+            }));
+        }
+        start.countDown();
+
+        Object first = reads.get(0).get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        for (Future<Object> read : reads) {
+            assertSame(first, read.get(AWAIT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(1, computations.get());
+        assertSame(first, context.getAllAttributes().get("profile"));
+    }
+
+    @Test
+    void viewsAndRemovalDoNotCompute() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-2");
+        AtomicInteger computations = new AtomicInteger();
+        context.setLazyAttribute("profile", () -> "computed-" + computations.incrementAndGet());
+        context.setAttribute("plain", "value");
+
+        assertTrue(context.hasAttribute("profile"));
+        assertFalse(context.getAllAttributes().containsKey("profile"));
+        assertEquals(List.of("plain"), List.copyOf(context.getAllAttributes().keySet()));
+        assertNull(context.removeAttribute("profile"));
+        assertFalse(context.hasAttribute("profile"));
+        assertEquals(0, computations.get());
+    }
+
+    @Test
+    void failedComputationIsRetried() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-3");
+        AtomicInteger computations = new AtomicInteger();
+        context.setLazyAttribute("profile", () -> {
+            if (computations.incrementAndGet() == 1) {
+                throw new IllegalStateException("unavailable");
+            }
+            return "loaded";
+        });
+
+        assertThrows(IllegalStateException.class, () -> context.getAttribute("profile", String.class));
+
+        assertEquals("loaded", context.getAttribute("profile", String.class));
+        assertEquals("loaded", context.getAttribute("profile", String.class));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void selfReferenceIsReportedAsCircular() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-4");
+        context.setLazyAttribute("loop", () -> context.getAttribute("loop", Object.class));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> context.getAttribute("loop", Object.class));
+
+        assertTrue(error.getMessage().contains("Circular"), error.getMessage());
+    }
+
+    @Test
+    void closedContextRejectsComputation() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-5");
+        AtomicInteger computations = new AtomicInteger();
+        context.setLazyAttribute("profile", computations::incrementAndGet);
+
+        context.close();
+
+        assertThrows(IllegalStateException.class, () -> context.getAttribute("profile", Object.class));
+        assertEquals(0, computations.get());
+    }
+
+    @Test
+    void payloadComputedDuringCloseIsReleased() throws Exception {
+        SlabPayloadAllocator allocator = new SlabPayloadAllocator(4096, 16384, 65536, false);
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("lazy-6");
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        context.setLazyAttribute("payload", () -> {
+            computing.countDown();
+            await(closed);
+            return allocator.allocate(context, 100);
+        });
+
+        Future<OffHeapPayload> read = pool.submit(() -> context.getAttribute("payload", OffHeapPayload.class));
+        assertTrue(computing.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        context.close();
+        closed.countDown();
+
+        // 关闭时结果尚未产生，由计算方补充释放
+        assertTrue(read.get(AWAIT_SECONDS, TimeUnit.SECONDS).isReleased());
+        assertEquals(0, allocator.getUsedBytes());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.wangguangwu.pipelineexecutor.core.exception;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingResult;
+import com.wangguangwu.pipelineexecutor.spi.exception.ExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 轻量失败路径测试
+ * <p>
+ * 延迟消息在序列化后保留；异常策略可统一开启不采集堆栈的失败异常。
+ *
+ * @author wangguangwu
+ */
+class StacklessFailureTest {
+
+    @Test
+    void unresolvedLazyMessageSurvivesSerialization() throws Exception {
+        PipelineException original = PipelineException.stackless(() -> "computed", "lazy", PipelineStatus.FAILED);
+
+        PipelineException copy = roundTrip(original);
+
+        assertEquals("computed", copy.getMessage());
+        assertEquals("lazy", copy.getHandlerName());
+    }
+
+    @Test
+    void resolvedLazyMessageSurvivesSerialization() throws Exception {
+        PipelineException original = PipelineException.stackless(() -> "computed", "lazy", PipelineStatus.FAILED);
+        assertEquals("computed", original.getMessage());
+
+        assertEquals("computed", roundTrip(original).getMessage());
+    }
+
+    @Test
+    void strategyOptInWrapsWithoutStackTrace() {
+        IllegalStateException cause = new IllegalStateException("unavailable");
+        DefaultPipelineExecutor executor = executorFor(new FailingHandler(cause), new ClassifyingExceptionHandlingStrategy(
+                Map.of(), ExceptionHandlingResult.FAIL_FAST, true));
+
+        PipelineException error = assertThrows(PipelineException.class,
+                () -> executor.execute(new DefaultPipelineContext<>("stackless-1")));
+
+        assertEquals(0, error.getStackTrace().length);
+        assertSame(cause, error.getCause());
+    }
+
+    @Test
+    void strategyOptInCreatesStacklessTimeouts() throws Exception {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        PipelineHandler slow = new PipelineHandler() {
+            @Override
+            public String getName() {
+                return "slow";
+            }
+
+            @Override
+            public void handle(PipelineContext context) throws InterruptedException {
+                Thread.sleep(20);
+            }
+
+            @Override
+            public long getTimeout() {
+                return 1;
+            }
+
+            @Override
+            public void postHandle(PipelineContext context, Exception ex) {
+                failure.set(ex);
+            }
+        };
+        DefaultPipelineExecutor executor = executorFor(slow, new ClassifyingExceptionHandlingStrategy(
+                Map.of(TimeoutException.class, ExceptionHandlingResult.CONTINUE), ExceptionHandlingResult.FAIL_FAST, true));
+
+        executor.execute(new DefaultPipelineContext<>("timeout-1"));
+
+        assertInstanceOf(TimeoutException.class, failure.get());
+        assertEquals(0, failure.get().getStackTrace().length);
+    }
+
+    @Test
+    void defaultStrategyKeepsStackTrace() {
+        DefaultPipelineExecutor executor = executorFor(new FailingHandler(new IllegalStateException("unavailable")),
+                new DefaultExceptionHandlingStrategy());
+
+        PipelineException error = assertThrows(PipelineException.class,
+                () -> executor.execute(new DefaultPipelineContext<>("stackful-1")));
+
+        assertNotEquals(0, error.getStackTrace().length);
+    }
+
+    private static DefaultPipelineExecutor executorFor(PipelineHandler handler, ExceptionHandlingStrategy strategy) {
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(handler);
+        return new DefaultPipelineExecutor(registry, strategy, ForkJoinPool.commonPool());
+    }
+
+    private static PipelineException roundTrip(PipelineException exception) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(exception);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (PipelineException) in.readObject();
+        }
+    }
+
+    /**
+     * 总是抛出指定异常的处理器
+     */
+    private record FailingHandler(RuntimeException failure) implements PipelineHandler {
+
+        @Override
+        public void handle(PipelineContext context) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 非阻塞处理器的续接与超时测试
+ * <p>
+ * 覆盖阶段在外部线程完成后经调度器续接、阶段超时以 TIMEOUT 失败并取消阶段、
+ * 重试退避到期后经调度器重试，以及续接被调度器拒绝时不再执行任何处理器代码。
+ * 后续处理器均不应在阶段的完成线程或定时线程上执行。
+ *
+ * @author wangguangwu
+ */
+class AsyncContinuationTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final String WORKER = "pipeline-worker";
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> new Thread(task, WORKER));
+
+    private final DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+
+    private final List<String> tailThreads = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    void foreignCompletionContinuesOnDispatcher() throws Exception {
+        CompletableFuture<Void> stage = new CompletableFuture<>();
+        registry.register(new TestAsyncHandler("remote", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                return stage;
+            }
+        });
+        registerTail();
+
+        CompletableFuture<PipelineResult> future = executor().executeAsync(new DefaultPipelineContext<>("io-1"));
+        awaitSuspended();
+        Thread io = new Thread(() -> stage.complete(null), "io-thread");
+        io.start();
+        io.join();
+
+        assertTrue(future.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertEquals(List.of(WORKER), tailThreads);
+    }
+
+    @Test
+    void stageTimeoutFailsAndCancelsStage() throws Exception {
+        CompletableFuture<Void> stage = new CompletableFuture<>();
+        AtomicReference<String> afterPipelineThread = new AtomicReference<>();
+        registry.register(new TestAsyncHandler("remote", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                return stage;
+            }
+
+            @Override
+            public long getTimeout() {
+                return 50;
+            }
+        });
+        registerTail();
+        DefaultPipelineExecutor executor = executor();
+        executor.addListener(new PipelineListener() {
+            @Override
+            public void afterPipeline(PipelineContext context, long elapsedNanos) {
+                afterPipelineThread.set(Thread.currentThread().getName());
+            }
+        });
+
+        CompletableFuture<PipelineResult> future = executor.executeAsync(new DefaultPipelineContext<>("timeout-1"));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> future.get(AWAIT_SECONDS, TimeUnit.SECONDS));
+        PipelineException timeout = assertInstanceOf(PipelineException.class, error.getCause());
+        assertEquals(PipelineStatus.TIMEOUT, timeout.getPipelineStatus());
+        assertTrue(timeout.getMessage().contains("exceeded timeout of 50ms"), timeout.getMessage());
+        assertTrue(stage.isCancelled(), "timed-out stage was not cancelled");
+        assertTrue(tailThreads.isEmpty(), "handler after the timed-out one still ran");
+        assertEquals(WORKER, afterPipelineThread.get());
+    }
+
+    @Test
+    void retryBackoffResumesOnDispatcher() throws Exception {
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        registry.register(new TestAsyncHandler("flaky", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                attemptThreads.add(Thread.currentThread().getName());
+                return attemptThreads.size() == 1
+                        ? CompletableFuture.failedFuture(new IllegalStateException("unavailable"))
+                        : CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public RetryPolicy getRetryPolicy() {
+                return new FixedRetryPolicy(2, 20);
+            }
+        });
+        registerTail();
+
+        PipelineResult result = executor().executeAsync(new DefaultPipelineContext<>("retry-1"))
+                .get(AWAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(List.of(WORKER, WORKER), attemptThreads);
+        assertEquals(List.of(WORKER), tailThreads);
+    }
+
+    @Test
+    void rejectedContinuationRunsNoHandlerCode() throws Exception {
+        CompletableFuture<Void> stage = new CompletableFuture<>();
+        AtomicBoolean postHandled = new AtomicBoolean();
+        AtomicReference<String> rejectedReason = new AtomicReference<>();
+        registry.register(new TestAsyncHandler("remote", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                return stage;
+            }
+
+            @Override
+            public void postHandle(PipelineContext context, Exception ex) {
+                postHandled.set(true);
+            }
+        });
+        registerTail();
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry,
+                new DefaultExceptionHandlingStrategy(), new NoContinuationDispatcher(), null);
+        executor.addListener(new PipelineListener() {
+            @Override
+            public void onRejected(PipelineContext context, String reason) {
+                rejectedReason.set(reason);
+            }
+        });
+
+        CompletableFuture<PipelineResult> future = executor.executeAsync(new DefaultPipelineContext<>("reject-1"));
+        awaitSuspended();
+        stage.complete(null);
+
+        PipelineResult result = future.get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertTrue(rejectedReason.get().contains("continuations closed"), rejectedReason.get());
+        assertFalse(postHandled.get(), "postHandle ran on the completing thread");
+        assertTrue(tailThreads.isEmpty(), "next handler ran on the completing thread");
+    }
+
+    /**
+     * 单线程工作池排空，即首个任务已在阶段处挂起返回（之后完成阶段才会走续接路径）
+     */
+    private void awaitSuspended() throws Exception {
+        worker.submit(() -> {
+        }).get(AWAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private DefaultPipelineExecutor executor() {
+        return new DefaultPipelineExecutor(registry, new DefaultExceptionHandlingStrategy(), worker);
+    }
+
+    /**
+     * 注册记录执行线程的尾部处理器
+     */
+    private void registerTail() {
+        registry.register(new TestHandler("tail", 1) {
+            @Override
+            public void handle(PipelineContext context) {
+                tailThreads.add(Thread.currentThread().getName());
+            }
+        });
+    }
+
+    /**
+     * 新任务交给工作线程、拒绝所有续接的调度器
+     */
+    private final class NoContinuationDispatcher implements PipelineDispatcher {
+
+        @Override
+        public void dispatch(PipelineContext context, Runnable task) {
+            worker.execute(task);
+        }
+
+        @Override
+        public void dispatchContinuation(PipelineContext context, Runnable task) {
+            throw new RejectedExecutionException("continuations closed");
+        }
+    }
+
+    /**
+     * 测试用同步处理器
+     */
+    private abstract static class TestHandler implements PipelineHandler {
+
+        private final String name;
+
+        private final int order;
+
+        TestHandler(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+
+    /**
+     * 测试用非阻塞处理器
+     */
+    private abstract static class TestAsyncHandler extends TestHandler implements AsyncPipelineHandler {
+
+        TestAsyncHandler(String name, int order) {
+            super(name, order);
+        }
+    }
+
+    /**
+     * 固定间隔、对所有异常重试的策略
+     */
+    private record FixedRetryPolicy(int maxAttempts, long backoffMillis) implements PipelineHandler.RetryPolicy {
+
+        @Override
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        @Override
+        public long getBackoffPeriod() {
+            return backoffMillis;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Throwable>[] retryableExceptions() {
+            return new Class[]{Exception.class};
+        }
+    }
+}
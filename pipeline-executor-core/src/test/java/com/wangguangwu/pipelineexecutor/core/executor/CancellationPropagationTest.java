@@ -0,0 +1,257 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步执行的取消传播测试
+ * <p>
+ * 覆盖整体超时与调用方取消两种入口：同步处理器被中断并归还工作线程、
+ * 非阻塞处理器的阶段被取消、等待中的重试退避被放弃、postHandle 与 afterPipeline 以 CANCELLED 收尾。
+ *
+ * @author wangguangwu
+ */
+class CancellationPropagationTest {
+
+    /**
+     * 等待异步回调的上限，远小于处理器自身的阻塞/退避时间
+     */
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final long BLOCK_MILLIS = 30_000;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    private final DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+
+    private final DefaultPipelineExecutor executor =
+            new DefaultPipelineExecutor(registry, new DefaultExceptionHandlingStrategy(), worker);
+
+    @AfterEach
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    void timedOutSyncHandlerFreesItsWorker() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        registry.register(new TestHandler("block", 0) {
+            @Override
+            public void handle(PipelineContext context) throws Exception {
+                if (!context.getContextId().startsWith("slow")) {
+                    return;
+                }
+                try {
+                    Thread.sleep(BLOCK_MILLIS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+        });
+
+        CompletableFuture<PipelineResult> slow =
+                executor.executeAsync(new DefaultPipelineContext<>("slow-1"), 100, TimeUnit.MILLISECONDS);
+        ExecutionException timeout = assertThrows(ExecutionException.class,
+                () -> slow.get(AWAIT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+        assertTrue(interrupted.await(AWAIT_SECONDS, TimeUnit.SECONDS), "blocked handler was not interrupted");
+
+        // 单线程池：工作线程被归还后下一次执行才能开始
+        PipelineResult next = executor.executeAsync(new DefaultPipelineContext<>("fast-1"))
+                .get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(next.isSuccess());
+    }
+
+    @Test
+    void cancelledAsyncStageIsCancelled() throws Exception {
+        CompletableFuture<Void> stage = new CompletableFuture<>();
+        CountDownLatch started = new CountDownLatch(1);
+        registry.register(new TestAsyncHandler("remote", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                started.countDown();
+                return stage;
+            }
+        });
+
+        CompletableFuture<PipelineResult> future = executor.executeAsync(new DefaultPipelineContext<>("async-1"));
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        future.cancel(false);
+
+        awaitTrue(stage::isCancelled, "in-flight stage was not cancelled");
+    }
+
+    @Test
+    void pendingBackoffIsAbandoned() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch firstAttempt = new CountDownLatch(1);
+        registry.register(new TestAsyncHandler("flaky", 0) {
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                attempts.incrementAndGet();
+                firstAttempt.countDown();
+                return CompletableFuture.failedFuture(new IllegalStateException("unavailable"));
+            }
+
+            @Override
+            public RetryPolicy getRetryPolicy() {
+                return new FixedRetryPolicy(3, BLOCK_MILLIS);
+            }
+        });
+        CountDownLatch finished = new CountDownLatch(1);
+        executor.addListener(new PipelineListener() {
+            @Override
+            public void afterPipeline(PipelineContext context, long elapsedNanos) {
+                finished.countDown();
+            }
+        });
+
+        CompletableFuture<PipelineResult> future = executor.executeAsync(new DefaultPipelineContext<>("retry-1"));
+        assertTrue(firstAttempt.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        future.cancel(false);
+
+        // 退避时间远大于等待上限：管道在此期间结束说明退避已被放弃
+        assertTrue(finished.await(AWAIT_SECONDS, TimeUnit.SECONDS), "pipeline did not finish during the backoff");
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void postHandleAndAfterPipelineReportCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Exception> postHandleError = new AtomicReference<>();
+        AtomicBoolean nextHandlerRan = new AtomicBoolean();
+        registry.register(new TestHandler("block", 0) {
+            @Override
+            public void handle(PipelineContext context) throws Exception {
+                started.countDown();
+                Thread.sleep(BLOCK_MILLIS);
+            }
+
+            @Override
+            public void postHandle(PipelineContext context, Exception ex) {
+                postHandleError.set(ex);
+            }
+        });
+        registry.register(new TestHandler("next", 1) {
+            @Override
+            public void handle(PipelineContext context) {
+                nextHandlerRan.set(true);
+            }
+        });
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interruptedAtEnd = new AtomicBoolean();
+        executor.addListener(new PipelineListener() {
+            @Override
+            public void afterPipeline(PipelineContext context, long elapsedNanos) {
+                interruptedAtEnd.set(((DefaultPipelineContext<?>) context).isInterrupted());
+                finished.countDown();
+            }
+        });
+
+        CompletableFuture<PipelineResult> future = executor.executeAsync(new DefaultPipelineContext<>("cancel-1"));
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        future.cancel(false);
+
+        assertTrue(finished.await(AWAIT_SECONDS, TimeUnit.SECONDS), "afterPipeline was not called");
+        PipelineException cancelled = assertInstanceOf(PipelineException.class, postHandleError.get());
+        assertEquals(PipelineStatus.CANCELLED, cancelled.getPipelineStatus());
+        assertTrue(interruptedAtEnd.get(), "context was not marked interrupted");
+        assertFalse(nextHandlerRan.get(), "handler after the cancelled one still ran");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, message);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 测试用同步处理器
+     */
+    private abstract static class TestHandler implements PipelineHandler {
+
+        private final String name;
+
+        private final int order;
+
+        TestHandler(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+
+    /**
+     * 测试用非阻塞处理器
+     */
+    private abstract static class TestAsyncHandler extends TestHandler implements AsyncPipelineHandler {
+
+        TestAsyncHandler(String name, int order) {
+            super(name, order);
+        }
+    }
+
+    /**
+     * 固定间隔、对所有异常重试的策略
+     */
+    private record FixedRetryPolicy(int maxAttempts, long backoffMillis) implements PipelineHandler.RetryPolicy {
+
+        @Override
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        @Override
+        public long getBackoffPeriod() {
+            return backoffMillis;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Throwable>[] retryableExceptions() {
+            return new Class[]{Exception.class};
+        }
+    }
+}
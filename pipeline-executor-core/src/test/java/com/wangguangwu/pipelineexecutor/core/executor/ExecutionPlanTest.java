@@ -0,0 +1,141 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 执行计划编译测试
+ * <p>
+ * 覆盖按编译期索引注册后快照保持索引顺序、order 与依赖冲突时按依赖重排、循环依赖失败，
+ * 以及索引创建处理器时对注解声明的校验。
+ *
+ * @author wangguangwu
+ */
+class ExecutionPlanTest {
+
+    @Test
+    void indexedHandlersKeepIndexOrder() throws Exception {
+        HandlerIndex index = new FixedIndex(List.of(
+                descriptor("validate", 10, Set.of()),
+                descriptor("enrich", 20, Set.of("validate")),
+                descriptor("persist", 20, Set.of("enrich"))));
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        index.registerTo(registry);
+
+        ExecutionPlan plan = ExecutionPlan.compile(registry.getHandlers());
+
+        assertEquals(List.of("validate", "enrich", "persist"), names(plan));
+        assertEquals(index.getDescriptors().stream().map(HandlerIndex.Descriptor::name).toList(), names(plan));
+    }
+
+    @Test
+    void dependencyOverridesOrder() throws Exception {
+        List<PipelineHandler> handlers = List.of(
+                new NamedHandler("persist", 0, Set.of("validate"), Set.of()),
+                new NamedHandler("notify", 1, Set.of(), Set.of()),
+                new NamedHandler("validate", 2, Set.of(), Set.of("notify")));
+
+        ExecutionPlan plan = ExecutionPlan.compile(handlers);
+
+        assertEquals(List.of("validate", "persist", "notify"), names(plan));
+    }
+
+    @Test
+    void circularDependencyFails() {
+        List<PipelineHandler> handlers = List.of(
+                new NamedHandler("a", 0, Set.of("b"), Set.of()),
+                new NamedHandler("b", 1, Set.of("a"), Set.of()));
+
+        PipelineException error = assertThrows(PipelineException.class, () -> ExecutionPlan.compile(handlers));
+
+        assertEquals(PipelineStatus.FAILED, error.getPipelineStatus());
+    }
+
+    @Test
+    void indexRejectsHandlerThatDisagreesWithAnnotation() {
+        HandlerIndex.Descriptor declared = descriptor("validate", 10, Set.of());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> declared.verify(new NamedHandler("validate", 11, Set.of(), Set.of())));
+
+        assertTrue(error.getMessage().contains("getOrder()"), error.getMessage());
+    }
+
+    private static HandlerIndex.Descriptor descriptor(String name, int order, Set<String> dependsOn) {
+        return new HandlerIndex.Descriptor(name, order, dependsOn, Set.of(), NamedHandler.class.getName());
+    }
+
+    private static List<String> names(ExecutionPlan plan) {
+        List<String> names = new ArrayList<>(plan.size());
+        for (int i = 0; i < plan.size(); i++) {
+            names.add(plan.get(i).getName());
+        }
+        return names;
+    }
+
+    /**
+     * 与生成代码结构相同的手写索引
+     */
+    private record FixedIndex(List<Descriptor> descriptors) implements HandlerIndex {
+
+        @Override
+        public List<Descriptor> getDescriptors() {
+            return descriptors;
+        }
+
+        @Override
+        public List<PipelineHandler> createHandlers() {
+            List<PipelineHandler> handlers = new ArrayList<>(descriptors.size());
+            for (Descriptor descriptor : descriptors) {
+                handlers.add(descriptor.verify(new NamedHandler(descriptor.name(), descriptor.order(),
+                        descriptor.dependsOn(), descriptor.dependentBy())));
+            }
+            return handlers;
+        }
+    }
+
+    /**
+     * 只声明名称、顺序与依赖的处理器
+     */
+    private record NamedHandler(String name, int order, Set<String> dependsOn, Set<String> dependentBy)
+            implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public Set<String> getDependsOn() {
+            return dependsOn;
+        }
+
+        @Override
+        public Set<String> getDependentBy() {
+            return dependentBy;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            // 不做任何处理
+        }
+    }
+}
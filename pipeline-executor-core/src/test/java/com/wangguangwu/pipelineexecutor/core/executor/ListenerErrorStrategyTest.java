@@ -0,0 +1,179 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.exception.PipelineException;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 监听器 onError 返回值测试
+ * <p>
+ * 默认异常策略为快速失败：CONTINUE 越过失败的处理器，TERMINATE 放弃剩余重试，
+ * RETRY 对重试策略未声明的异常也发起重试，DEFAULT 保持原有决定。
+ *
+ * @author wangguangwu
+ */
+class ListenerErrorStrategyTest {
+
+    private final DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+
+    private final DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry);
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private final AtomicBoolean nextHandlerRan = new AtomicBoolean();
+
+    ListenerErrorStrategyTest() {
+        registry.register(new FailingHandler(3, IllegalStateException.class));
+        registry.register(new TestHandler("next", 1) {
+            @Override
+            public void handle(PipelineContext context) {
+                nextHandlerRan.set(true);
+            }
+        });
+    }
+
+    @Test
+    void continueSkipsFailedHandler() throws Exception {
+        executor.addListener(verdict(PipelineListener.ErrorStrategy.CONTINUE));
+
+        PipelineResult result = executor.execute(new DefaultPipelineContext<>("continue-1"));
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, attempts.get());
+        assertTrue(nextHandlerRan.get());
+    }
+
+    @Test
+    void terminateOverridesRetryPolicy() {
+        executor.addListener(verdict(PipelineListener.ErrorStrategy.TERMINATE));
+
+        assertThrows(PipelineException.class, () -> executor.execute(new DefaultPipelineContext<>("terminate-1")));
+        assertEquals(1, attempts.get());
+        assertFalse(nextHandlerRan.get());
+    }
+
+    @Test
+    void retryIgnoresRetryableExceptions() {
+        registry.clear();
+        registry.register(new FailingHandler(3, IllegalArgumentException.class));
+        executor.addListener(verdict(PipelineListener.ErrorStrategy.RETRY));
+
+        assertThrows(PipelineException.class, () -> executor.execute(new DefaultPipelineContext<>("retry-1")));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void firstDecidingListenerWins() throws Exception {
+        executor.addListener(new PipelineListener() {
+        });
+        executor.addListener(verdict(PipelineListener.ErrorStrategy.CONTINUE));
+        executor.addListener(verdict(PipelineListener.ErrorStrategy.TERMINATE));
+
+        PipelineResult result = executor.executeAsync(new DefaultPipelineContext<>("async-1"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        assertTrue(nextHandlerRan.get());
+    }
+
+    @Test
+    void defaultKeepsRetryPolicy() {
+        executor.addListener(new PipelineListener() {
+        });
+
+        assertThrows(PipelineException.class, () -> executor.execute(new DefaultPipelineContext<>("default-1")));
+        assertEquals(3, attempts.get());
+        assertFalse(nextHandlerRan.get());
+    }
+
+    private static PipelineListener verdict(PipelineListener.ErrorStrategy strategy) {
+        return new PipelineListener() {
+            @Override
+            public ErrorStrategy onError(PipelineContext context, PipelineHandler handler, Throwable error) {
+                return strategy;
+            }
+        };
+    }
+
+    /**
+     * 总是抛出 {@link IllegalStateException}，重试策略只声明指定的异常类型
+     */
+    private final class FailingHandler extends TestHandler {
+
+        private final int maxAttempts;
+
+        private final Class<? extends Throwable> retryable;
+
+        FailingHandler(int maxAttempts, Class<? extends Throwable> retryable) {
+            super("flaky", 0);
+            this.maxAttempts = maxAttempts;
+            this.retryable = retryable;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("unavailable");
+        }
+
+        @Override
+        public RetryPolicy getRetryPolicy() {
+            return new RetryPolicy() {
+                @Override
+                public int getMaxAttempts() {
+                    return maxAttempts;
+                }
+
+                @Override
+                public long getBackoffPeriod() {
+                    return 0;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Class<? extends Throwable>[] retryableExceptions() {
+                    return new Class[]{retryable};
+                }
+            };
+        }
+    }
+
+    /**
+     * 测试用同步处理器
+     */
+    private abstract static class TestHandler implements PipelineHandler {
+
+        private final String name;
+
+        private final int order;
+
+        TestHandler(String name, int order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 合并执行的取消测试：部分调用放弃时执行继续，全部放弃时取消被装饰执行器上的执行
+ *
+ * @author wangguangwu
+ */
+class SingleFlightPipelineExecutorTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    private final CompletableFuture<Void> stage = new CompletableFuture<>();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private SingleFlightPipelineExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new AsyncPipelineHandler() {
+            @Override
+            public String getName() {
+                return "remote";
+            }
+
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                started.countDown();
+                return stage;
+            }
+        });
+        executor = new SingleFlightPipelineExecutor(
+                new DefaultPipelineExecutor(registry, new DefaultExceptionHandlingStrategy(), worker));
+    }
+
+    @AfterEach
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Test
+    void executionSurvivesWhileAnyCallerWaits() throws Exception {
+        CompletableFuture<PipelineResult> leader = executor.executeAsync(new DefaultPipelineContext<>("same"));
+        CompletableFuture<PipelineResult> follower = executor.executeAsync(new DefaultPipelineContext<>("same"));
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, executor.getExecutionCount());
+
+        leader.cancel(false);
+        assertFalse(stage.isCancelled(), "execution cancelled while a follower still waits");
+
+        stage.complete(null);
+        assertTrue(follower.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+    }
+
+    @Test
+    void lastCallerGivingUpCancelsExecution() throws Exception {
+        CompletableFuture<PipelineResult> leader = executor.executeAsync(new DefaultPipelineContext<>("same"));
+        CompletableFuture<PipelineResult> follower =
+                executor.executeAsync(new DefaultPipelineContext<>("same"), 100, TimeUnit.MILLISECONDS);
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+
+        leader.cancel(false);
+        // 跟随者超时后不再有等待者
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!stage.isCancelled()) {
+            assertTrue(System.nanoTime() - deadline < 0, "execution was not cancelled");
+            Thread.sleep(10);
+        }
+        assertTrue(follower.isCompletedExceptionally());
+        assertEquals(0, executor.getKeyCount());
+    }
+}
@@ -0,0 +1,69 @@
+package com.wangguangwu.pipelineexecutor.core.executor;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 同步执行稳态分配回归测试
+ * <p>
+ * 预热后通过 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} 统计
+ * {@code execute()} 每次执行的分配字节数，超过上限即失败。
+ *
+ * @author wangguangwu
+ */
+class SyncExecuteAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int MEASURE_ITERATIONS = 200_000;
+
+    /**
+     * 每次执行允许的平均分配字节数（稳态应为0，留出测量本身的噪声）
+     */
+    private static final double MAX_BYTES_PER_OP = 1.0;
+
+    @Test
+    void steadyStateExecuteDoesNotAllocate() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "thread allocation counters not available");
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "thread allocation counters not supported");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        // 空处理器，仅测量框架自身开销；每个 lambda 是独立的类，默认名称（类名）互不相同
+        registry.register(ignored -> {
+        });
+        registry.register(ignored -> {
+        });
+        registry.register(ignored -> {
+        });
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry);
+        executor.addListener(new PipelineListener() {
+        });
+        PipelineContext context = new DefaultPipelineContext<>("allocation-test");
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            executor.execute(context);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            executor.execute(context);
+        }
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        double bytesPerOp = (double) (after - before) / MEASURE_ITERATIONS;
+        assertTrue(bytesPerOp <= MAX_BYTES_PER_OP,
+                String.format("execute() allocates %.2f bytes/op, limit %.2f", bytesPerOp, MAX_BYTES_PER_OP));
+    }
+}
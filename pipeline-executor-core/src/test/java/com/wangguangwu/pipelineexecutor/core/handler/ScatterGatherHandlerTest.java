@@ -0,0 +1,164 @@
+package com.wangguangwu.pipelineexecutor.core.handler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 拆分-汇聚处理器测试
+ * <p>
+ * 覆盖子上下文在合并时仍打开、合并后全部关闭；失败后被放弃的子管道仍在运行时其上下文不提前关闭；
+ * 多个处理器共用同一个子执行器时只注册一个监听器。
+ *
+ * @author wangguangwu
+ */
+class ScatterGatherHandlerTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    private final DefaultHandlerRegistry childRegistry = new DefaultHandlerRegistry();
+
+    private final List<DefaultPipelineContext<Void>> children = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void childrenStayOpenDuringMergeAndCloseAfter() throws Exception {
+        childRegistry.register(context -> {
+        });
+        List<String> mergedIds = new ArrayList<>();
+        List<Boolean> openAtMerge = new ArrayList<>();
+        ScatterGatherHandler handler = new ScatterGatherHandler("fan-out", 0, split(5), childRegistry, pool, 2,
+                (parent, results) -> results.forEach(child -> {
+                    mergedIds.add(child.context().getContextId());
+                    openAtMerge.add(!child.context().isClosed() && child.result().isSuccess());
+                }));
+
+        handler.handleAsync(new DefaultPipelineContext<>("parent-1")).toCompletableFuture()
+                .get(AWAIT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(List.of("child-0", "child-1", "child-2", "child-3", "child-4"), mergedIds);
+        assertEquals(List.of(true, true, true, true, true), openAtMerge);
+        for (DefaultPipelineContext<Void> child : children) {
+            assertTrue(child.isClosed(), child.getContextId() + " was not closed");
+        }
+    }
+
+    @Test
+    void abandonedChildClosesOnlyAfterItsPipelineEnds() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        childRegistry.register(context -> {
+            if ("child-0".equals(context.getContextId())) {
+                slowStarted.countDown();
+                awaitIgnoringInterrupt(release);
+            } else {
+                assertTrue(slowStarted.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+                throw new IllegalStateException("child failed");
+            }
+        });
+        ScatterGatherHandler handler = new ScatterGatherHandler("fan-out", 0, split(2), childRegistry, pool, 2,
+                (parent, results) -> {
+                });
+
+        CompletableFuture<Void> stage = handler.handleAsync(new DefaultPipelineContext<>("parent-1"))
+                .toCompletableFuture();
+        assertThrows(ExecutionException.class, () -> stage.get(AWAIT_SECONDS, TimeUnit.SECONDS));
+
+        // 失败的子管道已结束并关闭，仍在运行的子管道不能被提前关闭
+        awaitTrue(children.get(1)::isClosed, "failed child was not closed");
+        assertFalse(children.get(0).isClosed(), "running child was closed before its pipeline ended");
+
+        release.countDown();
+        awaitTrue(children.get(0)::isClosed, "abandoned child was not closed after its pipeline ended");
+    }
+
+    @Test
+    void handlersSharingChildExecutorRegisterOneListener() throws Exception {
+        childRegistry.register(context -> {
+        });
+        AtomicInteger listeners = new AtomicInteger();
+        DefaultPipelineExecutor childExecutor = new DefaultPipelineExecutor(childRegistry,
+                new DefaultExceptionHandlingStrategy(), pool) {
+            @Override
+            public synchronized <T> void addListener(PipelineListener listener) {
+                listeners.incrementAndGet();
+                super.addListener(listener);
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            ScatterGatherHandler handler = new ScatterGatherHandler("fan-out-" + i, 0, split(2), childExecutor, 2,
+                    (parent, results) -> {
+                    });
+            handler.handleAsync(new DefaultPipelineContext<>("parent-" + i)).toCompletableFuture()
+                    .get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, listeners.get());
+        for (DefaultPipelineContext<Void> child : children) {
+            assertTrue(child.isClosed(), child.getContextId() + " was not closed");
+        }
+    }
+
+    /**
+     * 拆分出指定数量的子上下文，并记录下来供断言
+     */
+    private ScatterGatherHandler.Splitter split(int count) {
+        return parent -> {
+            List<PipelineContext> split = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                DefaultPipelineContext<Void> child = new DefaultPipelineContext<>("child-" + i);
+                children.add(child);
+                split.add(child);
+            }
+            return split;
+        };
+    }
+
+    private static void awaitIgnoringInterrupt(CountDownLatch latch) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (latch.getCount() > 0 && System.nanoTime() - deadline < 0) {
+            try {
+                latch.await(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // 模拟不响应中断的子处理器
+            }
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, message);
+            Thread.sleep(10);
+        }
+    }
+}
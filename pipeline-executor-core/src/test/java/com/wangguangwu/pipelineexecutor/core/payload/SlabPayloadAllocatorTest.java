@@ -0,0 +1,157 @@
+package com.wangguangwu.pipelineexecutor.core.payload;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * slab 分配器测试
+ * <p>
+ * 覆盖块按尺寸等级复用、超大块不入池、上下文关闭时只释放自己拥有的载荷（含所有权转移），
+ * 以及所属上下文已关闭或句柄被回收时的泄漏检测与回收。
+ *
+ * @author wangguangwu
+ */
+class SlabPayloadAllocatorTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final int MIN_CHUNK = 4096;
+
+    private static final int MAX_CHUNK = 16384;
+
+    private static final int SLAB = 65536;
+
+    private final SlabPayloadAllocator allocator = new SlabPayloadAllocator(MIN_CHUNK, MAX_CHUNK, SLAB, false);
+
+    @Test
+    void releasedChunksAreRecycled() {
+        int perSlab = SLAB / MIN_CHUNK;
+        List<OffHeapPayload> payloads = allocateAll(perSlab, 3000);
+        assertEquals(SLAB, allocator.getReservedBytes());
+        assertEquals((long) perSlab * MIN_CHUNK, allocator.getUsedBytes());
+
+        payloads.forEach(OffHeapPayload::release);
+        assertEquals(0, allocator.getUsedBytes());
+        assertEquals(0, allocator.getLiveCount());
+
+        // 释放的块回到空闲队列，再次申请不新建 slab
+        payloads = allocateAll(perSlab, MIN_CHUNK);
+        assertEquals(SLAB, allocator.getReservedBytes());
+        allocator.allocate(null, 1).release();
+        assertEquals(2L * SLAB, allocator.getReservedBytes());
+        payloads.forEach(OffHeapPayload::release);
+    }
+
+    @Test
+    void sizeClassesAndOversizedAllocations() {
+        OffHeapPayload small = allocator.allocate(null, 0);
+        OffHeapPayload medium = allocator.allocate(null, MIN_CHUNK + 1);
+        OffHeapPayload oversized = allocator.allocate(null, MAX_CHUNK + 1);
+
+        assertEquals(MIN_CHUNK, small.capacity());
+        assertEquals(2 * MIN_CHUNK, medium.capacity());
+        assertEquals(MAX_CHUNK + 1, oversized.capacity());
+        // 超大块单独分配，不占用 slab
+        assertEquals(2L * SLAB, allocator.getReservedBytes());
+
+        oversized.release();
+        oversized.release();
+        assertTrue(oversized.isReleased());
+        assertEquals((long) MIN_CHUNK + 2 * MIN_CHUNK, allocator.getUsedBytes());
+        small.release();
+        medium.release();
+        assertEquals(0, allocator.getUsedBytes());
+    }
+
+    @Test
+    void copyOfExposesWrittenBytesOnly() {
+        byte[] data = {1, 2, 3, 4, 5};
+
+        OffHeapPayload payload = allocator.copyOf(null, data);
+
+        assertEquals(data.length, payload.length());
+        ByteBuffer view = payload.readOnlyBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(data.length, view.remaining());
+        assertArrayEquals(data, payload.toByteArray());
+        payload.release();
+    }
+
+    @Test
+    void closingContextReleasesOnlyOwnedPayloads() {
+        DefaultPipelineContext<Void> parent = new DefaultPipelineContext<>("parent-1");
+        DefaultPipelineContext<Void> child = new DefaultPipelineContext<>("child-1");
+        OffHeapPayload owned = allocator.allocate(child, 100);
+        OffHeapPayload transferred = allocator.allocate(child, 100);
+        child.setAttribute("owned", owned);
+        child.setAttribute("transferred", transferred);
+        transferred.transferTo(parent);
+        parent.setAttribute("transferred", transferred);
+
+        child.close();
+
+        assertTrue(owned.isReleased());
+        assertFalse(transferred.isReleased(), "payload transferred to the parent was released by the child");
+        assertTrue(transferred.isOwnedBy(parent));
+
+        parent.close();
+
+        assertTrue(transferred.isReleased());
+        assertEquals(0, allocator.getLiveCount());
+        assertEquals(0, allocator.detectLeaks());
+    }
+
+    @Test
+    void payloadOutlivingClosedOwnerIsReportedOnce() {
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("leaky-1");
+        // 未作为属性保存，关闭上下文不会释放
+        OffHeapPayload payload = allocator.allocate(context, 100);
+        OffHeapPayload unbound = allocator.allocate(null, 100);
+        assertEquals(0, allocator.detectLeaks());
+
+        context.close();
+
+        assertEquals(1, allocator.detectLeaks());
+        assertEquals(0, allocator.detectLeaks());
+        assertTrue(payload.isReleased());
+        assertFalse(unbound.isReleased());
+        assertEquals(1, allocator.getLeakCount());
+        unbound.release();
+        assertEquals(1, allocator.getLeakCount());
+        assertEquals(0, allocator.getUsedBytes());
+    }
+
+    @Test
+    void unreachableHandleIsReclaimed() throws Exception {
+        allocator.allocate(null, 100);
+        assertEquals(1, allocator.getLiveCount());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (allocator.getLiveCount() > 0 && System.nanoTime() - deadline < 0) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, allocator.getLiveCount(), "unreachable payload was not reclaimed");
+        assertEquals(1, allocator.getLeakCount());
+        assertEquals(0, allocator.getUsedBytes());
+    }
+
+    private List<OffHeapPayload> allocateAll(int count, int capacity) {
+        List<OffHeapPayload> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            payloads.add(allocator.allocate(null, capacity));
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,163 @@
+package com.wangguangwu.pipelineexecutor.core.profiler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 关键路径分析器测试
+ * <p>
+ * 直接驱动监听器回调构造时间线，覆盖按 dependsOn / dependentBy 回溯关键路径、就绪后的等待、
+ * 失败尝试与重试（含退避）的切分、最近明细的环形缓冲与折叠栈输出，以及接入执行器后的抽样。
+ *
+ * @author wangguangwu
+ */
+class CriticalPathProfilerTest {
+
+    private static final long STEP_MILLIS = 20;
+
+    private final CriticalPathProfiler profiler = new CriticalPathProfiler(1, 2);
+
+    @Test
+    void criticalPathFollowsLatestFinishingPredecessor() throws Exception {
+        TestHandler slow = new TestHandler("slow", Set.of(), Set.of());
+        TestHandler side = new TestHandler("side", Set.of(), Set.of("tail"));
+        TestHandler tail = new TestHandler("tail", Set.of("slow"), Set.of());
+        PipelineContext context = new DefaultPipelineContext<>("run-1");
+
+        profiler.beforePipeline(context);
+        run(context, slow, STEP_MILLIS);
+        run(context, side, STEP_MILLIS);
+        run(context, tail, 0);
+        profiler.afterPipeline(context, 0);
+
+        CriticalPathProfiler.RunProfile profile = profiler.recentRuns().get(0);
+        // side 通过 dependentBy 成为 tail 的前置，且结束晚于 slow
+        assertEquals(List.of("side", "tail"), profile.criticalPath().stream()
+                .map(CriticalPathProfiler.PathNode::name).toList());
+        CriticalPathProfiler.HandlerSpan tailSpan = profile.handlers().get(2);
+        assertEquals(Set.of("slow", "side"), tailSpan.dependencies());
+        CriticalPathProfiler.HandlerSpan sideSpan = profile.handlers().get(1);
+        // side 没有前置，就绪于管道开始，等待 slow 执行的时间
+        assertTrue(sideSpan.waitNanos() >= STEP_MILLIS * 1_000_000, "wait " + sideSpan.waitNanos());
+
+        List<CriticalPathProfiler.HandlerReport> report = profiler.report();
+        assertEquals(3, report.size());
+        assertEquals(1, reportOf(report, "side").criticalCount());
+        assertEquals(0, reportOf(report, "slow").criticalCount());
+        assertEquals(1.0, reportOf(report, "tail").criticalRatio());
+        assertTrue(profiler.dumpFolded().contains("side;tail "), profiler.dumpFolded());
+    }
+
+    @Test
+    void failedAttemptsSplitIntoRetries() throws Exception {
+        TestHandler flaky = new TestHandler("flaky", Set.of(), Set.of());
+        PipelineContext context = new DefaultPipelineContext<>("retry-1");
+
+        profiler.beforePipeline(context);
+        profiler.onHandlerStart(context, flaky);
+        profiler.onError(context, flaky, new IllegalStateException("unavailable"));
+        // 退避计入下一次尝试
+        Thread.sleep(STEP_MILLIS);
+        profiler.onHandlerComplete(context, flaky, 0);
+        profiler.afterPipeline(context, 0);
+
+        List<CriticalPathProfiler.Attempt> attempts = profiler.recentRuns().get(0).handlers().get(0).attempts();
+        assertEquals(2, attempts.size());
+        assertFalse(attempts.get(0).success());
+        assertTrue(attempts.get(1).success());
+        assertEquals(attempts.get(0).endNanos(), attempts.get(1).startNanos());
+        assertTrue(attempts.get(1).endNanos() - attempts.get(1).startNanos() >= STEP_MILLIS * 1_000_000);
+        assertEquals(2, reportOf(profiler.report(), "flaky").attempts());
+    }
+
+    @Test
+    void recentRunsKeepLatestInOrder() {
+        TestHandler handler = new TestHandler("only", Set.of(), Set.of());
+        for (int i = 1; i <= 3; i++) {
+            PipelineContext context = new DefaultPipelineContext<>("run-" + i);
+            profiler.beforePipeline(context);
+            profiler.onHandlerStart(context, handler);
+            profiler.onHandlerComplete(context, handler, 0);
+            profiler.afterPipeline(context, 0);
+        }
+        // 未经 beforePipeline 抽样的执行不记录
+        PipelineContext unsampled = new DefaultPipelineContext<>("run-4");
+        profiler.onHandlerStart(unsampled, handler);
+        profiler.afterPipeline(unsampled, 0);
+
+        assertEquals(List.of("run-2", "run-3"), profiler.recentRuns().stream()
+                .map(CriticalPathProfiler.RunProfile::contextId).toList());
+        assertEquals(3, profiler.getSampledRuns());
+
+        profiler.reset();
+        assertTrue(profiler.recentRuns().isEmpty());
+        assertTrue(profiler.report().isEmpty());
+    }
+
+    @Test
+    void profilesRunsOfExecutor() throws Exception {
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new TestHandler("first", Set.of(), Set.of()));
+        registry.register(new TestHandler("second", Set.of("first"), Set.of()));
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry);
+        executor.addListener(profiler);
+
+        assertTrue(executor.execute(new DefaultPipelineContext<>("exec-1")).isSuccess());
+
+        assertEquals(1, profiler.getSampledRuns());
+        assertEquals(List.of("first", "second"), profiler.recentRuns().get(0).criticalPath().stream()
+                .map(CriticalPathProfiler.PathNode::name).toList());
+        assertTrue(profiler.dumpText().contains("second"), profiler.dumpText());
+    }
+
+    private void run(PipelineContext context, PipelineHandler handler, long millis) throws InterruptedException {
+        profiler.onHandlerStart(context, handler);
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+        profiler.onHandlerComplete(context, handler, 0);
+    }
+
+    private static CriticalPathProfiler.HandlerReport reportOf(List<CriticalPathProfiler.HandlerReport> report,
+                                                               String name) {
+        return report.stream().filter(r -> r.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * 只声明依赖的处理器
+     */
+    private record TestHandler(String name, Set<String> dependsOn, Set<String> dependentBy)
+            implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Set<String> getDependsOn() {
+            return dependsOn;
+        }
+
+        @Override
+        public Set<String> getDependentBy() {
+            return dependentBy;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            // 不做任何处理
+        }
+    }
+}
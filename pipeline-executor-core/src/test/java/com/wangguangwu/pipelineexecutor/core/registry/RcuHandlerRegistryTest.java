@@ -0,0 +1,211 @@
+package com.wangguangwu.pipelineexecutor.core.registry;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 纪元 RCU 注册中心测试
+ * <p>
+ * 覆盖被移除的处理器在固定旧快照的读者（线程槽位与独立句柄）离开前不退役、
+ * 固定新纪元或已结束的读者不阻塞退役、读路径触发的 onRetire 交给退役执行器，以及槽位复用。
+ *
+ * @author wangguangwu
+ */
+class RcuHandlerRegistryTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final String RETIRE_THREAD = "rcu-retire";
+
+    private final ExecutorService retireExecutor =
+            Executors.newSingleThreadExecutor(task -> new Thread(task, RETIRE_THREAD));
+
+    private final RcuHandlerRegistry registry = new RcuHandlerRegistry(retireExecutor);
+
+    private final RetiringHandler handler = new RetiringHandler("target");
+
+    @AfterEach
+    void shutdown() {
+        retireExecutor.shutdownNow();
+    }
+
+    @Test
+    void pinnedReaderDefersRetirementUntilUnpin() throws Exception {
+        registry.register(handler);
+        CountDownLatch pinned = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        AtomicReference<List<PipelineHandler>> seen = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            seen.set(registry.pin());
+            pinned.countDown();
+            await(leave);
+            registry.unpin();
+        });
+        reader.start();
+        assertTrue(pinned.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+
+        assertSame(handler, registry.removeHandler("target"));
+        assertEquals(0, registry.reclaim());
+        assertEquals(1, registry.getPendingRetirementCount());
+        assertTrue(seen.get().contains(handler), "pinned snapshot lost the handler");
+        assertEquals(1, handler.retired.getCount());
+
+        leave.countDown();
+        reader.join();
+        assertTrue(handler.retired.await(AWAIT_SECONDS, TimeUnit.SECONDS), "handler was not retired");
+        assertEquals(RETIRE_THREAD, handler.retiredOn.get(), "onRetire ran on the reader thread");
+        assertEquals(0, registry.getPendingRetirementCount());
+    }
+
+    @Test
+    void detachedPinHoldsSnapshotAcrossThreads() throws Exception {
+        registry.register(handler);
+        PinnableHandlerRegistry.Pin pin = registry.pinDetached();
+        registry.removeHandler("target");
+        assertEquals(0, registry.reclaim());
+
+        Thread releaser = new Thread(pin::release);
+        releaser.start();
+        releaser.join();
+
+        assertTrue(handler.retired.await(AWAIT_SECONDS, TimeUnit.SECONDS), "handler was not retired");
+        assertEquals(RETIRE_THREAD, handler.retiredOn.get());
+        assertTrue(pin.getHandlers().contains(handler));
+        // 重复释放无副作用
+        pin.release();
+    }
+
+    @Test
+    void deadReaderDoesNotBlock() throws Exception {
+        registry.register(handler);
+        // 线程固定旧快照后未释放即结束
+        Thread abandoned = new Thread(registry::pin);
+        abandoned.start();
+        abandoned.join();
+
+        registry.removeHandler("target");
+
+        // 写操作在调用线程上回收
+        assertEquals(0, handler.retired.getCount());
+        assertEquals(Thread.currentThread().getName(), handler.retiredOn.get());
+    }
+
+    @Test
+    void readerOnNewerEpochDoesNotBlock() throws Exception {
+        registry.register(handler);
+        PinnableHandlerRegistry.Pin old = registry.pinDetached();
+        registry.removeHandler("target");
+
+        // 移除之后才固定的读者看不到该处理器，也不阻塞其退役
+        List<PipelineHandler> current = registry.pin();
+        try {
+            assertTrue(current.isEmpty());
+            old.release();
+            assertTrue(handler.retired.await(AWAIT_SECONDS, TimeUnit.SECONDS), "newer reader blocked retirement");
+        } finally {
+            registry.unpin();
+        }
+    }
+
+    @Test
+    void nestedPinKeepsOuterPin() throws Exception {
+        registry.register(handler);
+        registry.pin();
+        registry.pin();
+        registry.removeHandler("target");
+        registry.unpin();
+        assertEquals(0, registry.reclaim());
+
+        registry.unpin();
+        assertTrue(handler.retired.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, registry::unpin);
+    }
+
+    @Test
+    void replacingRetiresOldInstanceOnly() throws Exception {
+        registry.register(handler);
+        registry.register(handler);
+        assertEquals(0, registry.getPendingRetirementCount());
+
+        RetiringHandler replacement = new RetiringHandler("target");
+        registry.register(replacement);
+
+        assertTrue(handler.retired.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        assertNotEquals(0, replacement.retired.getCount());
+        assertSame(replacement, registry.getHandler("target"));
+        assertNull(registry.getHandler("missing"));
+    }
+
+    @Test
+    void slotsAreRecycled() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            Thread reader = new Thread(() -> {
+                registry.pin();
+                registry.unpin();
+            });
+            reader.start();
+            reader.join();
+        }
+        for (int i = 0; i < 1000; i++) {
+            registry.pinDetached().release();
+        }
+
+        assertTrue(registry.getReaderSlotCount() <= 2, "slots grew to " + registry.getReaderSlotCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(AWAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 记录 onRetire 调用线程的处理器
+     */
+    private static final class RetiringHandler implements PipelineHandler {
+
+        private final String name;
+
+        private final CountDownLatch retired = new CountDownLatch(1);
+
+        private final AtomicReference<String> retiredOn = new AtomicReference<>();
+
+        private RetiringHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            // 不做任何处理
+        }
+
+        @Override
+        public void onRetire() {
+            retiredOn.set(Thread.currentThread().getName());
+            retired.countDown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.wangguangwu.pipelineexecutor.core.replay;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 录制回放测试
+ * <p>
+ * 覆盖录制文件的写入与读回、序列化失败的记录整条丢弃且不影响后续记录、读取时忽略末尾不完整的记录，
+ * 桩处理器按录制耗时回放，以及开环回放在结果处理抛出异常时仍能返回。
+ *
+ * @author wangguangwu
+ */
+class ReplayHarnessTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final long STUB_MILLIS = 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedRunsReadBack() throws Exception {
+        Path file = dir.resolve("runs.rec");
+        RecordingListener listener = new RecordingListener(file, new TaggedAttributeCodec(), 1);
+        DefaultPipelineContext<Void> context = new DefaultPipelineContext<>("order-1", Map.of("tenant", "a"));
+        context.setAttribute("amount", 42L);
+        context.setAttribute("note", "express");
+        assertTrue(executor(listener).execute(context).isSuccess());
+        listener.close();
+
+        List<RecordedRun> runs = RecordingFile.read(file, new TaggedAttributeCodec());
+
+        assertEquals(1, runs.size());
+        RecordedRun run = runs.get(0);
+        assertEquals("order-1", run.contextId());
+        assertEquals(Map.of("tenant", "a"), run.metadata());
+        assertEquals(Map.of("amount", 42L, "note", "express"), run.attributes());
+        assertEquals(List.of("first", "second"), List.copyOf(run.handlerLatencies().keySet()));
+        assertTrue(run.elapsedNanos() > 0);
+    }
+
+    @Test
+    void unserializableRunIsDroppedWhole() throws Exception {
+        Path file = dir.resolve("runs.rec");
+        RecordingListener listener = new RecordingListener(file, new TaggedAttributeCodec(), 1);
+        DefaultPipelineExecutor executor = executor(listener);
+
+        executor.execute(new DefaultPipelineContext<>("before"));
+        // 超过 writeUTF 上限的元数据在序列化中途失败
+        executor.execute(new DefaultPipelineContext<>("oversized", Map.of("blob", "x".repeat(70_000))));
+        executor.execute(new DefaultPipelineContext<>("after"));
+        listener.close();
+
+        assertEquals(2, listener.getRecordedCount());
+        assertEquals(1, listener.getDroppedCount());
+        assertEquals(List.of("before", "after"), RecordingFile.read(file, new TaggedAttributeCodec()).stream()
+                .map(RecordedRun::contextId).toList());
+    }
+
+    @Test
+    void truncatedTailIsIgnored() throws Exception {
+        Path file = dir.resolve("runs.rec");
+        RecordingListener listener = new RecordingListener(file, new TaggedAttributeCodec(), 1);
+        DefaultPipelineExecutor executor = executor(listener);
+        executor.execute(new DefaultPipelineContext<>("complete"));
+        executor.execute(new DefaultPipelineContext<>("torn"));
+        listener.close();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        assertEquals(List.of("complete"), RecordingFile.read(file, new TaggedAttributeCodec()).stream()
+                .map(RecordedRun::contextId).toList());
+    }
+
+    @Test
+    void stubRegistryReplaysRecordedLatencies() throws Exception {
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        latencies.put("fetch", TimeUnit.MILLISECONDS.toNanos(STUB_MILLIS));
+        latencies.put("render", 0L);
+        RecordedRun run = new RecordedRun(0, "order-1", Map.of("tenant", "a"), Map.of("amount", 42L), latencies, 0);
+        ReplayHarness harness = new ReplayHarness(List.of(run));
+
+        HandlerRegistry stubs = harness.stubRegistry();
+        PipelineContext context = harness.newContext(run);
+
+        assertEquals(List.of("fetch", "render"), stubs.getHandlers().stream().map(PipelineHandler::getName).toList());
+        assertTrue(context.getContextId().startsWith("order-1-replay-"), context.getContextId());
+
+        ReplayReport report = harness.runClosedLoop(new DefaultPipelineExecutor(stubs), 1, 3, 0);
+
+        assertEquals(3, report.requests());
+        assertEquals(0, report.errors());
+        assertTrue(report.uncorrected().p50() >= TimeUnit.MILLISECONDS.toNanos(STUB_MILLIS),
+                report.toText());
+    }
+
+    @Test
+    void openLoopReturnsWhenResultHandlingFails() {
+        ReplayHarness harness = new ReplayHarness(List.of(
+                new RecordedRun(0, "order-1", Map.of(), Map.of(), Map.of(), 0)));
+        // 以 null 结果完成：记录结果时抛出 NullPointerException
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(new DefaultHandlerRegistry()) {
+            @Override
+            public CompletableFuture<PipelineResult> executeAsync(PipelineContext context) {
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+
+        ReplayReport report = assertTimeoutPreemptively(Duration.ofSeconds(AWAIT_SECONDS),
+                () -> harness.runOpenLoop(executor, 10_000, 5));
+
+        assertEquals(5, report.requests());
+    }
+
+    /**
+     * 挂上录制监听器的两处理器执行器
+     */
+    private static DefaultPipelineExecutor executor(RecordingListener listener) {
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new TestHandler("first", 0));
+        registry.register(new TestHandler("second", 1));
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry);
+        executor.addListener(listener);
+        return executor;
+    }
+
+    /**
+     * 不做任何处理的处理器
+     */
+    private record TestHandler(String name, int order) implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            // 不做任何处理
+        }
+    }
+}
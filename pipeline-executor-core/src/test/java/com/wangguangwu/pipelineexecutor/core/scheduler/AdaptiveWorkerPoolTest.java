@@ -0,0 +1,128 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应工作线程池测试
+ * <p>
+ * 覆盖阻塞型任务积压时按阻塞比例扩容、负载转为 CPU 型后缩容（每次调整都记录原因），
+ * 以及目标线程数落在滞回区间内时不调整。
+ *
+ * @author wangguangwu
+ */
+class AdaptiveWorkerPoolTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final long INTERVAL_MILLIS = 50;
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    private static final int MAX_THREADS = CPUS * 4;
+
+    private static final PipelineContext CONTEXT = new DefaultPipelineContext<>("adaptive-1");
+
+    private volatile boolean stopBlocking;
+
+    private volatile boolean stopSpinning;
+
+    private AdaptiveWorkerPool pool;
+
+    @AfterEach
+    void shutdown() {
+        stopBlocking = true;
+        stopSpinning = true;
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void growsOnBlockingBacklogAndShrinksWhenCpuBound() throws Exception {
+        pool = newPool(AdaptiveWorkerPool.DEFAULT_HYSTERESIS);
+        int initial = pool.getPoolSize();
+        assertEquals(CPUS, initial);
+
+        submitBlocking();
+        awaitTrue(() -> pool.getPoolSize() > initial, "pool did not grow under blocking backlog");
+        int grown = pool.getPoolSize();
+        stopBlocking = true;
+
+        // 单个纯 CPU 任务：阻塞比例接近0，目标线程数回落到 CPU 核数 × 目标利用率附近
+        pool.dispatch(CONTEXT, () -> {
+            while (!stopSpinning) {
+                Thread.onSpinWait();
+            }
+        });
+        awaitTrue(() -> pool.getPoolSize() < grown, "pool did not shrink for cpu-bound load");
+        stopSpinning = true;
+
+        List<AdaptiveWorkerPool.Resize> history = pool.getResizeHistory();
+        AdaptiveWorkerPool.Resize grow = history.get(0);
+        assertEquals(initial, grow.fromSize());
+        assertEquals(grow.targetSize(), grow.toSize());
+        assertTrue(grow.blockingRatio() > 1, "blocking ratio " + grow.blockingRatio());
+        assertTrue(grow.reason().startsWith("grow"), grow.reason());
+        AdaptiveWorkerPool.Resize shrink = history.get(history.size() - 1);
+        assertTrue(shrink.toSize() < shrink.fromSize());
+        assertTrue(shrink.reason().startsWith("shrink"), shrink.reason());
+        assertEquals(history.size(), pool.getResizeCount());
+    }
+
+    @Test
+    void targetWithinHysteresisDoesNotResize() throws Exception {
+        // 滞回阈值远大于可能的线程数差值
+        pool = newPool(MAX_THREADS * 2.0);
+        int initial = pool.getPoolSize();
+
+        submitBlocking();
+        awaitTrue(() -> pool.getLastTargetSize() > initial, "blocking backlog was not evaluated");
+        // 再经过若干窗口，足以完成两次确认
+        Thread.sleep(INTERVAL_MILLIS * 5);
+
+        assertEquals(initial, pool.getPoolSize());
+        assertEquals(0, pool.getResizeCount());
+        assertTrue(pool.getResizeHistory().isEmpty());
+    }
+
+    private AdaptiveWorkerPool newPool(double hysteresis) {
+        return new AdaptiveWorkerPool(1, MAX_THREADS, Integer.MAX_VALUE, INTERVAL_MILLIS, TimeUnit.MILLISECONDS,
+                AdaptiveWorkerPool.DEFAULT_TARGET_UTILIZATION, hysteresis);
+    }
+
+    /**
+     * 提交足以持续积压数秒的休眠任务，停止后剩余任务立即返回
+     */
+    private void submitBlocking() {
+        for (int i = 0; i < CPUS * 1000; i++) {
+            pool.dispatch(CONTEXT, () -> {
+                if (stopBlocking) {
+                    return;
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, message);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.PipelineDispatcher;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 排队时延准入控制测试
+ * <p>
+ * 委托调度器只排队、由测试决定何时出队，以此构造排队时长：
+ * 短时突发不触发拒绝；持续积压后按控制律间隔拒绝；排队时长回落后恢复；委托拒绝的任务不计入接收数。
+ *
+ * @author wangguangwu
+ */
+class CoDelAdmissionDispatcherTest {
+
+    private static final long TARGET_MILLIS = 5;
+
+    private static final long INTERVAL_MILLIS = 50;
+
+    private final ManualDispatcher queue = new ManualDispatcher();
+
+    private final CoDelAdmissionDispatcher dispatcher =
+            new CoDelAdmissionDispatcher(queue, TARGET_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    private final PipelineContext context = new DefaultPipelineContext<>("codel-1");
+
+    @Test
+    void shortBurstDoesNotReject() throws Exception {
+        runWithDelay(2 * TARGET_MILLIS);
+        // 排队时长回落到目标值以下，之后即使再次偏高也要重新等待一个窗口
+        runWithDelay(0);
+        runWithDelay(2 * TARGET_MILLIS);
+        Thread.sleep(INTERVAL_MILLIS / 2);
+
+        assertFalse(dispatcher.isOverloaded());
+        assertDoesNotThrow(() -> dispatcher.dispatch(context, () -> {
+        }));
+    }
+
+    @Test
+    void persistentDelayRejectsOnControlLawSchedule() throws Exception {
+        enterDropping();
+
+        RejectedExecutionException first = assertThrows(RejectedExecutionException.class,
+                () -> dispatcher.dispatch(context, () -> {
+                }));
+        // 下一次拒绝在 interval / √1 之后，期间的提交照常接收
+        assertDoesNotThrow(() -> dispatcher.dispatch(context, () -> {
+        }));
+        Thread.sleep(INTERVAL_MILLIS + 5);
+        RejectedExecutionException second = assertThrows(RejectedExecutionException.class,
+                () -> dispatcher.dispatch(context, () -> {
+                }));
+
+        assertNotSame(first, second);
+        assertEquals(0, first.getSuppressed().length);
+        assertEquals(2, dispatcher.getRejectedCount());
+        assertTrue(dispatcher.isOverloaded());
+    }
+
+    @Test
+    void delayBelowTargetExitsDropping() throws Exception {
+        enterDropping();
+
+        // 拒绝状态下新任务可能被拒绝，用总是放行的续接任务测量
+        queue.clear();
+        dispatcher.dispatchContinuation(context, () -> {
+        });
+        queue.runAll();
+
+        assertFalse(dispatcher.isOverloaded());
+        assertDoesNotThrow(() -> dispatcher.dispatch(context, () -> {
+        }));
+    }
+
+    @Test
+    void delegateRejectionIsNotCountedAsAdmitted() {
+        CoDelAdmissionDispatcher rejecting = new CoDelAdmissionDispatcher((ctx, task) -> {
+            throw new RejectedExecutionException("closed");
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> rejecting.dispatch(context, () -> {
+        }));
+        assertEquals(0, rejecting.getAdmittedCount());
+    }
+
+    /**
+     * 连续两次出队的排队时长都高于目标值且跨越一个观察窗口
+     */
+    private void enterDropping() throws InterruptedException {
+        runWithDelay(2 * TARGET_MILLIS);
+        runWithDelay(INTERVAL_MILLIS + 10);
+        assertTrue(dispatcher.isOverloaded());
+    }
+
+    /**
+     * 提交一个任务，等待指定时长后出队执行
+     */
+    private void runWithDelay(long delayMillis) throws InterruptedException {
+        dispatcher.dispatch(context, () -> {
+        });
+        if (delayMillis > 0) {
+            Thread.sleep(delayMillis);
+        }
+        queue.runAll();
+    }
+
+    /**
+     * 只排队、由测试线程出队执行的调度器
+     */
+    private static final class ManualDispatcher implements PipelineDispatcher {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void dispatch(PipelineContext context, Runnable task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public int getQueuedCount() {
+            return tasks.size();
+        }
+
+        private void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void clear() {
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 优先级 + 租户公平调度器测试
+ * <p>
+ * 单个工作线程被门闩任务占住时排入任务，放开后检查调度顺序：严格优先级、按权重的赤字轮转；
+ * 关闭时正在执行的管道正常完成且线程未被中断，排队中的管道以 CANCELLED 结束。
+ *
+ * @author wangguangwu
+ */
+class FairPipelineSchedulerTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private final FairPipelineScheduler scheduler = new FairPipelineScheduler(1, 2,
+            FairPipelineScheduler.DEFAULT_PRIORITY_KEY, FairPipelineScheduler.DEFAULT_TENANT_KEY, 1,
+            Map.of("a", 2, "b", 1));
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void strictPriorityThenWeightedRoundRobin() throws Exception {
+        CountDownLatch gate = blockWorker();
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 4; i++) {
+            dispatch("1", "a", order, done);
+        }
+        for (int i = 0; i < 4; i++) {
+            dispatch("1", "b", order, done);
+        }
+        dispatch("0", "h", order, done);
+        dispatch("0", "h", order, done);
+
+        gate.countDown();
+        assertTrue(done.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+
+        // 权重 a=2、b=1：a 每轮两个，b 每轮一个，a 清空后 b 独占
+        assertEquals(List.of("h", "h", "a", "a", "b", "a", "a", "b", "b", "b"), order);
+    }
+
+    @Test
+    void shutdownLetsRunningPipelineFinishAndCancelsQueued() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new PipelineHandler() {
+            @Override
+            public String getName() {
+                return "block";
+            }
+
+            @Override
+            public void handle(PipelineContext context) throws InterruptedException {
+                started.countDown();
+                release.await();
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry,
+                new DefaultExceptionHandlingStrategy(), scheduler, null);
+
+        CompletableFuture<PipelineResult> running = executor.executeAsync(new DefaultPipelineContext<>("running-1"));
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<PipelineResult> queued = executor.executeAsync(new DefaultPipelineContext<>("queued-1"));
+
+        scheduler.shutdown();
+
+        assertFalse(queued.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertFalse(running.isDone());
+        release.countDown();
+        assertTrue(running.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertFalse(interrupted.get(), "running pipeline was interrupted by shutdown");
+        assertEquals(0, scheduler.getQueuedCount());
+        assertThrows(RejectedExecutionException.class,
+                () -> scheduler.dispatch(new DefaultPipelineContext<>("late-1"), () -> {
+                }));
+    }
+
+    /**
+     * 用门闩任务占住唯一的工作线程
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.dispatch(context("0", "gate"), () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private void dispatch(String priority, String tenant, List<String> order, CountDownLatch done) {
+        scheduler.dispatch(context(priority, tenant), () -> {
+            order.add(tenant);
+            done.countDown();
+        });
+    }
+
+    private static PipelineContext context(String priority, String tenant) {
+        return new DefaultPipelineContext<>(tenant + "-" + priority, Map.of(
+                FairPipelineScheduler.DEFAULT_PRIORITY_KEY, priority,
+                FairPipelineScheduler.DEFAULT_TENANT_KEY, tenant));
+    }
+}
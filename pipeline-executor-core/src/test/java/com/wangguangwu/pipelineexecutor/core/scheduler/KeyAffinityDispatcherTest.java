@@ -0,0 +1,196 @@
+package com.wangguangwu.pipelineexecutor.core.scheduler;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.executor.PipelineResult;
+import com.wangguangwu.pipelineexecutor.spi.handler.AsyncPipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按键亲和调度器测试
+ * <p>
+ * 覆盖同键任务按提交顺序执行且互不重叠、管道在非阻塞处理器处挂起时继续占用键
+ * （续接在同键后续管道之前、且在通道线程上执行），以及关闭时不中断正在执行的管道、排队中的管道以 CANCELLED 结束。
+ *
+ * @author wangguangwu
+ */
+class KeyAffinityDispatcherTest {
+
+    private static final long AWAIT_SECONDS = 5;
+
+    private static final String KEY_METADATA = "key";
+
+    private final KeyAffinityDispatcher dispatcher = new KeyAffinityDispatcher(4, KEY_METADATA, Integer.MAX_VALUE,
+            KeyAffinityDispatcher.DEFAULT_STEAL_INTERVAL_MILLIS);
+
+    @AfterEach
+    void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void sameKeyRunsInOrderWithoutOverlap() throws Exception {
+        int keys = 8;
+        int perKey = 200;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                String key = "k" + k;
+                int sequence = i;
+                dispatcher.dispatch(context(key, key + "-" + i), () -> {
+                    AtomicInteger active = running.computeIfAbsent(key, ignored -> new AtomicInteger());
+                    if (active.incrementAndGet() > 1) {
+                        overlapped.set(true);
+                    }
+                    seen.computeIfAbsent(key, ignored -> new CopyOnWriteArrayList<>()).add(sequence);
+                    active.decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(overlapped.get(), "tasks of one key overlapped");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < perKey; i++) {
+            expected.add(i);
+        }
+        for (int k = 0; k < keys; k++) {
+            assertEquals(expected, seen.get("k" + k));
+        }
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+
+    @Test
+    void suspendedPipelineHoldsKeyAcrossAsyncStage() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        List<String> order = new CopyOnWriteArrayList<>();
+        List<String> tailThreads = new CopyOnWriteArrayList<>();
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new AsyncPipelineHandler() {
+            @Override
+            public String getName() {
+                return "remote";
+            }
+
+            @Override
+            public CompletionStage<Void> handleAsync(PipelineContext context) {
+                order.add(context.getContextId() + ":remote");
+                return "first".equals(context.getContextId()) ? pending : CompletableFuture.completedFuture(null);
+            }
+        });
+        registry.register(new PipelineHandler() {
+            @Override
+            public String getName() {
+                return "tail";
+            }
+
+            @Override
+            public int getOrder() {
+                return 1;
+            }
+
+            @Override
+            public void handle(PipelineContext context) {
+                order.add(context.getContextId() + ":tail");
+                tailThreads.add(Thread.currentThread().getName());
+            }
+        });
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry,
+                new DefaultExceptionHandlingStrategy(), dispatcher, null);
+
+        CompletableFuture<PipelineResult> first = executor.executeAsync(context("shared", "first"));
+        CompletableFuture<PipelineResult> second = executor.executeAsync(context("shared", "second"));
+        Thread.sleep(100);
+        // 第一个管道挂起期间同键的第二个管道不开始
+        assertEquals(List.of("first:remote"), order);
+
+        pending.complete(null);
+
+        assertTrue(first.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertTrue(second.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertEquals(List.of("first:remote", "first:tail", "second:remote", "second:tail"), order);
+        for (String thread : tailThreads) {
+            assertTrue(thread.startsWith("pipeline-lane-"), "continuation ran on " + thread);
+        }
+        // 键在 onRunComplete 时退役，可能晚于 future 完成
+        awaitTrue(() -> dispatcher.getActiveKeyCount() == 0, "key was not retired");
+    }
+
+    @Test
+    void shutdownLetsRunningPipelineFinishAndCancelsQueued() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new PipelineHandler() {
+            @Override
+            public String getName() {
+                return "block";
+            }
+
+            @Override
+            public void handle(PipelineContext context) throws InterruptedException {
+                started.countDown();
+                release.await();
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry,
+                new DefaultExceptionHandlingStrategy(), dispatcher, null);
+
+        CompletableFuture<PipelineResult> running = executor.executeAsync(context("shared", "running"));
+        assertTrue(started.await(AWAIT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<PipelineResult> queued = executor.executeAsync(context("shared", "queued"));
+
+        dispatcher.shutdown();
+
+        assertFalse(queued.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertFalse(running.isDone());
+        release.countDown();
+        assertTrue(running.get(AWAIT_SECONDS, TimeUnit.SECONDS).isSuccess());
+        assertFalse(interrupted.get(), "running pipeline was interrupted by shutdown");
+        assertEquals(0, dispatcher.getQueuedCount());
+        assertThrows(RejectedExecutionException.class, () -> dispatcher.dispatch(context("late", "late"), () -> {
+        }));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, message);
+            Thread.sleep(10);
+        }
+    }
+
+    private static PipelineContext context(String key, String contextId) {
+        return new DefaultPipelineContext<>(contextId, Map.of(KEY_METADATA, key));
+    }
+}
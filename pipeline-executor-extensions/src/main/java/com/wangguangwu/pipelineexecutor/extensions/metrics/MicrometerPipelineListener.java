@@ -0,0 +1,77 @@
+package com.wangguangwu.pipelineexecutor.extensions.metrics;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Micrometer 的管道指标监听器
+ * <p>
+ * 输出指标：
+ * <ul>
+ *   <li>{@code pipeline.execution}：管道总耗时</li>
+ *   <li>{@code pipeline.handler.execution}：处理器耗时（tag: handler）</li>
+ *   <li>{@code pipeline.handler.errors}：处理器异常次数（tag: handler, exception）</li>
+ *   <li>{@code pipeline.rejected}：被调度器拒绝的管道数</li>
+ * </ul>
+ *
+ * @author wangguangwu
+ */
+public class MicrometerPipelineListener implements PipelineListener {
+
+    private final MeterRegistry registry;
+
+    private final Timer pipelineTimer;
+
+    private final Counter rejectedCounter;
+
+    private final Map<String, Timer> handlerTimers = new ConcurrentHashMap<>();
+
+    public MicrometerPipelineListener(@NonNull MeterRegistry registry) {
+        this.registry = registry;
+        this.pipelineTimer = Timer.builder("pipeline.execution")
+                .description("管道总耗时")
+                .register(registry);
+        this.rejectedCounter = Counter.builder("pipeline.rejected")
+                .description("被调度器拒绝的管道数")
+                .register(registry);
+    }
+
+    @Override
+    public void afterPipeline(PipelineContext context, long elapsedNanos) {
+        pipelineTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onHandlerComplete(PipelineContext context, PipelineHandler handler, long elapsedNanos) {
+        Timer timer = handlerTimers.get(handler.getName());
+        if (timer == null) {
+            timer = handlerTimers.computeIfAbsent(handler.getName(), name -> Timer.builder("pipeline.handler.execution")
+                    .description("处理器耗时")
+                    .tag("handler", name)
+                    .register(registry));
+        }
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onRejected(PipelineContext context, String reason) {
+        rejectedCounter.increment();
+    }
+
+    @Override
+    public ErrorStrategy onError(PipelineContext context, PipelineHandler handler, Throwable error) {
+        registry.counter("pipeline.handler.errors",
+                "handler", handler.getName(),
+                "exception", error.getClass().getSimpleName()).increment();
+        return PipelineListener.super.onError(context, handler, error);
+    }
+}
@@ -0,0 +1,410 @@
+package com.wangguangwu.pipelineexecutor.processor;
+
+import com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link IndexedHandler} 注解处理器
+ * <p>
+ * 编译期收集所有带注解的处理器，校验后生成一个 {@link HandlerIndex} 实现类：
+ * <ul>
+ *   <li>处理器描述信息（名称、顺序、依赖、实现类），按依赖关系排序以得到稳定的创建顺序</li>
+ *   <li>直接调用构造函数或静态工厂方法的创建代码，创建后通过 {@link HandlerIndex.Descriptor#verify} 校验
+ *       处理器自身的名称、顺序与依赖和注解一致</li>
+ * </ul>
+ * 运行期的执行顺序仍由执行器根据注册中心中的处理器计算：注册中心按 order 稳定排序后，
+ * 只要前置依赖的 order 不大于自身，快照就保持索引给出的依赖顺序，执行计划只做线性校验而不再排序；
+ * 否则（或混入了索引之外的处理器）执行器重新排序。
+ * <p>
+ * 索引在首个包含注解的轮次生成，同一模块内的源码可直接引用生成类。
+ * 生成类的全限定名通过编译参数 {@code -Apipeline.handler.index=...} 指定，
+ * 默认 {@value #DEFAULT_INDEX_CLASS}。名称重复、循环依赖或无法实例化时编译失败。
+ * <p>
+ * 增量编译只把变更的源码交给处理器，因此同时在类输出目录写入已索引的类名清单（{@value #CLASS_LIST_DIRECTORY} 下），
+ * 生成时合并清单中未参与本次编译、但仍存在且带注解的处理器类。
+ *
+ * @author wangguangwu
+ */
+public class HandlerIndexProcessor extends AbstractProcessor {
+
+    /**
+     * 生成类名编译参数
+     */
+    public static final String INDEX_CLASS_OPTION = "pipeline.handler.index";
+
+    /**
+     * 默认生成类名
+     */
+    public static final String DEFAULT_INDEX_CLASS = "com.wangguangwu.pipelineexecutor.generated.GeneratedHandlerIndex";
+
+    /**
+     * 已索引类名清单所在目录（类输出目录下，文件名为生成类的全限定名）
+     */
+    static final String CLASS_LIST_DIRECTORY = "META-INF/pipeline-handler-index/";
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    private Messager messager;
+
+    private Filer filer;
+
+    private TypeMirror handlerType;
+
+    private boolean failed;
+
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.messager = processingEnv.getMessager();
+        this.filer = processingEnv.getFiler();
+        this.handlerType = processingEnv.getElementUtils()
+                .getTypeElement(PipelineHandler.class.getCanonicalName()).asType();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(IndexedHandler.class.getCanonicalName());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(INDEX_CLASS_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(IndexedHandler.class);
+        if (elements.isEmpty()) {
+            return true;
+        }
+        if (generated) {
+            // 索引须在首个轮次生成，同一编译单元中的其他源码才能引用它
+            for (Element element : elements) {
+                error(element, "@IndexedHandler on sources generated in later rounds is not supported");
+            }
+            return true;
+        }
+        for (Element element : elements) {
+            collect(element);
+        }
+        String indexClass = processingEnv.getOptions().getOrDefault(INDEX_CLASS_OPTION, DEFAULT_INDEX_CLASS);
+        collectPrevious(indexClass, elements);
+        if (!failed) {
+            generate(indexClass);
+        }
+        generated = true;
+        return true;
+    }
+
+    private void collect(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@IndexedHandler can only be applied to classes");
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            error(type, "@IndexedHandler class must be public and non-abstract");
+            return;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            error(type, "@IndexedHandler nested class must be static");
+            return;
+        }
+        if (!processingEnv.getTypeUtils().isAssignable(type.asType(), handlerType)) {
+            error(type, "@IndexedHandler class must implement " + PipelineHandler.class.getName());
+            return;
+        }
+        IndexedHandler annotation = type.getAnnotation(IndexedHandler.class);
+        String factoryMethod = annotation.factoryMethod();
+        if (factoryMethod.isEmpty() ? !hasPublicNoArgConstructor(type) : !hasFactoryMethod(type, factoryMethod)) {
+            error(type, factoryMethod.isEmpty()
+                    ? "@IndexedHandler class requires a public no-arg constructor"
+                    : "factory method must be public static, take no arguments and return a PipelineHandler: " + factoryMethod);
+            return;
+        }
+        String name = annotation.name().isEmpty() ? type.getSimpleName().toString() : annotation.name();
+        Entry previous = entries.put(name, new Entry(name, annotation.order(),
+                new LinkedHashSet<>(Arrays.asList(annotation.dependsOn())),
+                new LinkedHashSet<>(Arrays.asList(annotation.dependentBy())),
+                type.getQualifiedName().toString(), factoryMethod));
+        if (previous != null && !previous.className.equals(type.getQualifiedName().toString())) {
+            error(type, "Duplicate handler name [" + name + "], also declared by " + previous.className);
+        }
+    }
+
+    /**
+     * 合并上次编译索引过、本次未参与编译的处理器类（增量编译），已删除或已去掉注解的类被丢弃
+     */
+    private void collectPrevious(String indexClass, Set<? extends Element> current) {
+        Set<String> compiled = new HashSet<>();
+        for (Element element : current) {
+            if (element instanceof TypeElement type) {
+                compiled.add(type.getQualifiedName().toString());
+            }
+        }
+        for (String className : readClassList(indexClass)) {
+            if (compiled.contains(className)) {
+                continue;
+            }
+            TypeElement type = processingEnv.getElementUtils().getTypeElement(className);
+            if (type != null && type.getAnnotation(IndexedHandler.class) != null) {
+                collect(type);
+            }
+        }
+    }
+
+    private List<String> readClassList(String indexClass) {
+        try {
+            FileObject resource = filer.getResource(StandardLocation.CLASS_OUTPUT, "", CLASS_LIST_DIRECTORY + indexClass);
+            List<String> classNames = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(resource.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        classNames.add(line.trim());
+                    }
+                }
+            }
+            return classNames;
+        } catch (IOException | IllegalArgumentException e) {
+            // 首次编译或全量编译前已清理：没有清单
+            return List.of();
+        }
+    }
+
+    private void writeClassList(String indexClass, List<Entry> sorted) throws IOException {
+        FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", CLASS_LIST_DIRECTORY + indexClass);
+        try (Writer writer = resource.openWriter()) {
+            for (Entry entry : sorted) {
+                writer.write(entry.className);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasFactoryMethod(TypeElement type, String methodName) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(methodName)
+                    && method.getParameters().isEmpty()
+                    && method.getModifiers().containsAll(Set.of(Modifier.PUBLIC, Modifier.STATIC))
+                    && processingEnv.getTypeUtils().isAssignable(method.getReturnType(), handlerType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按依赖关系拓扑排序，入度为0的处理器按 (order, name) 出队
+     */
+    private List<Entry> topologicalOrder() {
+        Map<String, List<String>> successors = new HashMap<>();
+        Map<String, Integer> inDegree = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            successors.put(entry.name, new ArrayList<>());
+            inDegree.put(entry.name, 0);
+        }
+        for (Entry entry : entries.values()) {
+            for (String dependency : entry.dependsOn) {
+                addEdge(successors, inDegree, dependency, entry.name);
+            }
+            for (String dependent : entry.dependentBy) {
+                addEdge(successors, inDegree, entry.name, dependent);
+            }
+        }
+        PriorityQueue<Entry> ready = new PriorityQueue<>(
+                Comparator.comparingInt((Entry entry) -> entry.order).thenComparing(entry -> entry.name));
+        inDegree.forEach((name, degree) -> {
+            if (degree == 0) {
+                ready.add(entries.get(name));
+            }
+        });
+        List<Entry> sorted = new ArrayList<>(entries.size());
+        while (!ready.isEmpty()) {
+            Entry current = ready.poll();
+            sorted.add(current);
+            for (String next : successors.get(current.name)) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(entries.get(next));
+                }
+            }
+        }
+        if (sorted.size() < entries.size()) {
+            List<String> cyclic = new ArrayList<>();
+            inDegree.forEach((name, degree) -> {
+                if (degree > 0) {
+                    cyclic.add(name);
+                }
+            });
+            messager.printMessage(Diagnostic.Kind.ERROR, "Circular dependency detected among handlers " + cyclic);
+            return null;
+        }
+        return sorted;
+    }
+
+    private void addEdge(Map<String, List<String>> successors, Map<String, Integer> inDegree, String from, String to) {
+        // 依赖未被索引的处理器时忽略，与运行期执行计划的处理方式一致
+        if (!from.equals(to) && entries.containsKey(from) && entries.containsKey(to)) {
+            successors.get(from).add(to);
+            inDegree.merge(to, 1, Integer::sum);
+        }
+    }
+
+    private void generate(String indexClass) {
+        List<Entry> sorted = topologicalOrder();
+        if (sorted == null) {
+            return;
+        }
+        int lastDot = indexClass.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : indexClass.substring(0, lastDot);
+        String simpleName = indexClass.substring(lastDot + 1);
+
+        StringBuilder source = new StringBuilder(1024);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * 编译期生成的处理器索引，请勿手工修改\n */\n")
+                .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements ").append(HandlerIndex.class.getCanonicalName()).append(" {\n\n")
+                .append("    private static final java.util.List<").append(HandlerIndex.class.getCanonicalName())
+                .append(".Descriptor> DESCRIPTORS = java.util.List.of(");
+        for (int i = 0; i < sorted.size(); i++) {
+            Entry entry = sorted.get(i);
+            source.append(i == 0 ? "\n" : ",\n")
+                    .append("            new ").append(HandlerIndex.class.getCanonicalName()).append(".Descriptor(")
+                    .append(literal(entry.name)).append(", ")
+                    .append(entry.order).append(", ")
+                    .append(setLiteral(entry.dependsOn)).append(", ")
+                    .append(setLiteral(entry.dependentBy)).append(", ")
+                    .append(literal(entry.className)).append(')');
+        }
+        source.append(");\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(HandlerIndex.class.getCanonicalName())
+                .append(".Descriptor> getDescriptors() {\n")
+                .append("        return DESCRIPTORS;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public java.util.List<").append(PipelineHandler.class.getCanonicalName())
+                .append("> createHandlers() {\n")
+                .append("        java.util.List<").append(PipelineHandler.class.getCanonicalName())
+                .append("> handlers = new java.util.ArrayList<>(").append(sorted.size()).append(");\n");
+        for (int i = 0; i < sorted.size(); i++) {
+            Entry entry = sorted.get(i);
+            source.append("        handlers.add(DESCRIPTORS.get(").append(i).append(").verify(")
+                    .append(entry.factoryMethod.isEmpty()
+                            ? "new " + entry.className + "()"
+                            : entry.className + "." + entry.factoryMethod + "()")
+                    .append("));\n");
+        }
+        source.append("        return handlers;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject file = filer.createSourceFile(indexClass);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            writeClassList(indexClass, sorted);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to generate " + indexClass + ": " + e.getMessage());
+        }
+    }
+
+    private static String setLiteral(Set<String> values) {
+        if (values.isEmpty()) {
+            return "java.util.Set.of()";
+        }
+        StringBuilder builder = new StringBuilder("java.util.Set.of(");
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(literal(value));
+            first = false;
+        }
+        return builder.append(')').toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        failed = true;
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 收集到的处理器信息
+     */
+    private record Entry(String name, int order, Set<String> dependsOn, Set<String> dependentBy,
+                         String className, String factoryMethod) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.wangguangwu.pipelineexecutor.samples.benchmark;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.listener.PipelineListener;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 同步执行稳态分配回归检查
+ * <p>
+ * 对一个只包含空处理器的管道反复调用 {@code execute()}，
+ * 通过 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} 统计每次执行的分配字节数，
+ * 超过阈值时以非零状态码退出。构建中的门禁由 core 模块的 {@code SyncExecuteAllocationTest} 负责，
+ * 本示例用于手动观察更长时间的测量结果。
+ * <p>
+ * 用法：{@code java ... AllocationBenchmark [阈值字节数/次，默认16]}
+ *
+ * @author wangguangwu
+ */
+public class AllocationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int MEASURE_ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        long threshold = args.length > 0 ? Long.parseLong(args[0]) : 16L;
+
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        // 空处理器，仅测量框架自身开销；每个 lambda 是独立的类，默认名称（类名）互不相同
+        registry.register(ignored -> {
+        });
+        registry.register(ignored -> {
+        });
+        registry.register(ignored -> {
+        });
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(registry);
+        executor.addListener(new PipelineListener() {
+        });
+        PipelineContext context = new DefaultPipelineContext<>("allocation-benchmark");
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            executor.execute(context);
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            executor.execute(context);
+        }
+        long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        double bytesPerOp = (double) (after - before) / MEASURE_ITERATIONS;
+        System.out.printf("execute(): %.2f bytes/op (threshold %d)%n", bytesPerOp, threshold);
+        if (bytesPerOp > threshold) {
+            System.err.println("Allocation regression detected on synchronous execute() path");
+            System.exit(1);
+        }
+    }
+}
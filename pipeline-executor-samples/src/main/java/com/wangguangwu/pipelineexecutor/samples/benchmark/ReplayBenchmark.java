@@ -0,0 +1,110 @@
+package com.wangguangwu.pipelineexecutor.samples.benchmark;
+
+import com.wangguangwu.pipelineexecutor.core.context.DefaultPipelineContext;
+import com.wangguangwu.pipelineexecutor.core.exception.DefaultExceptionHandlingStrategy;
+import com.wangguangwu.pipelineexecutor.core.executor.DefaultPipelineExecutor;
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.core.replay.RecordedRun;
+import com.wangguangwu.pipelineexecutor.core.replay.RecordingFile;
+import com.wangguangwu.pipelineexecutor.core.replay.RecordingListener;
+import com.wangguangwu.pipelineexecutor.core.replay.ReplayHarness;
+import com.wangguangwu.pipelineexecutor.core.replay.TaggedAttributeCodec;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 录制回放压测示例
+ * <p>
+ * 先录制一段模拟生产流量（处理器耗时随机，偶发长尾），再用桩处理器回放：
+ * 分别以闭环并发与开环固定速率施压，输出校正协调遗漏前后的延迟分位数。
+ * <p>
+ * 用法：{@code java ... ReplayBenchmark [开环速率(次/秒)]}
+ *
+ * @author wangguangwu
+ */
+public class ReplayBenchmark {
+
+    private static final int RECORDED_RUNS = 300;
+
+    private static final int REPLAY_REQUESTS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        double rate = args.length > 0 ? Double.parseDouble(args[0]) : 500;
+        Path file = Files.createTempFile("pipeline-recording", ".bin");
+        try {
+            record(file);
+            List<RecordedRun> runs = RecordingFile.read(file, new TaggedAttributeCodec());
+            System.out.printf("recorded %d runs (%d bytes)%n", runs.size(), Files.size(file));
+
+            ReplayHarness harness = new ReplayHarness(runs);
+            ExecutorService pool = Executors.newFixedThreadPool(32);
+            try {
+                DefaultPipelineExecutor executor = new DefaultPipelineExecutor(
+                        harness.stubRegistry(), new DefaultExceptionHandlingStrategy(), pool);
+                System.out.print(harness.runClosedLoop(executor, 4, REPLAY_REQUESTS,
+                        TimeUnit.MICROSECONDS.toNanos(2_000)).toText());
+                System.out.print(harness.runOpenLoop(executor, rate, REPLAY_REQUESTS).toText());
+            } finally {
+                pool.shutdownNow();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void record(Path file) throws Exception {
+        DefaultHandlerRegistry registry = new DefaultHandlerRegistry();
+        registry.register(new SimulatedHandler("validate", 1, 100, 400));
+        registry.register(new SimulatedHandler("enrich", 2, 300, 1_500));
+        registry.register(new SimulatedHandler("persist", 3, 500, 2_000));
+        DefaultPipelineExecutor executor = new DefaultPipelineExecutor(
+                registry, new DefaultExceptionHandlingStrategy(), Runnable::run);
+        try (RecordingListener recorder = new RecordingListener(file, new TaggedAttributeCodec(), 1)) {
+            executor.addListener(recorder);
+            for (int i = 0; i < RECORDED_RUNS; i++) {
+                try (DefaultPipelineContext<Object> context =
+                             new DefaultPipelineContext<>("case-" + i, Map.of("tenant", "t" + i % 3))) {
+                    context.setAttribute("caseNo", i);
+                    executor.execute(context);
+                }
+            }
+            executor.removeListener(recorder);
+        }
+    }
+
+    /**
+     * 耗时在区间内均匀分布、1% 概率出现10倍长尾的处理器
+     */
+    private record SimulatedHandler(String name, int order, long minMicros, long maxMicros) implements PipelineHandler {
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+
+        @Override
+        public void handle(PipelineContext context) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long micros = random.nextLong(minMicros, maxMicros);
+            if (random.nextInt(100) == 0) {
+                micros *= 10;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.wangguangwu.pipelineexecutor.samples.benchmark;
+
+import com.wangguangwu.pipelineexecutor.core.registry.DefaultHandlerRegistry;
+import com.wangguangwu.pipelineexecutor.samples.handler.SampleHandlerIndex;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+import com.wangguangwu.pipelineexecutor.spi.registry.HandlerRegistry;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * 注册耗时对比：{@link ServiceLoader} 扫描 vs 编译期处理器索引
+ * <p>
+ * 第一次注册包含类加载，单独报告为冷启动耗时；之后重复注册到新的注册中心，报告热态的最小值与中位数。
+ * 冷启动耗时每个 JVM 只有一个样本，两种方式需在独立 JVM 中各运行多次再比较：
+ * <pre>
+ * java ... StartupBenchmark spi   [iterations]
+ * java ... StartupBenchmark index [iterations]
+ * </pre>
+ *
+ * @author wangguangwu
+ */
+public class StartupBenchmark {
+
+    private static final int DEFAULT_ITERATIONS = 1_000;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "index";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        if (!"spi".equals(mode) && !"index".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode: " + mode + " (expected spi or index)");
+        }
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        }
+
+        long start = System.nanoTime();
+        int count = register(mode).getHandlers().size();
+        long cold = System.nanoTime() - start;
+
+        long[] warm = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            start = System.nanoTime();
+            register(mode);
+            warm[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(warm);
+
+        System.out.printf("%-5s registered %d handlers: cold %.3f ms, warm min %.1f us, median %.1f us (%d runs)%n",
+                mode, count, cold / 1e6, warm[0] / 1e3, warm[iterations / 2] / 1e3, iterations);
+    }
+
+    private static HandlerRegistry register(String mode) {
+        HandlerRegistry registry = new DefaultHandlerRegistry();
+        if ("spi".equals(mode)) {
+            for (PipelineHandler handler : ServiceLoader.load(PipelineHandler.class)) {
+                registry.register(handler);
+            }
+        } else {
+            new SampleHandlerIndex().registerTo(registry);
+        }
+        return registry;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wangguangwu.pipelineexecutor.samples.handler;
+
+import com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler;
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.util.Set;
+
+/**
+ * 示例处理器：补全案件信息
+ *
+ * @author wangguangwu
+ */
+@IndexedHandler(order = 20, dependsOn = "CaseValidateHandler")
+public class CaseEnrichHandler implements PipelineHandler {
+
+    @Override
+    public int getOrder() {
+        return 20;
+    }
+
+    @Override
+    public Set<String> getDependsOn() {
+        return Set.of("CaseValidateHandler");
+    }
+
+    @Override
+    public void handle(PipelineContext context) {
+        if (context instanceof AttributeStore store) {
+            store.setAttribute("CaseEnrichHandler", Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.wangguangwu.pipelineexecutor.samples.handler;
+
+import com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler;
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.util.Set;
+
+/**
+ * 示例处理器：推送案件通知
+ *
+ * @author wangguangwu
+ */
+@IndexedHandler(order = 40, dependsOn = "CasePersistHandler")
+public class CaseNotifyHandler implements PipelineHandler {
+
+    @Override
+    public int getOrder() {
+        return 40;
+    }
+
+    @Override
+    public Set<String> getDependsOn() {
+        return Set.of("CasePersistHandler");
+    }
+
+    @Override
+    public void handle(PipelineContext context) {
+        if (context instanceof AttributeStore store) {
+            store.setAttribute("CaseNotifyHandler", Boolean.TRUE);
+        }
+    }
+}
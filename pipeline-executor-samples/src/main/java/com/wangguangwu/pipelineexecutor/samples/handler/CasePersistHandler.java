@@ -0,0 +1,34 @@
+package com.wangguangwu.pipelineexecutor.samples.handler;
+
+import com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler;
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.util.Set;
+
+/**
+ * 示例处理器：持久化案件
+ *
+ * @author wangguangwu
+ */
+@IndexedHandler(order = 30, dependsOn = "CaseEnrichHandler")
+public class CasePersistHandler implements PipelineHandler {
+
+    @Override
+    public int getOrder() {
+        return 30;
+    }
+
+    @Override
+    public Set<String> getDependsOn() {
+        return Set.of("CaseEnrichHandler");
+    }
+
+    @Override
+    public void handle(PipelineContext context) {
+        if (context instanceof AttributeStore store) {
+            store.setAttribute("CasePersistHandler", Boolean.TRUE);
+        }
+    }
+}
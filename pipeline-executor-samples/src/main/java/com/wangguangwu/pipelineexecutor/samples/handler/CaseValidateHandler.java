@@ -0,0 +1,27 @@
+package com.wangguangwu.pipelineexecutor.samples.handler;
+
+import com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler;
+import com.wangguangwu.pipelineexecutor.spi.context.AttributeStore;
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+/**
+ * 示例处理器：校验案件
+ *
+ * @author wangguangwu
+ */
+@IndexedHandler(order = 10)
+public class CaseValidateHandler implements PipelineHandler {
+
+    @Override
+    public int getOrder() {
+        return 10;
+    }
+
+    @Override
+    public void handle(PipelineContext context) {
+        if (context instanceof AttributeStore store) {
+            store.setAttribute("CaseValidateHandler", Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.wangguangwu.pipelineexecutor.spi.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 编译期处理器索引注解
+ * <p>
+ * 标注在 {@code PipelineHandler} 实现类上，由注解处理器在编译期生成
+ * {@link com.wangguangwu.pipelineexecutor.spi.registry.HandlerIndex} 实现，
+ * 启动时无需类路径扫描与反射即可创建并注册处理器。
+ * <p>
+ * 注意：索引中的名称、顺序与依赖以注解声明为准，必须与处理器自身
+ * {@code getName()}、{@code getOrder()}、{@code getDependsOn()}、{@code getDependentBy()} 的返回值一致，
+ * 生成的索引在创建处理器时校验，不一致时抛出 {@link IllegalStateException}。
+ *
+ * @author wangguangwu
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface IndexedHandler {
+
+    /**
+     * 处理器名称（默认使用类的简单名称）
+     */
+    String name() default "";
+
+    /**
+     * 执行优先级（数值越小优先级越高）
+     */
+    int order() default 0;
+
+    /**
+     * 前置依赖处理器名称
+     */
+    String[] dependsOn() default {};
+
+    /**
+     * 后置依赖处理器名称
+     */
+    String[] dependentBy() default {};
+
+    /**
+     * 无参静态工厂方法名（默认使用公共无参构造函数）
+     */
+    String factoryMethod() default "";
+}
@@ -2,6 +2,7 @@ package com.wangguangwu.pipelineexecutor.spi.context;
 
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 类型安全的属性存储接口
@@ -30,7 +31,21 @@ public interface AttributeStore {
     void setAttribute(String key, Object value);
 
     /**
-     * 检查属性是否存在
+     * 注册延迟计算的属性
+     * <p>
+     * 首次通过 {@link #getAttribute} 读取时调用 supplier 计算并缓存结果，并发读取时只计算一次；
+     * 计算抛出异常时不缓存，下次读取重新计算。再次设置同名属性会覆盖该注册。
+     * 默认实现立即计算，支持延迟计算的实现类应覆盖本方法。
+     *
+     * @param key      属性键（非空）
+     * @param supplier 属性值计算函数（非空）
+     */
+    default void setLazyAttribute(String key, Supplier<?> supplier) {
+        setAttribute(key, supplier.get());
+    }
+
+    /**
+     * 检查属性是否存在（已注册但尚未计算的延迟属性视为存在，且不触发计算）
      *
      * @param key 属性键（非空）
      * @return 存在返回true
@@ -47,6 +62,8 @@ public interface AttributeStore {
 
     /**
      * 获取所有属性的不可变视图
+     * <p>
+     * 视图不触发延迟属性的计算，尚未计算的延迟属性不出现在视图中。
      *
      * @return 只读的属性映射
      */
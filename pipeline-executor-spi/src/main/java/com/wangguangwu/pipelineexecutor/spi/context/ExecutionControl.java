@@ -39,7 +39,7 @@ public interface ExecutionControl {
     /**
      * 获取剩余时间
      *
-     * @return 剩余时间
+     * @return 剩余时间（毫秒），未设置超时时返回 {@link Long#MAX_VALUE}
      */
     long getRemainingTime();
 }
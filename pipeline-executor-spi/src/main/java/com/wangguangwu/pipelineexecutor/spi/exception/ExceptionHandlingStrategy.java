@@ -26,4 +26,17 @@ public interface ExceptionHandlingStrategy {
             @NonNull Exception ex,
             @NonNull PipelineHandler handler
     );
+
+    /**
+     * 是否为该处理器创建不采集堆栈的失败异常（超时异常、{@link PipelineException} 包装）
+     * <p>
+     * 与 {@link PipelineHandler#isStacklessFailure()} 任一为 true 即生效，
+     * 适用于由本策略以 CONTINUE / COMPLETE_WITH_DEFAULT 消化大量预期失败、无需逐个处理器开启的场景。
+     *
+     * @param handler 发生失败的处理器（非空）
+     * @return true表示使用不采集堆栈的异常（默认false）
+     */
+    default boolean isStacklessFailure(@NonNull PipelineHandler handler) {
+        return false;
+    }
 }
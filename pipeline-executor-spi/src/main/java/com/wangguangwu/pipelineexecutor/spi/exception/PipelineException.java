@@ -1,13 +1,22 @@
 package com.wangguangwu.pipelineexecutor.spi.exception;
 
 import com.wangguangwu.pipelineexecutor.spi.enums.PipelineStatus;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.function.Supplier;
+
 /**
  * 自定义责任链异常，用于在 Handler 执行过程中抛出异常时携带上下文信息，
  * 如具体的处理器名称以及出错的执行阶段，便于日志记录与问题排查。
  * <p>
  * 推荐通过统一异常处理机制捕获并记录该异常。
+ * <p>
+ * 对于预期内、高频的业务失败，可通过 {@link #stackless} 系列工厂方法创建不采集堆栈、
+ * 消息延迟计算的轻量异常，避免 {@code fillInStackTrace} 与字符串格式化开销。
+ * 延迟消息在序列化前计算，反序列化后的异常消息不变。
  *
  * @author wangguangwu
  */
@@ -28,6 +37,18 @@ public class PipelineException extends RuntimeException {
      */
     private final PipelineStatus pipelineStatus;
 
+    /**
+     * 延迟计算的异常消息（可为null）
+     */
+    @Getter(AccessLevel.NONE)
+    private final transient Supplier<String> messageSupplier;
+
+    /**
+     * 延迟计算后缓存的消息
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile String resolvedMessage;
+
     /**
      * 构造函数：携带完整的异常信息
      *
@@ -40,6 +61,7 @@ public class PipelineException extends RuntimeException {
         super(message, cause);
         this.handlerName = handlerName;
         this.pipelineStatus = pipelineStatus;
+        this.messageSupplier = null;
     }
 
     /**
@@ -53,6 +75,7 @@ public class PipelineException extends RuntimeException {
         super(message);
         this.handlerName = handlerName;
         this.pipelineStatus = pipelineStatus;
+        this.messageSupplier = null;
     }
 
     /**
@@ -66,6 +89,106 @@ public class PipelineException extends RuntimeException {
         super(cause);
         this.handlerName = handlerName;
         this.pipelineStatus = pipelineStatus;
+        this.messageSupplier = null;
+    }
+
+    /**
+     * 构造函数：可控制是否采集堆栈
+     *
+     * @param message            异常消息
+     * @param cause              原始异常（可为null）
+     * @param handlerName        处理器名称
+     * @param pipelineStatus     执行阶段
+     * @param writableStackTrace false 时不采集堆栈
+     */
+    protected PipelineException(String message, Throwable cause, String handlerName,
+                                PipelineStatus pipelineStatus, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+        this.handlerName = handlerName;
+        this.pipelineStatus = pipelineStatus;
+        this.messageSupplier = null;
+    }
+
+    /**
+     * 构造函数：消息延迟计算，可控制是否采集堆栈
+     *
+     * @param messageSupplier    异常消息提供者（首次调用 {@link #getMessage()} 时计算）
+     * @param cause              原始异常（可为null）
+     * @param handlerName        处理器名称
+     * @param pipelineStatus     执行阶段
+     * @param writableStackTrace false 时不采集堆栈
+     */
+    protected PipelineException(Supplier<String> messageSupplier, Throwable cause, String handlerName,
+                                PipelineStatus pipelineStatus, boolean writableStackTrace) {
+        super(null, cause, true, writableStackTrace);
+        this.handlerName = handlerName;
+        this.pipelineStatus = pipelineStatus;
+        this.messageSupplier = messageSupplier;
+    }
+
+    /**
+     * 创建不采集堆栈的轻量异常
+     *
+     * @param message        异常消息
+     * @param handlerName    处理器名称
+     * @param pipelineStatus 执行阶段
+     * @return 轻量异常
+     */
+    public static PipelineException stackless(String message, String handlerName, PipelineStatus pipelineStatus) {
+        return new PipelineException(message, null, handlerName, pipelineStatus, false);
+    }
+
+    /**
+     * 创建不采集堆栈、消息延迟计算的轻量异常
+     *
+     * @param messageSupplier 异常消息提供者
+     * @param handlerName     处理器名称
+     * @param pipelineStatus  执行阶段
+     * @return 轻量异常
+     */
+    public static PipelineException stackless(Supplier<String> messageSupplier, String handlerName,
+                                              PipelineStatus pipelineStatus) {
+        return new PipelineException(messageSupplier, null, handlerName, pipelineStatus, false);
+    }
+
+    /**
+     * 创建不采集堆栈的包装异常（原始异常的堆栈保持不变）
+     *
+     * @param cause          原始异常
+     * @param handlerName    处理器名称
+     * @param pipelineStatus 执行阶段
+     * @return 轻量异常
+     */
+    public static PipelineException stackless(Throwable cause, String handlerName, PipelineStatus pipelineStatus) {
+        Supplier<String> message = cause == null ? null : cause::getMessage;
+        return new PipelineException(message, cause, handlerName, pipelineStatus, false);
+    }
+
+    /**
+     * 获取异常消息，延迟消息在首次调用时计算并缓存
+     *
+     * @return 异常消息
+     */
+    @Override
+    public String getMessage() {
+        String message = resolvedMessage;
+        if (message != null) {
+            return message;
+        }
+        if (messageSupplier == null) {
+            return super.getMessage();
+        }
+        message = messageSupplier.get();
+        resolvedMessage = message;
+        return message;
+    }
+
+    /**
+     * 序列化前计算延迟消息（消息提供者不参与序列化）
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
     }
 
     /**
@@ -75,7 +198,7 @@ public class PipelineException extends RuntimeException {
      */
     @Override
     public String toString() {
-        return String.format("PipelineException in handler [%s] during phase [%s]: %s",
-                handlerName, pipelineStatus.name(), getMessage());
+        return "PipelineException in handler [" + handlerName + "] during phase ["
+                + (pipelineStatus == null ? null : pipelineStatus.name()) + "]: " + getMessage();
     }
 }
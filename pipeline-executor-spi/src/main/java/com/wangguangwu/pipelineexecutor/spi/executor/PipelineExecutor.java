@@ -67,7 +67,8 @@ public interface PipelineExecutor {
      * 带超时的异步执行
      *
      * @param timeout 必须 > 0
-     * @implNote 超时后会自动取消异步任务
+     * @implNote 超时或返回的 future 被取消后会自动取消异步任务，
+     * 实现类应将取消传播到运行中的管道（中断处理器、不再执行后续处理器），而不仅是放弃结果
      */
     CompletableFuture<PipelineResult> executeAsync(
             PipelineContext context,
@@ -0,0 +1,62 @@
+package com.wangguangwu.pipelineexecutor.spi.handler;
+
+import com.wangguangwu.pipelineexecutor.spi.context.PipelineContext;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 非阻塞管道处理器
+ * <p>
+ * 处理逻辑以 {@link CompletionStage} 表达，适用于基于 NIO 的 HTTP、数据库客户端等场景：
+ * <ul>
+ *   <li>异步管道中，执行器在阶段完成后续接后续处理器，等待期间不占用任何线程</li>
+ *   <li>{@link #getTimeout()}、{@link #getRetryPolicy()}、{@link #postHandle} 与监听器回调均在阶段完成时生效</li>
+ *   <li>阶段可能在任意线程完成，后续处理器经执行器的调度器续接，不占用完成阶段的线程（如 IO 线程）</li>
+ * </ul>
+ * 同步管道中通过默认的 {@link #handle} 等待阶段完成。
+ *
+ * @author wangguangwu
+ */
+public interface AsyncPipelineHandler extends PipelineHandler {
+
+    /**
+     * 非阻塞处理逻辑
+     * <p>
+     * 实现要求：
+     * <ul>
+     *   <li>不应在调用线程上阻塞等待 IO</li>
+     *   <li>失败时以异常完成返回的阶段（直接抛出的异常等同于异常完成）</li>
+     *   <li>超时后执行器会尝试取消返回的阶段</li>
+     * </ul>
+     *
+     * @param context 管道执行上下文（不可为null）
+     * @return 处理完成的阶段（不可为null）
+     */
+    CompletionStage<Void> handleAsync(PipelineContext context);
+
+    /**
+     * 同步执行时等待 {@link #handleAsync} 完成
+     *
+     * @param context 管道执行上下文
+     * @throws Exception 阶段异常完成时抛出原始异常
+     */
+    @Override
+    default void handle(PipelineContext context) throws Exception {
+        try {
+            handleAsync(context).toCompletableFuture().get();
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    default boolean isAsyncSupported() {
+        return true;
+    }
+}
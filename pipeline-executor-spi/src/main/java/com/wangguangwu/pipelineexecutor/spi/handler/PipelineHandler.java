@@ -88,6 +88,18 @@ public interface PipelineHandler {
         return true;
     }
 
+    /**
+     * 是否为可选处理器
+     * <p>
+     * 可选处理器在剩余时间预算不足以完成时会被跳过，
+     * 而必选处理器会使管道以超时状态快速失败。
+     *
+     * @return true表示可选（默认false）
+     */
+    default boolean isOptional() {
+        return false;
+    }
+
     /**
      * 是否支持异步执行
      *
@@ -133,6 +145,16 @@ public interface PipelineHandler {
         // 默认空实现
     }
 
+    /**
+     * 退役回调
+     * <p>
+     * 处理器从注册中心移除（或被同名处理器覆盖）后，待所有可能看到它的执行结束时回调，
+     * 适用于安全关闭连接池等资源。仅在注册中心支持退役通知时触发。
+     */
+    default void onRetire() {
+        // 默认空实现
+    }
+
     // ================= 依赖管理 =================
 
     /**
@@ -193,6 +215,20 @@ public interface PipelineHandler {
         return null;
     }
 
+    /**
+     * 失败时是否使用轻量异常
+     * <p>
+     * 开启后，框架为该处理器创建的失败异常（超时异常、{@link PipelineException} 包装）不采集堆栈，
+     * 适用于失败属于预期业务分支、并由异常策略以 CONTINUE / COMPLETE_WITH_DEFAULT 消化的场景。
+     * 处理器自身抛出的业务异常可使用 {@link PipelineException#stackless} 创建。
+     * 也可通过 {@code ExceptionHandlingStrategy#isStacklessFailure} 按策略统一开启。
+     *
+     * @return true表示使用不采集堆栈的异常（默认false）
+     */
+    default boolean isStacklessFailure() {
+        return false;
+    }
+
     /**
      * 重试策略接口
      */
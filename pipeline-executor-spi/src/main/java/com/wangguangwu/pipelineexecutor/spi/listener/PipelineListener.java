@@ -14,6 +14,7 @@ import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
  * 3. afterPipeline
  *    ↑______onError（任意阶段出错时中断正常流程）
  * </pre>
+ * 异步提交被调度器拒绝、或在排队期间被取消/超时时，仅触发 onRejected。
  *
  * @author wangguangwu
  */
@@ -66,28 +67,48 @@ public interface PipelineListener {
     ) {
     }
 
+    /**
+     * 管道被拒绝执行时触发（如异步调度器过载、已关闭，或排队期间已被取消）
+     * <p>
+     * 被拒绝的管道不会执行任何处理器，也不会触发 beforePipeline / afterPipeline。
+     *
+     * @param context 被拒绝的上下文对象
+     * @param reason  拒绝原因
+     */
+    default void onRejected(PipelineContext context, String reason) {
+    }
+
     // ================= 异常处理 =================
 
     /**
      * 错误处理（支持策略模式）
+     * <p>
+     * 每次处理器失败都会通知全部监听器，按注册顺序第一个非 {@link ErrorStrategy#DEFAULT} 的返回值生效，
+     * 覆盖处理器重试策略与 {@code ExceptionHandlingStrategy} 的决定。
+     * 管道被取消时同样触发 onError，但返回值被忽略。
      *
      * @param context 可恢复的上下文对象
      * @param handler 发生异常的处理器
      * @param error   原始异常
-     * @return 处理策略（枚举值见下方）
+     * @return 处理策略（枚举值见下方），默认不干预
      */
     default ErrorStrategy onError(
             PipelineContext context,
             PipelineHandler handler,
             Throwable error
     ) {
-        return ErrorStrategy.TERMINATE;
+        return ErrorStrategy.DEFAULT;
     }
 
     /**
      * 错误处理策略枚举
      */
     enum ErrorStrategy {
+        /**
+         * 不干预，由处理器重试策略与异常处理策略决定
+         */
+        DEFAULT,
+
         /**
          * 继续执行后续处理器
          */
@@ -99,7 +120,7 @@ public interface PipelineListener {
         TERMINATE,
 
         /**
-         * 重试当前处理器（最大重试次数由实现类控制）
+         * 重试当前处理器（不限定异常类型，最大尝试次数仍由处理器的重试策略控制，次数用尽后按异常处理策略决定）
          */
         RETRY
     }
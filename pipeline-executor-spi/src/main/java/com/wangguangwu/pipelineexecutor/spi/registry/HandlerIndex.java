@@ -0,0 +1,81 @@
+package com.wangguangwu.pipelineexecutor.spi.registry;
+
+import com.wangguangwu.pipelineexecutor.spi.handler.PipelineHandler;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 编译期生成的处理器索引
+ * <p>
+ * 由注解处理器根据 {@link com.wangguangwu.pipelineexecutor.spi.annotation.IndexedHandler} 生成，
+ * 描述信息与处理器创建顺序一致（按依赖关系排序）。执行顺序由执行器在运行期计算，
+ * order 与依赖一致时注册后的快照即保持该顺序，执行器校验后直接沿用。
+ *
+ * @author wangguangwu
+ */
+public interface HandlerIndex {
+
+    /**
+     * 获取处理器描述信息（与 {@link #createHandlers()} 的顺序一致）
+     *
+     * @return 不可修改的描述列表
+     */
+    List<Descriptor> getDescriptors();
+
+    /**
+     * 创建全部处理器实例（直接调用构造函数或工厂方法，无反射）
+     *
+     * @return 新创建的处理器列表
+     * @throws IllegalStateException 处理器自身的名称、顺序或依赖与注解声明不一致时抛出
+     */
+    List<PipelineHandler> createHandlers();
+
+    /**
+     * 将索引中的处理器注册到注册中心
+     *
+     * @param registry 注册中心（非空）
+     */
+    default void registerTo(HandlerRegistry registry) {
+        registry.registerAll(createHandlers());
+    }
+
+    /**
+     * 处理器描述信息
+     *
+     * @param name        处理器名称
+     * @param order       执行优先级
+     * @param dependsOn   前置依赖
+     * @param dependentBy 后置依赖
+     * @param className   实现类全限定名
+     */
+    record Descriptor(String name, int order, Set<String> dependsOn, Set<String> dependentBy, String className) {
+
+        /**
+         * 校验处理器自身的声明与注解一致
+         *
+         * @param handler 按本描述创建的处理器
+         * @param <H>     处理器类型
+         * @return 原处理器
+         * @throws IllegalStateException 名称、顺序或依赖不一致时抛出
+         */
+        public <H extends PipelineHandler> H verify(H handler) {
+            check("getName()", name, handler.getName());
+            check("getOrder()", order, handler.getOrder());
+            check("getDependsOn()", dependsOn, orEmpty(handler.getDependsOn()));
+            check("getDependentBy()", dependentBy, orEmpty(handler.getDependentBy()));
+            return handler;
+        }
+
+        private void check(String method, Object declared, Object actual) {
+            if (!declared.equals(actual)) {
+                throw new IllegalStateException("Handler " + className + " declares " + declared
+                        + " in @IndexedHandler but " + method + " returns " + actual);
+            }
+        }
+
+        private static Set<String> orEmpty(Set<String> values) {
+            return values == null ? Set.of() : values;
+        }
+    }
+}